@@ -0,0 +1,50 @@
+package org.example.benchmark;
+
+import org.example.config.RideConfiguration;
+import org.example.service.BatchMatcher;
+import org.example.service.RideService;
+import org.example.service.RiderAssignment;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link BatchMatcher#assign(List)} for a dense batch: as many riders as drivers,
+ * all within one degree, so that every rider competes for the same drivers and the batch
+ * is solved as a single group.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BatchMatchBenchmark {
+
+    @Param({"100", "1000"})
+    private int riders;
+
+    private BatchMatcher batchMatcher;
+    private List<String> riderIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RideService rideService = Benchmarks.newBean(RideService.class);
+        batchMatcher = new BatchMatcher(Benchmarks.newBean(RideConfiguration.class), rideService);
+        Random random = new Random(42);
+        riderIds = new ArrayList<>(riders);
+        for (int i = 0; i < riders; i++) {
+            rideService.addDriver("D" + i, random.nextDouble(), random.nextDouble());
+            rideService.addRider("R" + i, random.nextDouble(), random.nextDouble());
+            riderIds.add("R" + i);
+        }
+    }
+
+    @Benchmark
+    public List<RiderAssignment> assignDenseBatch() {
+        return batchMatcher.assign(riderIds);
+    }
+}
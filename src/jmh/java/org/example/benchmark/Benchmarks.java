@@ -0,0 +1,35 @@
+package org.example.benchmark;
+
+import org.example.RiderApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Shared bootstrap for the JMH benchmarks.
+ * Starts the application context once per forked JVM, without the web server, so that
+ * benchmarked beans are configured from application.properties exactly as in production.
+ */
+final class Benchmarks {
+
+    private static ConfigurableApplicationContext context;
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Creates a new, empty instance of the given bean type with its dependencies injected.
+     *
+     * @param type The bean class to instantiate
+     * @return A fresh bean instance that is not shared with other benchmarks
+     */
+    static synchronized <T> T newBean(Class<T> type) {
+        if (context == null) {
+            context = new SpringApplicationBuilder(RiderApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .logStartupInfo(false)
+                    .run();
+        }
+        return context.getAutowireCapableBeanFactory().createBean(type);
+    }
+}
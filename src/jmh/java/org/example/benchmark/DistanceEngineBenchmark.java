@@ -0,0 +1,63 @@
+package org.example.benchmark;
+
+import org.example.config.DistanceEngineType;
+import org.example.model.Driver;
+import org.example.service.DistanceEngine;
+import org.example.service.EquirectangularDistanceEngine;
+import org.example.service.EuclideanDistanceEngine;
+import org.example.service.HaversineDistanceEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-candidate cost of a match distance check for each {@link DistanceEngine},
+ * to compare with the BigDecimal distance of {@link FareCalculationBenchmark}.
+ * Candidates are spread over a square around the rider, so that some are rejected by the
+ * bounding box as they are in a real grid cell.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DistanceEngineBenchmark {
+
+    private static final int CANDIDATES = 1024;
+
+    @Param({"EUCLIDEAN", "HAVERSINE", "EQUIRECTANGULAR"})
+    private DistanceEngineType engine;
+
+    private DistanceEngine.Search search;
+    private final Driver[] drivers = new Driver[CANDIDATES];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DistanceEngine distanceEngine = switch (engine) {
+            case EUCLIDEAN -> new EuclideanDistanceEngine();
+            case HAVERSINE -> new HaversineDistanceEngine();
+            case EQUIRECTANGULAR -> new EquirectangularDistanceEngine();
+        };
+        // Degrees for the planar engine, kilometres for the others: about 0.05 degrees either way.
+        search = distanceEngine.search(52.0, 13.0, engine == DistanceEngineType.EUCLIDEAN ? 0.05 : 5.0);
+        Random random = new Random(42);
+        for (int i = 0; i < CANDIDATES; i++) {
+            drivers[i] = new Driver("D" + i, 52.0 + 0.2 * random.nextDouble() - 0.1, 13.0 + 0.2 * random.nextDouble() - 0.1);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CANDIDATES)
+    public double distanceToCandidates() {
+        double sum = 0;
+        for (Driver driver : drivers) {
+            double distance = search.distanceTo(driver);
+            if (distance != Double.POSITIVE_INFINITY) {
+                sum += distance;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.benchmark;
+
+import org.example.config.DistanceArithmetic;
+import org.example.model.Driver;
+import org.example.model.Ride;
+import org.example.model.Rider;
+import org.example.service.FareCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the distance and fare primitives of {@link FareCalculator} in isolation,
+ * comparing the double and BigDecimal arithmetic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FareCalculationBenchmark {
+
+    @Param({"DOUBLE", "BIG_DECIMAL"})
+    private DistanceArithmetic arithmetic;
+
+    private FareCalculator fareCalculator;
+    private Ride ride;
+    private double startLatitude = 12.0;
+    private double startLongitude = 22.0;
+    private double endLatitude = 15.0;
+    private double endLongitude = 24.0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fareCalculator = Benchmarks.newBean(FareCalculator.class);
+        ride = new Ride("BENCH", new Driver("D1", 10.0, 20.0), new Rider("R1", startLatitude, startLongitude));
+        ride.endRide(endLatitude, endLongitude, 15.0);
+    }
+
+    @Benchmark
+    public double doubleDistance() {
+        return fareCalculator.distance(startLatitude, startLongitude, endLatitude, endLongitude);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalDistance() {
+        return fareCalculator.calculateDistance(
+                BigDecimal.valueOf(startLatitude),
+                BigDecimal.valueOf(startLongitude),
+                BigDecimal.valueOf(endLatitude),
+                BigDecimal.valueOf(endLongitude)
+        );
+    }
+
+    @Benchmark
+    public BigDecimal calculateFare() {
+        return fareCalculator.calculateFare(ride, arithmetic);
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.benchmark;
+
+import org.example.service.RideService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link RideService#matchRider(String)} against fleets of increasing size.
+ * Drivers are spread uniformly over a 100 x 100 degree area and riders are queried
+ * round-robin from a fixed pool so consecutive matches hit different cells.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MatchRiderBenchmark {
+
+    private static final int RIDERS = 1024;
+    private static final double AREA = 100.0;
+
+    @Param({"1000", "100000", "1000000"})
+    private int drivers;
+
+    private RideService rideService;
+    private String[] riderIds;
+    private int nextRider;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rideService = Benchmarks.newBean(RideService.class);
+        Random random = new Random(42);
+        for (int i = 0; i < drivers; i++) {
+            rideService.addDriver("D" + i, random.nextDouble() * AREA, random.nextDouble() * AREA);
+        }
+        riderIds = new String[RIDERS];
+        for (int i = 0; i < RIDERS; i++) {
+            riderIds[i] = "R" + i;
+            rideService.addRider(riderIds[i], random.nextDouble() * AREA, random.nextDouble() * AREA);
+        }
+    }
+
+    @Benchmark
+    public List<String> matchRider() {
+        return rideService.matchRider(riderIds[nextRider++ & (RIDERS - 1)]);
+    }
+}
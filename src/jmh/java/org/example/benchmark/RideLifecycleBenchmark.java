@@ -0,0 +1,60 @@
+package org.example.benchmark;
+
+import org.example.service.BillDetails;
+import org.example.service.RideService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full ride end-to-end: {@code startRide} (which re-runs matching),
+ * {@code stopRide} and {@code generateBill}. The service is rebuilt every iteration so the
+ * ride map does not grow across the whole run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RideLifecycleBenchmark {
+
+    private static final int RIDERS = 1024;
+    private static final double AREA = 10.0;
+
+    @Param({"10000"})
+    private int drivers;
+
+    private RideService rideService;
+    private String[] riderIds;
+    private double[] destinations;
+    private long nextRide;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        rideService = Benchmarks.newBean(RideService.class);
+        Random random = new Random(42);
+        for (int i = 0; i < drivers; i++) {
+            rideService.addDriver("D" + i, random.nextDouble() * AREA, random.nextDouble() * AREA);
+        }
+        riderIds = new String[RIDERS];
+        destinations = new double[RIDERS * 2];
+        for (int i = 0; i < RIDERS; i++) {
+            riderIds[i] = "R" + i;
+            rideService.addRider(riderIds[i], random.nextDouble() * AREA, random.nextDouble() * AREA);
+            destinations[2 * i] = random.nextDouble() * AREA;
+            destinations[2 * i + 1] = random.nextDouble() * AREA;
+        }
+    }
+
+    @Benchmark
+    public Optional<BillDetails> startStopAndBill() {
+        int rider = (int) (nextRide & (RIDERS - 1));
+        String rideId = "RIDE" + nextRide++;
+        rideService.startRide(rideId, 1, riderIds[rider]);
+        rideService.stopRide(rideId, destinations[2 * rider], destinations[2 * rider + 1], 15.0);
+        return rideService.generateBill(rideId);
+    }
+}
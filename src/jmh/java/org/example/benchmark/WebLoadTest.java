@@ -0,0 +1,269 @@
+package org.example.benchmark;
+
+import org.example.RiderApplication;
+import org.example.service.LocationEntry;
+import org.example.service.RideService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Closed-loop HTTP load test of {@code RideController}, comparing Tomcat's platform-thread
+ * pool with virtual-thread request handlers.
+ * <p>
+ * For each mode the application is started in-process on a random port with persistence
+ * enabled, so that every location update waits for its write-ahead log group commit. Each
+ * client then sends its next request as soon as the previous response arrives: three
+ * location updates for every match query. Throughput and latency percentiles are reported
+ * for the measurement window that follows the warmup.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec@load-test
+ * [-Dload.args="clients=10000 seconds=30"]}; the virtual mode needs a Java 21 or later JVM.
+ * Raise the open file limit ({@code ulimit -n}) above twice the number of clients first.
+ */
+public final class WebLoadTest {
+
+    private static final double AREA = 10.0;
+
+    private final int clients;
+    private final int drivers;
+    private final int warmupSeconds;
+    private final int measureSeconds;
+    private final boolean persistence;
+
+    private final Histogram latencies = new Histogram();
+    private final LongAdder errors = new LongAdder();
+    private volatile boolean measuring;
+    private volatile boolean running;
+
+    private WebLoadTest(Map<String, String> options) {
+        this.clients = Integer.parseInt(options.getOrDefault("clients", "10000"));
+        this.drivers = Integer.parseInt(options.getOrDefault("drivers", "10000"));
+        this.warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        this.measureSeconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+        this.persistence = Boolean.parseBoolean(options.getOrDefault("persistence", "true"));
+    }
+
+    /**
+     * Runs the load test once per mode.
+     *
+     * @param args {@code key=value} options: clients, drivers, warmup and seconds,
+     *             persistence (true or false) and modes (a comma-separated subset of
+     *             platform and virtual)
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        for (String mode : options.getOrDefault("modes", "platform,virtual").split(",")) {
+            if (!mode.equals("platform") && !mode.equals("virtual")) {
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+            }
+            new WebLoadTest(options).run(mode);
+        }
+        System.exit(0);
+    }
+
+    private void run(String mode) throws Exception {
+        Path directory = Files.createTempDirectory("ride-load");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(RiderApplication.class)
+                .logStartupInfo(false)
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.max-connections=" + (clients + 1000),
+                        "server.tomcat.accept-count=" + clients,
+                        "logging.level.org.example=WARN",
+                        "ride.web.virtual.threads=" + mode.equals("virtual"),
+                        "ride.persistence.enabled=" + persistence,
+                        "ride.persistence.directory=" + directory)
+                .run();
+        try {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            seed(context.getBean(RideService.class));
+            drive(URI.create("http://localhost:" + port + "/api/"));
+            report(mode);
+        } finally {
+            context.close();
+            deleteRecursively(directory);
+        }
+    }
+
+    private void seed(RideService rideService) {
+        Random random = new Random(42);
+        List<LocationEntry> entries = new ArrayList<>(drivers);
+        for (int i = 0; i < drivers; i++) {
+            entries.add(new LocationEntry("D" + i, random.nextDouble() * AREA, random.nextDouble() * AREA));
+        }
+        rideService.addDrivers(entries);
+        entries.clear();
+        for (int i = 0; i < clients; i++) {
+            entries.add(new LocationEntry("R" + i, random.nextDouble() * AREA, random.nextDouble() * AREA));
+        }
+        rideService.addRiders(entries);
+    }
+
+    private void drive(URI base) throws InterruptedException {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        CountDownLatch stopped = new CountDownLatch(clients);
+        running = true;
+        for (int i = 0; i < clients; i++) {
+            new Client(httpClient, base, i, stopped).next();
+        }
+
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        measuring = true;
+        TimeUnit.SECONDS.sleep(measureSeconds);
+        measuring = false;
+        running = false;
+        if (!stopped.await(1, TimeUnit.MINUTES)) {
+            System.out.println("Some clients were still waiting for a response after one minute");
+        }
+    }
+
+    private void report(String mode) {
+        long requests = latencies.count();
+        System.out.printf("mode=%s clients=%d requests=%d throughput=%.0f req/s errors=%d "
+                        + "p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n",
+                mode, clients, requests, (double) requests / measureSeconds, errors.sum(),
+                latencies.percentile(0.5) / 1000.0, latencies.percentile(0.99) / 1000.0,
+                latencies.percentile(0.999) / 1000.0, latencies.max() / 1000.0);
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * One simulated client, always with exactly one request in flight.
+     */
+    private final class Client {
+        private final HttpClient httpClient;
+        private final URI base;
+        private final int id;
+        private final CountDownLatch stopped;
+        private final Random random;
+        private long sent;
+
+        private Client(HttpClient httpClient, URI base, int id, CountDownLatch stopped) {
+            this.httpClient = httpClient;
+            this.base = base;
+            this.id = id;
+            this.stopped = stopped;
+            this.random = new Random(id);
+        }
+
+        private void next() {
+            if (!running) {
+                stopped.countDown();
+                return;
+            }
+            HttpRequest request = (sent++ & 3) == 3
+                    ? HttpRequest.newBuilder(base.resolve("match/R" + id)).GET().build()
+                    : HttpRequest.newBuilder(base.resolve("drivers/D" + (id % drivers) + "/location?latitude="
+                            + random.nextDouble() * AREA + "&longitude=" + random.nextDouble() * AREA))
+                            .PUT(HttpRequest.BodyPublishers.noBody())
+                            .build();
+            long start = System.nanoTime();
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        if (measuring) {
+                            if (failure != null || response.statusCode() != 200) {
+                                errors.increment();
+                            } else {
+                                latencies.record((System.nanoTime() - start) / 1000);
+                            }
+                        }
+                        next();
+                    });
+        }
+    }
+
+    /**
+     * Lock-free latency histogram in microseconds.
+     * Values are kept exactly below 128 and otherwise with their top seven bits, a relative
+     * error below 1.6%.
+     */
+    private static final class Histogram {
+        private final AtomicLongArray counts = new AtomicLongArray(64 * 64);
+
+        void record(long micros) {
+            counts.incrementAndGet(bucket(Math.max(0, micros)));
+        }
+
+        long count() {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+            return total;
+        }
+
+        long percentile(double quantile) {
+            long rank = (long) Math.ceil(quantile * count());
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= Math.max(rank, 1)) {
+                    return lowerBound(i);
+                }
+            }
+            return 0;
+        }
+
+        long max() {
+            for (int i = counts.length() - 1; i >= 0; i--) {
+                if (counts.get(i) > 0) {
+                    return lowerBound(i);
+                }
+            }
+            return 0;
+        }
+
+        private static int bucket(long micros) {
+            if (micros < 128) {
+                return (int) micros;
+            }
+            int shift = 57 - Long.numberOfLeadingZeros(micros);
+            return (shift << 6) + (int) (micros >>> shift);
+        }
+
+        private static long lowerBound(int bucket) {
+            if (bucket < 128) {
+                return bucket;
+            }
+            int shift = (bucket >>> 6) - 1;
+            return (64L + (bucket & 63)) << shift;
+        }
+    }
+}
@@ -4,6 +4,9 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ApplicationContext;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * Main Spring Boot application class that serves as the entry point for the application.
  * This class initializes the Spring application context and determines whether to run
@@ -16,13 +19,20 @@ public class RiderApplication {
      * The main method that starts the Spring Boot application.
      * If "cli" is provided as the first command-line argument, the application
      * will run in CLI mode; otherwise, it will run as a REST API server.
+     * When "cli" is followed by a file path, the commands in that file are replayed in
+     * bulk, writing the results to the optional output path or to standard output.
      *
      * @param args Command-line arguments passed to the application
+     * @throws IOException if a bulk command file cannot be read or its results written
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         ApplicationContext context = SpringApplication.run(RiderApplication.class, args);
         if (args.length > 0 && args[0].equalsIgnoreCase("cli")) {
-            runCliMode(context);
+            if (args.length > 1) {
+                runBulkCliMode(context, Path.of(args[1]), args.length > 2 ? Path.of(args[2]) : null);
+            } else {
+                runCliMode(context);
+            }
         }
     }
 
@@ -37,4 +47,19 @@ public class RiderApplication {
         RiderCli main = context.getBean(RiderCli.class);
         main.run();
     }
+
+    /**
+     * Runs the application in bulk CLI mode.
+     * The commands in the input file are executed in order and their results are written
+     * through a single buffered stream.
+     *
+     * @param context The Spring application context
+     * @param input   The file to read commands from
+     * @param output  The file to write results to, or null for standard output
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    public static void runBulkCliMode(ApplicationContext context, Path input, Path output) throws IOException {
+        RiderCli main = context.getBean(RiderCli.class);
+        main.runBulk(input, output);
+    }
 }
@@ -2,10 +2,19 @@ package org.example;
 
 import org.example.cli.*;
 import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Scanner;
 
 @Component
 public class RiderCli {
+    private static final int BULK_BUFFER_SIZE = 1 << 16;
+    private static final String[] NO_TOKENS = {""};
+
     private final CommandHandler commandHandler;
     private boolean running = true;
 
@@ -16,20 +25,96 @@ public class RiderCli {
     public void run() {
         try (Scanner scanner = new Scanner(System.in)) {
             while (running && scanner.hasNextLine()) {
-                String input = scanner.nextLine().trim();
-                String[] parts = input.split(" ");
-                String commandKey = parts[0].toUpperCase();
+                execute(scanner.nextLine());
+            }
+        }
+    }
+
+    /**
+     * Replays a command file in bulk.
+     * Commands are read through a large buffer and all results are written through a
+     * single buffered stream that is only flushed when full, instead of line by line.
+     *
+     * @param input  The file to read commands from, one per line
+     * @param output The file to write results to, or null to write to standard output
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    public void runBulk(Path input, Path output) throws IOException {
+        // The input is opened first, so an unreadable input leaves the output file untouched.
+        try (BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(Files.newInputStream(input), StandardCharsets.UTF_8), BULK_BUFFER_SIZE);
+             PrintStream results = new PrintStream(
+                     new BufferedOutputStream(openSink(output), BULK_BUFFER_SIZE), false, StandardCharsets.UTF_8)) {
+            commandHandler.setOutput(results);
+            try {
+                String line;
+                while (running && (line = reader.readLine()) != null) {
+                    execute(line);
+                }
+            } finally {
+                commandHandler.setOutput(null);
+            }
+        }
+    }
+
+    private static OutputStream openSink(Path output) throws IOException {
+        if (output != null) {
+            return Files.newOutputStream(output);
+        }
+        // Standard output is only flushed, as it outlives the replay.
+        return new FileOutputStream(FileDescriptor.out) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private void execute(String line) {
+        String[] parts = tokenize(line);
+        String commandKey = parts[0].toUpperCase();
 
-                try {
-                    Command command = createCommand(commandKey, parts);
-                    command.execute();
-                } catch (IllegalArgumentException e) {
-                    System.out.println("Invalid parameters." + e.getMessage());
-                } catch (Exception e) {
-                    System.out.println("Error executing command." + e.getMessage());
+        try {
+            Command command = createCommand(commandKey, parts);
+            command.execute();
+        } catch (IllegalArgumentException e) {
+            commandHandler.getOutput().println("Invalid parameters." + e.getMessage());
+        } catch (Exception e) {
+            commandHandler.getOutput().println("Error executing command." + e.getMessage());
+        }
+    }
+
+    /**
+     * Splits a command line on spaces and tabs without going through a regex.
+     * A blank line yields a single empty token, which maps to an invalid command.
+     */
+    static String[] tokenize(String line) {
+        String[] tokens = new String[8];
+        int count = 0;
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && isSeparator(line.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && !isSeparator(line.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                if (count == tokens.length) {
+                    tokens = Arrays.copyOf(tokens, count * 2);
                 }
+                tokens[count++] = line.substring(start, i);
             }
         }
+        if (count == 0) {
+            return NO_TOKENS;
+        }
+        return count == tokens.length ? tokens : Arrays.copyOf(tokens, count);
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t';
     }
 
     private Command createCommand(String commandKey, String[] parts) {
@@ -45,6 +130,17 @@ public class RiderCli {
                         Double.parseDouble(parts[3])
                 );
             }
+            case "UPDATE_LOCATION" -> {
+                if (parts.length != 4) {
+                    throw new IllegalArgumentException("Usage: UPDATE_LOCATION <driver_id> <latitude> <longitude>");
+                }
+                yield new UpdateDriverLocationCommand(
+                        commandHandler,
+                        parts[1],
+                        Double.parseDouble(parts[2]),
+                        Double.parseDouble(parts[3])
+                );
+            }
             case "ADD_RIDER" -> {
                 if (parts.length != 4) {
                     throw new IllegalArgumentException("Usage: ADD_RIDER <id> <latitude> <longitude>");
@@ -91,8 +187,8 @@ public class RiderCli {
                 }
                 yield new BillCommand(commandHandler, parts[1]);
             }
-            case "QUIT" -> new QuitCommand(this);
-            default -> new InvalidCommand();
+            case "QUIT" -> new QuitCommand(commandHandler, this);
+            default -> new InvalidCommand(commandHandler);
         };
     }
 
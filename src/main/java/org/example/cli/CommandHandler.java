@@ -5,83 +5,119 @@ import org.example.service.RideService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+
+import java.io.PrintStream;
 import java.util.List;
 
+/**
+ * Runs CLI commands against the ride service and prints their results.
+ * Results are already printed, so commands are only logged at debug level; a bulk replay
+ * is not slowed down by writing each command to the console log as well.
+ */
 @Component
 public class CommandHandler {
     private static final Logger logger = LoggerFactory.getLogger(CommandHandler.class);
     private final RideService rideService;
+    private PrintStream output;
 
     public CommandHandler(RideService rideService) {
         this.rideService = rideService;
     }
 
+    /**
+     * Redirects command output, e.g. to a buffered writer while replaying a command file.
+     *
+     * @param output The stream to print results to, or null to print to System.out
+     */
+    public void setOutput(PrintStream output) {
+        this.output = output;
+    }
+
+    /**
+     * @return The stream command results are printed to
+     */
+    public PrintStream getOutput() {
+        // Resolved on every call so a replaced System.out is picked up.
+        return output != null ? output : System.out;
+    }
+
     public void addDriver(String id, double latitude, double longitude) {
         try {
             rideService.addDriver(id, latitude, longitude);
-            logger.info("Driver added successfully. Driver ID: {}", id);
-            System.out.println("Driver added successfully.");
+            logger.debug("Driver added successfully. Driver ID: {}", id);
+            getOutput().println("Driver added successfully.");
         } catch (Exception e) {
-            System.out.println("Error: " + e.getMessage());
+            getOutput().println("Error: " + e.getMessage());
+        }
+    }
+
+    public void updateDriverLocation(String id, double latitude, double longitude) {
+        try {
+            rideService.updateDriverLocation(id, latitude, longitude);
+            logger.debug("Driver location updated. Driver ID: {}", id);
+            getOutput().println("Driver location updated.");
+        } catch (IllegalArgumentException e) {
+            logger.debug("Error updating driver location: {}", e.getMessage());
+            getOutput().println("Error updating driver location: " + e.getMessage());
         }
     }
 
     public void addRider(String id, double latitude, double longitude) {
         try {
             rideService.addRider(id, latitude, longitude);
-            logger.info("Rider added successfully. Rider ID: {}", id);
-            System.out.println("Rider added successfully.");
+            logger.debug("Rider added successfully. Rider ID: {}", id);
+            getOutput().println("Rider added successfully.");
         } catch (Exception e) {
-            System.out.println("Error: " + e.getMessage());
+            getOutput().println("Error: " + e.getMessage());
         }
     }
 
     public void matchRider(String riderId) {
         List<String> matches = rideService.matchRider(riderId);
         if (matches.isEmpty()) {
-            logger.warn("No drivers matched for Rider ID: {}", riderId);
-            System.out.println("No drivers matched for Rider ID: " + riderId);
+            logger.debug("No drivers matched for Rider ID: {}", riderId);
+            getOutput().println("No drivers matched for Rider ID: " + riderId);
         } else {
-            logger.info("Matched drivers for Rider ID {}: {}", riderId, String.join(", ", matches));
-            System.out.println("Matched drivers: " + String.join(", ", matches));
+            logger.debug("Matched drivers for Rider ID {}: {}", riderId, String.join(", ", matches));
+            getOutput().println("Matched drivers: " + String.join(", ", matches));
         }
     }
 
     public void startRide(String rideId, int driverIndex, String riderId) {
         try {
             String result = rideService.startRide(rideId, driverIndex, riderId);
-            logger.info("Ride started successfully. Ride ID: {}", result);
-            System.out.println("Ride started successfully.");
+            logger.debug("Ride started successfully. Ride ID: {}", result);
+            getOutput().println("Ride started successfully.");
         } catch (IllegalArgumentException e) {
-            logger.error("Error starting ride: {}", e.getMessage());
-            System.out.println("Error starting ride: " + e.getMessage());
+            logger.debug("Error starting ride: {}", e.getMessage());
+            getOutput().println("Error starting ride: " + e.getMessage());
         }
     }
 
     public void stopRide(String rideId, double endLatitude, double endLongitude, double duration) {
         try {
             String result = rideService.stopRide(rideId, endLatitude, endLongitude, duration);
-            logger.info("Ride stopped successfully. Ride ID: {}", result);
-            System.out.println("Ride stopped successfully.");
+            logger.debug("Ride stopped successfully. Ride ID: {}", result);
+            getOutput().println("Ride stopped successfully.");
         } catch (IllegalArgumentException e) {
-            logger.error("Error stopping ride: {}", e.getMessage());
-            System.out.println("Error stopping ride: " + e.getMessage());
+            logger.debug("Error stopping ride: {}", e.getMessage());
+            getOutput().println("Error stopping ride: " + e.getMessage());
         }
     }
 
     public void generateBill(String rideId) {
         BillDetails billDetails = rideService.generateBill(rideId).orElse(null);
         if (billDetails == null) {
-            logger.warn("Invalid or incomplete ride.");
-            System.out.println("Invalid or incomplete ride.");
+            logger.debug("Invalid or incomplete ride.");
+            getOutput().println("Invalid or incomplete ride.");
         } else {
-            logger.info(
+            logger.debug(
                     "Total Bill for Ride ID {} with Driver ID {} is {}",
                     billDetails.getRideId(),
                     billDetails.getDriverId(),
                     billDetails.getTotalFare()
             );
-            System.out.printf(
+            getOutput().printf(
                     "Total Bill for Ride ID %s with Driver ID %s is %.2f%n",
                     billDetails.getRideId(),
                     billDetails.getDriverId(),
@@ -1,8 +1,14 @@
 package org.example.cli;
 
 public class InvalidCommand implements Command {
+    private final CommandHandler handler;
+
+    public InvalidCommand(CommandHandler handler) {
+        this.handler = handler;
+    }
+
     @Override
     public void execute() {
-        System.out.println("INVALID_COMMAND");
+        handler.getOutput().println("INVALID_COMMAND");
     }
 }
@@ -3,15 +3,17 @@ package org.example.cli;
 import org.example.RiderCli;
 
 public class QuitCommand implements Command {
+    private final CommandHandler handler;
     private final RiderCli riderCli;
 
-    public QuitCommand(RiderCli riderCli) {
+    public QuitCommand(CommandHandler handler, RiderCli riderCli) {
+        this.handler = handler;
         this.riderCli = riderCli;
     }
 
     @Override
     public void execute() {
-        System.out.println("Exiting the application.");
+        handler.getOutput().println("Exiting the application.");
         riderCli.stop();
     }
 }
@@ -0,0 +1,17 @@
+package org.example.config;
+
+/**
+ * Number representation used for distance and fare computations.
+ */
+public enum DistanceArithmetic {
+
+    /**
+     * Primitive double arithmetic; BigDecimal is only used for the returned fare.
+     */
+    DOUBLE,
+
+    /**
+     * BigDecimal arithmetic throughout, rounded with the configured distance precision.
+     */
+    BIG_DECIMAL
+}
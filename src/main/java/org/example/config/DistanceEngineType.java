@@ -0,0 +1,24 @@
+package org.example.config;
+
+/**
+ * Geometry used to measure distances between coordinates.
+ * Match radii and the distance fare rate are in the engine's unit.
+ */
+public enum DistanceEngineType {
+
+    /**
+     * Straight-line distance between the coordinates as if they were planar, in degrees.
+     */
+    EUCLIDEAN,
+
+    /**
+     * Great-circle distance on a spherical Earth, in kilometres.
+     */
+    HAVERSINE,
+
+    /**
+     * Equirectangular approximation of the great-circle distance, in kilometres; within
+     * 0.1% of it over city distances and free of trigonometry per driver.
+     */
+    EQUIRECTANGULAR
+}
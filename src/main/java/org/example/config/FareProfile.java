@@ -0,0 +1,83 @@
+package org.example.config;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * An immutable, versioned set of fare rates.
+ * The service tax is folded into the rates when the profile is created, so a fare is a
+ * single linear combination of distance and duration with no further multiplication:
+ * {@code baseCoefficient + distanceCoefficient * distance + timeCoefficient * duration}.
+ * Folding is exact in BigDecimal arithmetic, so the fare is the same as applying the tax
+ * to the untaxed sum.
+ */
+@Getter
+public final class FareProfile {
+
+    private final long version;
+    private final BigDecimal baseFare;
+    private final BigDecimal distanceFareRate;
+    private final BigDecimal timeFareRate;
+    private final BigDecimal serviceTaxMultiplier;
+
+    private final BigDecimal baseCoefficient;
+    private final BigDecimal distanceCoefficient;
+    private final BigDecimal timeCoefficient;
+
+    /**
+     * Creates a profile and precomputes its taxed coefficients.
+     *
+     * @param version              The version of the profile, increasing with each reload
+     * @param baseFare             The flat fare of every ride, before tax
+     * @param distanceFareRate     The fare per unit of distance, before tax
+     * @param timeFareRate         The fare per minute, before tax
+     * @param serviceTaxMultiplier The multiplier applied to the untaxed fare
+     * @throws IllegalArgumentException if a rate is missing or negative, or the multiplier is not positive
+     */
+    public FareProfile(long version, BigDecimal baseFare, BigDecimal distanceFareRate,
+                       BigDecimal timeFareRate, BigDecimal serviceTaxMultiplier) {
+        requireNonNegative(baseFare, "Base fare");
+        requireNonNegative(distanceFareRate, "Distance fare rate");
+        requireNonNegative(timeFareRate, "Time fare rate");
+        if (serviceTaxMultiplier == null || serviceTaxMultiplier.signum() <= 0) {
+            throw new IllegalArgumentException("Service tax multiplier must be positive");
+        }
+        this.version = version;
+        this.baseFare = baseFare;
+        this.distanceFareRate = distanceFareRate;
+        this.timeFareRate = timeFareRate;
+        this.serviceTaxMultiplier = serviceTaxMultiplier;
+        this.baseCoefficient = baseFare.multiply(serviceTaxMultiplier);
+        this.distanceCoefficient = distanceFareRate.multiply(serviceTaxMultiplier);
+        this.timeCoefficient = timeFareRate.multiply(serviceTaxMultiplier);
+    }
+
+    /**
+     * Calculates an unrounded, taxed fare in exact arithmetic.
+     *
+     * @param distance The distance travelled
+     * @param duration The duration of the ride in minutes
+     * @return The fare
+     */
+    public BigDecimal fare(BigDecimal distance, BigDecimal duration) {
+        return baseCoefficient.add(distanceCoefficient.multiply(distance)).add(timeCoefficient.multiply(duration));
+    }
+
+    /**
+     * @param other Another profile
+     * @return Whether the other profile charges the same rates, whatever its version
+     */
+    public boolean hasSameRates(FareProfile other) {
+        return baseFare.compareTo(other.baseFare) == 0
+                && distanceFareRate.compareTo(other.distanceFareRate) == 0
+                && timeFareRate.compareTo(other.timeFareRate) == 0
+                && serviceTaxMultiplier.compareTo(other.serviceTaxMultiplier) == 0;
+    }
+
+    private static void requireNonNegative(BigDecimal rate, String name) {
+        if (rate == null || rate.signum() < 0) {
+            throw new IllegalArgumentException(name + " must be a non-negative number");
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Reloads the fare profile whenever the file named by {@code ride.fare.profile.file} is
+ * written. The file is a properties file with any of the {@code ride.base.fare},
+ * {@code ride.distance.fare.rate}, {@code ride.time.fare.rate} and
+ * {@code ride.service.tax.multiplier} keys; it is also loaded at startup if it exists.
+ * A file that fails to load is logged and leaves the current profile in force. Replace
+ * the file by moving a complete copy over it, so that a half-written file is never read.
+ */
+@Component
+public class FareProfileWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(FareProfileWatcher.class);
+
+    private final RideConfiguration config;
+    private final FareProfiles fareProfiles;
+    private WatchService watchService;
+
+    public FareProfileWatcher(RideConfiguration config, FareProfiles fareProfiles) {
+        this.config = config;
+        this.fareProfiles = fareProfiles;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (config.getFareProfileFile().isBlank()) {
+            return;
+        }
+        Path file = Path.of(config.getFareProfileFile()).toAbsolutePath();
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        if (Files.exists(file)) {
+            reload(file);
+        }
+
+        Thread thread = new Thread(() -> watch(file), "fare-profile-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watch(Path file) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= file.getFileName().equals(event.context());
+                }
+                if (changed) {
+                    reload(file);
+                }
+                if (!key.reset()) {
+                    logger.warn("Stopped watching {}: its directory is no longer accessible", file);
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Shutting down
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reload(Path file) {
+        try {
+            fareProfiles.load(file);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Error loading fare profile from {}: {}", file, e.getMessage());
+        }
+    }
+}
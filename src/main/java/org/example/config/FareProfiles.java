@@ -0,0 +1,109 @@
+package org.example.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the fare profile in force, which can be replaced while the application runs.
+ * The first profile, version 1, is built from application.properties. Each later profile
+ * gets the next version and is swapped in atomically: a ride records the profile current
+ * when it starts and is billed with it, so rides in progress are unaffected by a reload
+ * and bills already cached stay valid.
+ */
+@Component
+public class FareProfiles {
+
+    private static final String BASE_FARE = "ride.base.fare";
+    private static final String DISTANCE_FARE_RATE = "ride.distance.fare.rate";
+    private static final String TIME_FARE_RATE = "ride.time.fare.rate";
+    private static final String SERVICE_TAX_MULTIPLIER = "ride.service.tax.multiplier";
+
+    private static final Logger logger = LoggerFactory.getLogger(FareProfiles.class);
+
+    private final AtomicReference<FareProfile> current;
+
+    public FareProfiles(RideConfiguration config) {
+        this.current = new AtomicReference<>(new FareProfile(1, config.getBaseFare(),
+                config.getDistanceFareRate(), config.getTimeFareRate(), config.getServiceTaxMultiplier()));
+    }
+
+    /**
+     * @return The profile new rides are billed with
+     */
+    public FareProfile current() {
+        return current.get();
+    }
+
+    /**
+     * Makes a new set of rates current for rides started from now on.
+     * A null rate keeps its current value, and publishing the rates already in force keeps
+     * the current profile and its version.
+     *
+     * @param baseFare             The flat fare of every ride, before tax, or null
+     * @param distanceFareRate     The fare per unit of distance, before tax, or null
+     * @param timeFareRate         The fare per minute, before tax, or null
+     * @param serviceTaxMultiplier The multiplier applied to the untaxed fare, or null
+     * @return The profile now current
+     * @throws IllegalArgumentException if a rate is out of range
+     */
+    public synchronized FareProfile publish(BigDecimal baseFare, BigDecimal distanceFareRate,
+                                            BigDecimal timeFareRate, BigDecimal serviceTaxMultiplier) {
+        FareProfile previous = current.get();
+        FareProfile profile = new FareProfile(previous.getVersion() + 1,
+                baseFare != null ? baseFare : previous.getBaseFare(),
+                distanceFareRate != null ? distanceFareRate : previous.getDistanceFareRate(),
+                timeFareRate != null ? timeFareRate : previous.getTimeFareRate(),
+                serviceTaxMultiplier != null ? serviceTaxMultiplier : previous.getServiceTaxMultiplier());
+        if (profile.hasSameRates(previous)) {
+            return previous;
+        }
+        current.set(profile);
+        logger.info("Fare profile version {} is now current: base {}, distance {}, time {}, tax multiplier {}",
+                profile.getVersion(), profile.getBaseFare(), profile.getDistanceFareRate(),
+                profile.getTimeFareRate(), profile.getServiceTaxMultiplier());
+        return profile;
+    }
+
+    /**
+     * Publishes the rates in a properties file, using the same keys as application.properties.
+     * Rates the file leaves out keep their current values.
+     *
+     * @param file The properties file to read
+     * @return The profile now current
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if a rate is not a number or is out of range
+     */
+    public FareProfile load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return publish(
+                rate(properties, BASE_FARE),
+                rate(properties, DISTANCE_FARE_RATE),
+                rate(properties, TIME_FARE_RATE),
+                rate(properties, SERVICE_TAX_MULTIPLIER));
+    }
+
+    private static BigDecimal rate(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.math.MathContext;
 
@@ -34,10 +35,143 @@ public class RideConfiguration {
     @Value("${ride.max.distance.radius}")
     private BigDecimal maxDistanceRadius;
 
+    @Getter
+    @Value("${ride.match.initial.radius}")
+    private double initialMatchRadius;
+
+    @Getter
+    @Value("${ride.max.matches}")
+    private int maxMatches;
+
+    @Getter
+    @Value("${ride.match.parallel.threshold}")
+    private int parallelMatchThreshold;
+
+    @Getter
+    @Value("${ride.match.parallel.partitions}")
+    private int parallelMatchPartitions;
+
+    @Getter
+    @Value("${ride.match.batch.window.millis}")
+    private long batchMatchWindowMillis;
+
+    @Getter
+    @Value("${ride.match.batch.max.riders}")
+    private int batchMatchMaxRiders;
+
+    @Getter
+    @Value("${ride.driver.grid.cell.size}")
+    private double driverGridCellSize;
+
+    @Getter
+    @Value("${ride.distance.arithmetic}")
+    private DistanceArithmetic distanceArithmetic;
+
+    @Getter
+    @Value("${ride.distance.engine}")
+    private DistanceEngineType distanceEngine;
+
+    @Getter
+    @Value("${ride.bill.cache.size}")
+    private int billCacheSize;
+
+    @Getter
+    @Value("${ride.persistence.enabled}")
+    private boolean persistenceEnabled;
+
+    @Getter
+    @Value("${ride.persistence.directory}")
+    private String persistenceDirectory;
+
+    @Getter
+    @Value("${ride.persistence.snapshot.interval.seconds}")
+    private long snapshotIntervalSeconds;
+
+    @Getter
+    @Value("${ride.archive.enabled}")
+    private boolean archiveEnabled;
+
+    @Getter
+    @Value("${ride.archive.directory}")
+    private String archiveDirectory;
+
+    @Getter
+    @Value("${ride.archive.ttl.seconds}")
+    private long archiveTtlSeconds;
+
+    @Getter
+    @Value("${ride.archive.interval.seconds}")
+    private long archiveIntervalSeconds;
+
+    @Getter
+    @Value("${ride.stream.match.interval.millis}")
+    private long streamMatchIntervalMillis;
+
+    @Getter
+    @Value("${ride.stream.timeout.seconds}")
+    private long streamTimeoutSeconds;
+
+    @Getter
+    @Value("${ride.surge.enabled}")
+    private boolean surgeEnabled;
+
+    @Getter
+    @Value("${ride.surge.cell.size}")
+    private double surgeCellSize;
+
+    @Getter
+    @Value("${ride.surge.demand.threshold}")
+    private double surgeDemandThreshold;
+
+    @Getter
+    @Value("${ride.surge.max.multiplier}")
+    private double surgeMaxMultiplier;
+
+    @Getter
+    @Value("${ride.surge.interval.seconds}")
+    private long surgeIntervalSeconds;
+
+    @Getter
+    @Value("${ride.surge.half.life.seconds}")
+    private long surgeHalfLifeSeconds;
+
+    @Getter
+    @Value("${ride.fare.profile.file}")
+    private String fareProfileFile;
+
+    @Getter
+    @Value("${ride.shard.peers}")
+    private String shardPeers;
+
+    @Getter
+    @Value("${ride.shard.region.size}")
+    private double shardRegionSize;
+
+    @Getter
+    @Value("${ride.shard.timeout.millis}")
+    private long shardTimeoutMillis;
+
+    @Getter
+    @Value("${ride.shard.scatter.threads}")
+    private int shardScatterThreads;
+
+    @Getter
+    @Value("${ride.events.ring.enabled}")
+    private boolean eventRingEnabled;
+
+    @Getter
+    @Value("${ride.events.ring.size}")
+    private int eventRingSize;
+
     @Value("${ride.distance.calculation.context.precision}")
     private int distanceCalculationPrecision;
 
-    public MathContext getDistanceCalculationContext() {
-        return new MathContext(distanceCalculationPrecision);
+    // Built once, as it is read for every fare calculated in BigDecimal arithmetic.
+    @Getter
+    private MathContext distanceCalculationContext;
+
+    @PostConstruct
+    void createDistanceCalculationContext() {
+        distanceCalculationContext = new MathContext(distanceCalculationPrecision);
     }
 }
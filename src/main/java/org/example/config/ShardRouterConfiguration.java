@@ -0,0 +1,66 @@
+package org.example.config;
+
+import org.example.persistence.RidePersistence;
+import org.example.service.FareCalculator;
+import org.example.service.RideService;
+import org.example.shard.HttpRideShard;
+import org.example.shard.LocalRideShard;
+import org.example.shard.RideShard;
+import org.example.shard.ShardRegions;
+import org.example.shard.ShardedRideService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes this node the shard router for the shards listed in {@code ride.shard.peers}.
+ * Enabled by {@code ride.shard.router.enabled}; each entry is either {@code local}, for
+ * this node's own service, or the base URL of another node, reached through its
+ * {@code /api/shard} endpoints with {@code ride.shard.timeout.millis} to connect and to
+ * read. The router rebuilds its directory from the shards on startup, once this node's
+ * own state is recovered, and fails to start if a shard cannot be reached.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ride.shard.router.enabled", havingValue = "true")
+public class ShardRouterConfiguration {
+
+    @Bean
+    public ShardedRideService shardedRideService(RideConfiguration config, FareCalculator fareCalculator,
+                                                 RideService rideService, RidePersistence persistence) {
+        SimpleClientHttpRequestFactory requests = new SimpleClientHttpRequestFactory();
+        requests.setConnectTimeout((int) config.getShardTimeoutMillis());
+        requests.setReadTimeout((int) config.getShardTimeoutMillis());
+        RestTemplate rest = new RestTemplate(requests);
+
+        List<RideShard> shards = new ArrayList<>();
+        for (String peer : config.getShardPeers().split(",")) {
+            String trimmed = peer.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            shards.add(trimmed.equalsIgnoreCase("local") ? new LocalRideShard(rideService) : new HttpRideShard(rest, trimmed));
+        }
+        // Not a bean, so that it does not displace Spring's own task executor; idle threads
+        // expire. Queries beyond ride.shard.scatter.threads run on the matching request's thread.
+        int threads = config.getShardScatterThreads();
+        ThreadPoolExecutor scatter = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "ride-shard-scatter");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        scatter.allowCoreThreadTimeOut(true);
+        ShardedRideService router = new ShardedRideService(shards,
+                new ShardRegions(config.getShardRegionSize(), shards.size()), config, fareCalculator, scatter);
+        router.rebuildDirectory();
+        return router;
+    }
+}
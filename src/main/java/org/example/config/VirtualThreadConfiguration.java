@@ -0,0 +1,69 @@
+package org.example.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the web request handlers on virtual threads instead of Tomcat's platform-thread pool.
+ * Enabled by {@code ride.web.virtual.threads}; requires a Java 21 or later runtime.
+ * <p>
+ * Each request gets its own virtual thread, so requests parked in
+ * {@code RideJournal.awaitDurable} no longer hold one of the pool's threads and the number
+ * of in-flight requests is bounded by {@code server.tomcat.max-connections} instead of
+ * {@code server.tomcat.threads.max}. Waits that can last, on the journal, on the driver
+ * index locks or on a driver's lock, happen on {@code java.util.concurrent} locks and
+ * conditions, which release the carrier thread. Monitors are still used for short updates
+ * (ride state transitions, handle table writes, the grid index's concurrent map bins and
+ * the fare profile publication) and a thread entering or holding one pins its carrier
+ * until it leaves, which is briefly but not never.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ride.web.virtual.threads", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    // Not a bean, so that it does not displace Spring's own task executor.
+    private ExecutorService executor;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadExecutorCustomizer() {
+        executor = newVirtualThreadPerTaskExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    /**
+     * Stops the request executor with the context, once the web server has stopped handing
+     * it requests; requests still running are left to finish.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     * Looked up reflectively so that the application still builds for Java 17.
+     *
+     * @return The executor
+     * @throws IllegalStateException if the runtime does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later, running on "
+                    + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create a virtual thread executor", e);
+        }
+    }
+}
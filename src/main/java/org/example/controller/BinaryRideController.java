@@ -0,0 +1,110 @@
+package org.example.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.service.RideService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary variant of the match, ride and bill endpoints for internal services.
+ * Requests and responses are {@link RideWireFormat} records sent as
+ * {@code application/octet-stream}; a rejected request gets a 400 status with the error
+ * message as plain text.
+ */
+@Tag(name = "Binary Ride API", description = "Fixed-layout binary records for service-to-service calls")
+@RestController
+@RequestMapping("/api/binary")
+public class BinaryRideController {
+    private static final Logger logger = LoggerFactory.getLogger(BinaryRideController.class);
+    private final RideService rideService;
+
+    public BinaryRideController(RideService rideService) {
+        this.rideService = rideService;
+    }
+
+    @Operation(
+            summary = "Match rider to drivers",
+            description = "Returns the matched driver IDs as a match list record"
+    )
+    @ApiResponse(responseCode = "200", description = "Match list record")
+    @GetMapping(value = "/match/{riderId}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> matchRider(
+            @Parameter(description = "ID of the rider to match", required = true) @PathVariable String riderId) {
+
+        logger.debug("Matching drivers for rider: {}", riderId);
+        return ResponseEntity.ok(RideWireFormat.encodeMatches(rideService.matchRider(riderId)));
+    }
+
+    @Operation(
+            summary = "Start a new ride",
+            description = "Starts the ride described by a start request record"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Ride started successfully"),
+            @ApiResponse(responseCode = "400", description = "Malformed record or invalid ride parameters")
+    })
+    @PostMapping(value = "/start", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> startRide(@RequestBody byte[] record) {
+        try {
+            RideWireFormat.StartRequest request = RideWireFormat.decodeStart(record);
+            logger.debug("Starting ride: {}", request.rideId());
+            rideService.startRide(request.rideId(), request.index(), request.riderId());
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
+    @Operation(
+            summary = "Stop an ongoing ride",
+            description = "Stops the ride described by a stop request record"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Ride stopped successfully"),
+            @ApiResponse(responseCode = "400", description = "Malformed record or invalid ride parameters")
+    })
+    @PostMapping(value = "/stop", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> stopRide(@RequestBody byte[] record) {
+        try {
+            RideWireFormat.StopRequest request = RideWireFormat.decodeStop(record);
+            logger.debug("Stopping ride: {}", request.rideId());
+            rideService.stopRide(request.rideId(), request.endLatitude(), request.endLongitude(), request.duration());
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
+    @Operation(
+            summary = "Generate ride bill",
+            description = "Returns the bill of a completed ride as a bill record"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Bill record"),
+            @ApiResponse(responseCode = "400", description = "Invalid or incomplete ride")
+    })
+    @GetMapping(value = "/bill/{rideId}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> generateBill(
+            @Parameter(description = "Ride ID to bill", required = true) @PathVariable String rideId) {
+
+        logger.debug("Generating bill for ride: {}", rideId);
+        return rideService.generateBill(rideId)
+                .map(bill -> ResponseEntity.ok(RideWireFormat.encodeBill(bill)))
+                .orElseGet(() -> badRequest("Invalid or incomplete ride."));
+    }
+
+    private static ResponseEntity<byte[]> badRequest(String message) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(message.getBytes(StandardCharsets.UTF_8));
+    }
+}
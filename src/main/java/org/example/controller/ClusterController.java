@@ -0,0 +1,196 @@
+package org.example.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.service.MatchResult;
+import org.example.shard.ShardedRideService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for ride operations routed to the shards owning each region.
+ * Mirrors the single-node endpoints of {@link RideController} under {@code /api/cluster};
+ * only present while {@code ride.shard.router.enabled} is set.
+ */
+@Tag(name = "Sharded Ride Management", description = "APIs for ride operations routed across region shards")
+@RestController
+@RequestMapping("/api/cluster")
+@ConditionalOnProperty(name = "ride.shard.router.enabled", havingValue = "true")
+public class ClusterController {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterController.class);
+    private final ShardedRideService shardedRideService;
+
+    public ClusterController(ShardedRideService shardedRideService) {
+        this.shardedRideService = shardedRideService;
+    }
+
+    @Operation(
+            summary = "Add a new driver",
+            description = "Registers a driver with the shard owning its location"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Driver added successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input parameters")
+    })
+    @PostMapping("/drivers")
+    public ResponseEntity<String> addDriver(
+            @Parameter(description = "Driver's unique identifier", required = true) @RequestParam String id,
+            @Parameter(description = "Initial latitude coordinate", required = true) @RequestParam double latitude,
+            @Parameter(description = "Initial longitude coordinate", required = true) @RequestParam double longitude) {
+
+        logger.info("Received request to add driver with ID: {}", id);
+        try {
+            shardedRideService.addDriver(id, latitude, longitude);
+            return ResponseEntity.ok("Driver added successfully.");
+        } catch (Exception e) {
+            logger.error("Error adding driver: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Error: Unable to add driver.");
+        }
+    }
+
+    @Operation(
+            summary = "Update a driver's location",
+            description = "Moves a driver, handing it over to another shard when it crosses into that shard's region"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Driver location updated"),
+            @ApiResponse(responseCode = "400", description = "Unknown driver")
+    })
+    @PutMapping("/drivers/{id}/location")
+    public ResponseEntity<String> updateDriverLocation(
+            @Parameter(description = "Driver's unique identifier", required = true) @PathVariable String id,
+            @Parameter(description = "New latitude coordinate", required = true) @RequestParam double latitude,
+            @Parameter(description = "New longitude coordinate", required = true) @RequestParam double longitude) {
+
+        logger.debug("Received location update for driver with ID: {}", id);
+        try {
+            shardedRideService.updateDriverLocation(id, latitude, longitude);
+            return ResponseEntity.ok("Driver location updated.");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(
+            summary = "Add a new rider",
+            description = "Registers a rider with the shard owning its location"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Rider added successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input parameters")
+    })
+    @PostMapping("/riders")
+    public ResponseEntity<String> addRider(
+            @Parameter(description = "Rider's unique identifier", required = true) @RequestParam String id,
+            @Parameter(description = "Initial latitude coordinate", required = true) @RequestParam double latitude,
+            @Parameter(description = "Initial longitude coordinate", required = true) @RequestParam double longitude) {
+
+        logger.info("Received request to add rider with ID: {}", id);
+        try {
+            shardedRideService.addRider(id, latitude, longitude);
+            return ResponseEntity.ok("Rider added successfully.");
+        } catch (Exception e) {
+            logger.error("Error adding rider: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Error: Unable to add rider.");
+        }
+    }
+
+    @Operation(
+            summary = "Match rider to drivers",
+            description = "Finds available drivers near the rider on its shard and, across region borders, its neighbours"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Matched driver IDs and search radius"),
+            @ApiResponse(responseCode = "400", description = "Invalid rider ID")
+    })
+    @GetMapping("/match/{riderId}")
+    public ResponseEntity<?> matchRider(
+            @Parameter(description = "ID of the rider to match", required = true) @PathVariable String riderId) {
+
+        logger.info("Matching drivers across shards for rider: {}", riderId);
+        try {
+            MatchResult result = shardedRideService.matchNearest(riderId);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("Matching error: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Error: Unable to match drivers.");
+        }
+    }
+
+    @Operation(
+            summary = "Start a new ride",
+            description = "Starts a ride on the rider's shard, handing the chosen driver over to it if needed"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Ride started successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid ride parameters")
+    })
+    @PostMapping("/start")
+    public ResponseEntity<String> startRide(
+            @Parameter(description = "Unique ride ID", required = true) @RequestParam String rideId,
+            @Parameter(description = "Driver selection index", required = true) @RequestParam int n,
+            @Parameter(description = "Rider ID", required = true) @RequestParam String riderId) {
+
+        logger.info("Starting ride: {}", rideId);
+        try {
+            return ResponseEntity.ok(shardedRideService.startRide(rideId, n, riderId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(
+            summary = "Stop an ongoing ride",
+            description = "Ends a ride on the shard that owns it"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Ride stopped successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid ride parameters")
+    })
+    @PostMapping("/stop")
+    public ResponseEntity<String> stopRide(
+            @Parameter(description = "Ride ID to stop", required = true) @RequestParam String rideId,
+            @Parameter(description = "End latitude", required = true) @RequestParam double endLatitude,
+            @Parameter(description = "End longitude", required = true) @RequestParam double endLongitude,
+            @Parameter(description = "Ride duration in minutes", required = true) @RequestParam double duration) {
+
+        logger.info("Stopping ride: {}", rideId);
+        try {
+            return ResponseEntity.ok(shardedRideService.stopRide(rideId, endLatitude, endLongitude, duration));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(
+            summary = "Generate ride bill",
+            description = "Generates fare details for a completed ride on the shard that owns it"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Bill generated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid ride ID")
+    })
+    @GetMapping("/bill/{rideId}")
+    public ResponseEntity<?> generateBill(
+            @Parameter(description = "Ride ID to bill", required = true) @PathVariable String rideId) {
+
+        logger.info("Generating bill for ride: {}", rideId);
+        try {
+            return shardedRideService.generateBill(rideId)
+                    .map(billDetails -> ResponseEntity.ok(String.format(
+                            "Total Bill for Ride ID %s with Driver ID %s is %.2f",
+                            billDetails.getRideId(),
+                            billDetails.getDriverId(),
+                            billDetails.getTotalFare())))
+                    .orElseGet(() -> ResponseEntity.badRequest().body("Invalid or incomplete ride."));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error generating bill.");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.config.FareProfile;
+import org.example.config.FareProfiles;
+import org.example.config.RideConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+/**
+ * Admin endpoints for reading and replacing the fare profile at runtime.
+ * A new profile applies to rides started after it is published; rides already started
+ * keep the profile they started with.
+ */
+@Tag(name = "Fare Profile Administration", description = "APIs for changing fare rates without a restart")
+@RestController
+@RequestMapping("/api/admin/fare-profile")
+public class FareProfileController {
+    private static final Logger logger = LoggerFactory.getLogger(FareProfileController.class);
+    private final FareProfiles fareProfiles;
+    private final RideConfiguration config;
+
+    public FareProfileController(FareProfiles fareProfiles, RideConfiguration config) {
+        this.fareProfiles = fareProfiles;
+        this.config = config;
+    }
+
+    @Operation(
+            summary = "Get the current fare profile",
+            description = "Returns the rates and version that rides starting now are billed with"
+    )
+    @ApiResponse(responseCode = "200", description = "The current fare profile")
+    @GetMapping
+    public FareProfile currentProfile() {
+        return fareProfiles.current();
+    }
+
+    @Operation(
+            summary = "Publish new fare rates",
+            description = "Makes a new fare profile current; rates left out keep their current values"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The fare profile now current"),
+            @ApiResponse(responseCode = "400", description = "A rate is out of range")
+    })
+    @PutMapping
+    public ResponseEntity<?> publishProfile(
+            @Parameter(description = "Flat fare of every ride, before tax") @RequestParam(required = false) BigDecimal baseFare,
+            @Parameter(description = "Fare per unit of distance, before tax") @RequestParam(required = false) BigDecimal distanceFareRate,
+            @Parameter(description = "Fare per minute, before tax") @RequestParam(required = false) BigDecimal timeFareRate,
+            @Parameter(description = "Multiplier applied to the untaxed fare") @RequestParam(required = false) BigDecimal serviceTaxMultiplier) {
+
+        logger.info("Publishing fare profile");
+        try {
+            return ResponseEntity.ok(fareProfiles.publish(baseFare, distanceFareRate, timeFareRate, serviceTaxMultiplier));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(
+            summary = "Reload the fare profile file",
+            description = "Publishes the rates in the file named by ride.fare.profile.file"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The fare profile now current"),
+            @ApiResponse(responseCode = "400", description = "No file is configured, or it cannot be loaded")
+    })
+    @PostMapping("/reload")
+    public ResponseEntity<?> reloadProfile() {
+        if (config.getFareProfileFile().isBlank()) {
+            return ResponseEntity.badRequest().body("No fare profile file is configured");
+        }
+        logger.info("Reloading fare profile from {}", config.getFareProfileFile());
+        try {
+            return ResponseEntity.ok(fareProfiles.load(Path.of(config.getFareProfileFile())));
+        } catch (IOException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error loading fare profile: " + e.getMessage());
+        }
+    }
+}
@@ -5,13 +5,23 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.service.BatchItemResult;
+import org.example.service.BatchMatcher;
+import org.example.service.LocationEntry;
+import org.example.service.MatchResult;
 import org.example.service.RideService;
+import org.example.service.RiderAssignment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * REST controller for managing ride operations.
@@ -22,9 +32,11 @@ import java.util.List;
 public class RideController {
     private static final Logger logger = LoggerFactory.getLogger(RideController.class);
     private final RideService rideService;
+    private final BatchMatcher batchMatcher;
 
-    public RideController(RideService rideService) {
+    public RideController(RideService rideService, BatchMatcher batchMatcher) {
         this.rideService = rideService;
+        this.batchMatcher = batchMatcher;
     }
 
     @Operation(
@@ -51,6 +63,30 @@ public class RideController {
         }
     }
 
+    @Operation(
+            summary = "Update a driver's location",
+            description = "Moves an existing driver to new coordinates without changing its availability"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Driver location updated"),
+            @ApiResponse(responseCode = "400", description = "Unknown driver")
+    })
+    @PutMapping("/drivers/{id}/location")
+    public ResponseEntity<String> updateDriverLocation(
+            @Parameter(description = "Driver's unique identifier", required = true) @PathVariable String id,
+            @Parameter(description = "New latitude coordinate", required = true) @RequestParam double latitude,
+            @Parameter(description = "New longitude coordinate", required = true) @RequestParam double longitude) {
+
+        // Drivers ping every few seconds; keep this hot path out of the info log.
+        logger.debug("Received location update for driver with ID: {}", id);
+        try {
+            rideService.updateDriverLocation(id, latitude, longitude);
+            return ResponseEntity.ok("Driver location updated.");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @Operation(
             summary = "Add a new rider",
             description = "Registers a new rider with location coordinates"
@@ -75,6 +111,87 @@ public class RideController {
         }
     }
 
+    @Operation(
+            summary = "Add drivers in bulk",
+            description = "Registers a JSON array of drivers and returns the outcome of each one, in order"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Per-driver results"),
+            @ApiResponse(responseCode = "400", description = "Malformed request body")
+    })
+    @PostMapping(value = "/drivers/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchItemResult>> addDrivers(@RequestBody List<LocationEntry> drivers) {
+        logger.info("Received batch of {} drivers", drivers.size());
+        return ResponseEntity.ok(rideService.addDrivers(drivers));
+    }
+
+    @Operation(
+            summary = "Add drivers in bulk from lines",
+            description = "Registers one driver per line in the form <id>,<latitude>,<longitude>"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Per-line results"),
+            @ApiResponse(responseCode = "400", description = "Malformed request body")
+    })
+    @PostMapping(value = "/drivers/batch", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<List<BatchItemResult>> addDriverLines(@RequestBody String lines) {
+        return applyLines(lines, "drivers", rideService::addDrivers);
+    }
+
+    @Operation(
+            summary = "Update driver locations in bulk",
+            description = "Applies a JSON array of driver location pings and returns the outcome of each one, in order"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Per-update results"),
+            @ApiResponse(responseCode = "400", description = "Malformed request body")
+    })
+    @PutMapping(value = "/drivers/locations/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchItemResult>> updateDriverLocations(@RequestBody List<LocationEntry> locations) {
+        logger.debug("Received batch of {} driver location updates", locations.size());
+        return ResponseEntity.ok(rideService.updateDriverLocations(locations));
+    }
+
+    @Operation(
+            summary = "Update driver locations in bulk from lines",
+            description = "Applies one location ping per line in the form <id>,<latitude>,<longitude>"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Per-line results"),
+            @ApiResponse(responseCode = "400", description = "Malformed request body")
+    })
+    @PutMapping(value = "/drivers/locations/batch", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<List<BatchItemResult>> updateDriverLocationLines(@RequestBody String lines) {
+        return applyLines(lines, "driver location updates", rideService::updateDriverLocations);
+    }
+
+    @Operation(
+            summary = "Add riders in bulk",
+            description = "Registers a JSON array of riders and returns the outcome of each one, in order"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Per-rider results"),
+            @ApiResponse(responseCode = "400", description = "Malformed request body")
+    })
+    @PostMapping(value = "/riders/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchItemResult>> addRiders(@RequestBody List<LocationEntry> riders) {
+        logger.info("Received batch of {} riders", riders.size());
+        return ResponseEntity.ok(rideService.addRiders(riders));
+    }
+
+    @Operation(
+            summary = "Add riders in bulk from lines",
+            description = "Registers one rider per line in the form <id>,<latitude>,<longitude>"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Per-line results"),
+            @ApiResponse(responseCode = "400", description = "Malformed request body")
+    })
+    @PostMapping(value = "/riders/batch", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<List<BatchItemResult>> addRiderLines(@RequestBody String lines) {
+        return applyLines(lines, "riders", rideService::addRiders);
+    }
+
     @Operation(
             summary = "Match rider to drivers",
             description = "Finds available drivers near the specified rider"
@@ -97,6 +214,44 @@ public class RideController {
         }
     }
 
+    @Operation(
+            summary = "Match rider to drivers with the search radius",
+            description = "Finds available drivers near the rider in expanding rings and reports the radius used"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Matched driver IDs and search radius"),
+            @ApiResponse(responseCode = "400", description = "Invalid rider ID")
+    })
+    @GetMapping("/match/{riderId}/details")
+    public ResponseEntity<?> matchRiderDetails(
+            @Parameter(description = "ID of the rider to match", required = true) @PathVariable String riderId) {
+
+        logger.info("Matching drivers with details for rider: {}", riderId);
+        try {
+            MatchResult result = rideService.matchNearest(riderId);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("Matching error: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Error: Unable to match drivers.");
+        }
+    }
+
+    @Operation(
+            summary = "Assign a driver to a rider in a batch",
+            description = "Waits for the current batch window to close, then assigns drivers to all riders of the batch "
+                    + "at once so that no two are given the same driver"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The assigned driver, or none if no driver is free nearby")
+    })
+    @GetMapping("/assign/{riderId}")
+    public CompletableFuture<RiderAssignment> assignDriver(
+            @Parameter(description = "ID of the rider to match", required = true) @PathVariable String riderId) {
+
+        logger.info("Queueing batch match for rider: {}", riderId);
+        return batchMatcher.match(riderId);
+    }
+
     @Operation(
             summary = "Start a new ride",
             description = "Initiates a new ride with selected driver"
@@ -120,6 +275,28 @@ public class RideController {
         }
     }
 
+    @Operation(
+            summary = "Start a new ride with a given driver",
+            description = "Initiates a new ride with a driver chosen by ID, such as one assigned by a batch match"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Ride started successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid ride parameters or driver no longer available")
+    })
+    @PostMapping("/start/driver")
+    public ResponseEntity<String> startRideWithDriver(
+            @Parameter(description = "Unique ride ID", required = true) @RequestParam String rideId,
+            @Parameter(description = "Driver ID", required = true) @RequestParam String driverId,
+            @Parameter(description = "Rider ID", required = true) @RequestParam String riderId) {
+
+        logger.info("Starting ride {} with driver {}", rideId, driverId);
+        try {
+            return ResponseEntity.ok(rideService.startRideWithDriver(rideId, driverId, riderId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @Operation(
             summary = "Stop an ongoing ride",
             description = "Ends a ride and calculates fare"
@@ -144,6 +321,26 @@ public class RideController {
         }
     }
 
+    @Operation(
+            summary = "Cancel an ongoing ride",
+            description = "Ends a ride without a bill and makes its driver available again"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Ride cancelled successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid ride or not in progress")
+    })
+    @PostMapping("/cancel")
+    public ResponseEntity<String> cancelRide(
+            @Parameter(description = "Ride ID to cancel", required = true) @RequestParam String rideId) {
+
+        logger.info("Cancelling ride: {}", rideId);
+        try {
+            return ResponseEntity.ok(rideService.cancelRide(rideId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @Operation(
             summary = "Generate ride bill",
             description = "Generates fare details for completed ride"
@@ -169,4 +366,45 @@ public class RideController {
             return ResponseEntity.badRequest().body("Error generating bill.");
         }
     }
+
+    /**
+     * Parses a line-delimited batch and applies it, reporting malformed lines in place.
+     */
+    private ResponseEntity<List<BatchItemResult>> applyLines(
+            String body, String kind, Function<List<LocationEntry>, List<BatchItemResult>> batch) {
+
+        List<String> lines = body.lines().map(String::trim).filter(line -> !line.isEmpty()).toList();
+        logger.info("Received batch of {} {}", lines.size(), kind);
+
+        List<LocationEntry> entries = new ArrayList<>(lines.size());
+        BatchItemResult[] rejected = new BatchItemResult[lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            try {
+                entries.add(parseLine(line));
+            } catch (IllegalArgumentException e) {
+                int separator = line.indexOf(',');
+                rejected[i] = BatchItemResult.failed(separator < 0 ? line : line.substring(0, separator), e.getMessage());
+            }
+        }
+
+        Iterator<BatchItemResult> applied = batch.apply(entries).iterator();
+        List<BatchItemResult> results = new ArrayList<>(lines.size());
+        for (BatchItemResult rejection : rejected) {
+            results.add(rejection != null ? rejection : applied.next());
+        }
+        return ResponseEntity.ok(results);
+    }
+
+    private static LocationEntry parseLine(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("Expected <id>,<latitude>,<longitude>");
+        }
+        return new LocationEntry(
+                fields[0].trim(),
+                Double.parseDouble(fields[1].trim()),
+                Double.parseDouble(fields[2].trim())
+        );
+    }
 }
@@ -0,0 +1,254 @@
+package org.example.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.config.RideConfiguration;
+import org.example.model.Ride;
+import org.example.service.BillDetails;
+import org.example.service.RideEvent;
+import org.example.service.RideService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-sent event streams that replace polling of the match and bill endpoints.
+ * <p>
+ * Streams are held open on Servlet async requests, so a subscriber holds no request
+ * thread between events. All events are sent from a single publisher thread: ride changes
+ * are handed to it by the {@link RideService} listener, and each
+ * {@code ride.stream.match.interval.millis} it re-matches the subscribed riders near whom
+ * drivers have changed since their last match, sending only changed results.
+ */
+@Tag(name = "Ride Streams", description = "Server-sent event streams of match results and ride state changes")
+@RestController
+@RequestMapping("/api/stream")
+public class RideStreamController {
+    private static final Logger logger = LoggerFactory.getLogger(RideStreamController.class);
+    private static final long HEARTBEAT_SECONDS = 15;
+
+    private final RideService rideService;
+    private final RideConfiguration config;
+    private final Set<MatchSubscription> matchSubscriptions = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<RideSubscription>> rideSubscriptions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService publisher;
+
+    public RideStreamController(RideService rideService, RideConfiguration config) {
+        this.rideService = rideService;
+        this.config = config;
+    }
+
+    @PostConstruct
+    public void start() {
+        publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ride-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getStreamMatchIntervalMillis();
+        publisher.scheduleWithFixedDelay(this::refreshMatches, interval, interval, TimeUnit.MILLISECONDS);
+        publisher.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        rideService.addRideListener(event -> publisher.execute(() -> publish(event)));
+    }
+
+    @PreDestroy
+    public void stop() {
+        publisher.shutdownNow();
+        matchSubscriptions.forEach(subscription -> subscription.emitter.complete());
+        rideSubscriptions.values().forEach(subscriptions ->
+                subscriptions.forEach(subscription -> subscription.emitter.complete()));
+    }
+
+    @Operation(
+            summary = "Stream matches for a rider",
+            description = "Sends the drivers currently matched to the rider as a 'match' event, "
+                    + "then a new event whenever the matched drivers change"
+    )
+    @ApiResponse(responseCode = "200", description = "Stream of matched driver ID lists")
+    @GetMapping(value = "/match/{riderId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMatches(
+            @Parameter(description = "ID of the rider to match", required = true) @PathVariable String riderId) {
+
+        logger.info("Streaming matches for rider: {}", riderId);
+        MatchSubscription subscription = new MatchSubscription(riderId, newEmitter());
+        onClose(subscription.emitter, () -> matchSubscriptions.remove(subscription));
+        matchSubscriptions.add(subscription);
+        publisher.execute(() -> subscription.refresh(true));
+        return subscription.emitter;
+    }
+
+    @Operation(
+            summary = "Stream the state of a ride",
+            description = "Sends a 'ride' event when the ride starts and another with the bill when it "
+                    + "completes or is cancelled, then closes the stream; the ride may not have started yet"
+    )
+    @ApiResponse(responseCode = "200", description = "Stream of ride state changes")
+    @GetMapping(value = "/rides/{rideId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRide(
+            @Parameter(description = "ID of the ride to follow", required = true) @PathVariable String rideId) {
+
+        logger.info("Streaming state of ride: {}", rideId);
+        RideSubscription subscription = new RideSubscription(newEmitter());
+        onClose(subscription.emitter, () -> rideSubscriptions.computeIfPresent(rideId, (id, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        }));
+        rideSubscriptions.compute(rideId, (id, subscriptions) -> {
+            Set<RideSubscription> added = subscriptions == null ? ConcurrentHashMap.newKeySet() : subscriptions;
+            added.add(subscription);
+            return added;
+        });
+        // Registered before catching up, so a change made in between is published afterwards.
+        publisher.execute(() -> rideService.findRide(rideId).ifPresent(ride -> subscription.advance(toUpdate(ride))));
+        return subscription.emitter;
+    }
+
+    private SseEmitter newEmitter() {
+        return new SseEmitter(TimeUnit.SECONDS.toMillis(config.getStreamTimeoutSeconds()));
+    }
+
+    private static void onClose(SseEmitter emitter, Runnable unsubscribe) {
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+    }
+
+    private void publish(RideEvent event) {
+        String rideId;
+        if (event instanceof RideEvent.RideStarted started) {
+            rideId = started.rideId();
+        } else if (event instanceof RideEvent.RideStopped stopped) {
+            rideId = stopped.rideId();
+        } else if (event instanceof RideEvent.RideCancelled cancelled) {
+            rideId = cancelled.rideId();
+        } else {
+            return;
+        }
+        Set<RideSubscription> subscriptions = rideSubscriptions.get(rideId);
+        if (subscriptions == null) {
+            return;
+        }
+        // The ride's current state, which may already be past the event being published.
+        rideService.findRide(rideId).map(this::toUpdate).ifPresent(update ->
+                subscriptions.forEach(subscription -> subscription.advance(update)));
+    }
+
+    private RideUpdate toUpdate(Ride ride) {
+        if (ride.isCancelled()) {
+            return new RideUpdate(ride.getId(), RideUpdate.Status.CANCELLED,
+                    ride.getDriver().getId(), ride.getRider().getId(), null);
+        }
+        if (ride.isCompleted()) {
+            BillDetails bill = rideService.generateBill(ride.getId()).orElseThrow();
+            return new RideUpdate(ride.getId(), RideUpdate.Status.COMPLETED,
+                    ride.getDriver().getId(), ride.getRider().getId(), bill.getTotalFare());
+        }
+        return new RideUpdate(ride.getId(), RideUpdate.Status.STARTED,
+                ride.getDriver().getId(), ride.getRider().getId(), null);
+    }
+
+    private void refreshMatches() {
+        try {
+            matchSubscriptions.forEach(subscription -> subscription.refresh(false));
+        } catch (RuntimeException e) {
+            logger.error("Error refreshing streamed matches", e);
+        }
+    }
+
+    private void heartbeat() {
+        matchSubscriptions.forEach(subscription -> send(subscription.emitter, SseEmitter.event().comment("")));
+        rideSubscriptions.values().forEach(subscriptions -> subscriptions.forEach(
+                subscription -> send(subscription.emitter, SseEmitter.event().comment(""))));
+    }
+
+    /**
+     * Sends an event, closing the stream if the client has gone away.
+     */
+    private static boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    /**
+     * A rider's match stream; only accessed from the publisher thread.
+     */
+    private final class MatchSubscription {
+        private final String riderId;
+        private final SseEmitter emitter;
+        private List<String> lastMatches;
+        private long lastDriverChange = -1;
+
+        private MatchSubscription(String riderId, SseEmitter emitter) {
+            this.riderId = riderId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Sends the rider's matches if they have changed, matching the rider again only if
+         * drivers near it have. Only the first match of a stream counts as demand for surge
+         * pricing, as the refreshes repeat the same request.
+         */
+        private void refresh(boolean countDemand) {
+            // Read before matching, so that a change made during the match is seen next time.
+            long driverChange = rideService.lastDriverChange(riderId);
+            if (driverChange == lastDriverChange) {
+                return;
+            }
+            lastDriverChange = driverChange;
+            List<String> matches = rideService.matchRider(riderId, countDemand);
+            if (!matches.equals(lastMatches)
+                    && send(emitter, SseEmitter.event().name("match").data(matches, MediaType.APPLICATION_JSON))) {
+                lastMatches = matches;
+            }
+        }
+    }
+
+    /**
+     * A ride's state stream; only accessed from the publisher thread.
+     */
+    private static final class RideSubscription {
+        private final SseEmitter emitter;
+        private RideUpdate.Status status;
+
+        private RideSubscription(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Sends the update unless this stream has already reported that state or a later one.
+         */
+        private void advance(RideUpdate update) {
+            if (status != null && status.compareTo(update.status()) >= 0) {
+                return;
+            }
+            status = update.status();
+            if (send(emitter, SseEmitter.event().name("ride").data(update, MediaType.APPLICATION_JSON))
+                    && status != RideUpdate.Status.STARTED) {
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.controller;
+
+import java.math.BigDecimal;
+
+/**
+ * A change in the state of a ride, as pushed to subscribers of the ride's event stream.
+ *
+ * @param rideId    The ID of the ride
+ * @param status    The state the ride has reached
+ * @param driverId  The driver of the ride
+ * @param riderId   The rider of the ride
+ * @param totalFare The billed fare once the ride is completed, otherwise null
+ */
+public record RideUpdate(String rideId, Status status, String driverId, String riderId, BigDecimal totalFare) {
+
+    /**
+     * Ride states, in the order a ride passes through them; a ride ends either completed or
+     * cancelled.
+     */
+    public enum Status {
+        STARTED,
+        COMPLETED,
+        CANCELLED
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.controller;
+
+import org.example.service.BillDetails;
+
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Fixed-layout binary records exchanged on the {@code /api/binary} endpoints.
+ * All numbers are big-endian. IDs are a 16-bit length followed by UTF-8 bytes, coordinates
+ * and durations raw IEEE 754 doubles, and fares a 64-bit count of cents, so a record is
+ * produced and parsed without any text formatting.
+ * <ul>
+ *     <li>Match list: a 16-bit driver count, then that many driver IDs.</li>
+ *     <li>Start request: ride ID, 32-bit driver index, rider ID.</li>
+ *     <li>Stop request: ride ID, end latitude, end longitude, duration in minutes.</li>
+ *     <li>Bill: ride ID, driver ID, total fare in cents.</li>
+ * </ul>
+ * Decoding a truncated record, or one followed by extra bytes, throws an
+ * {@link IllegalArgumentException}. Clients in other services can use this class to encode
+ * requests and decode responses.
+ */
+public final class RideWireFormat {
+
+    private static final int MAX_ID_LENGTH = 0xFFFF;
+
+    private RideWireFormat() {
+    }
+
+    /**
+     * A request to start a ride with the driver at a given position in the rider's matches.
+     *
+     * @param rideId  The ID of the new ride
+     * @param index   The 1-based index of the chosen driver in the match list
+     * @param riderId The ID of the rider
+     */
+    public record StartRequest(String rideId, int index, String riderId) {
+    }
+
+    /**
+     * A request to stop a ride.
+     *
+     * @param rideId       The ID of the ride
+     * @param endLatitude  The latitude where the ride ended
+     * @param endLongitude The longitude where the ride ended
+     * @param duration     The duration of the ride in minutes
+     */
+    public record StopRequest(String rideId, double endLatitude, double endLongitude, double duration) {
+    }
+
+    public static byte[] encodeMatches(List<String> driverIds) {
+        byte[][] ids = new byte[driverIds.size()][];
+        int size = Short.BYTES;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idBytes(driverIds.get(i));
+            size += Short.BYTES + ids[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).putShort((short) ids.length);
+        for (byte[] id : ids) {
+            buffer.putShort((short) id.length).put(id);
+        }
+        return buffer.array();
+    }
+
+    public static List<String> decodeMatches(byte[] record) {
+        return decode(record, buffer -> {
+            int count = Short.toUnsignedInt(buffer.getShort());
+            List<String> driverIds = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                driverIds.add(getId(buffer));
+            }
+            return driverIds;
+        });
+    }
+
+    public static byte[] encodeStart(StartRequest request) {
+        byte[] rideId = idBytes(request.rideId());
+        byte[] riderId = idBytes(request.riderId());
+        return ByteBuffer.allocate(Short.BYTES * 2 + rideId.length + Integer.BYTES + riderId.length)
+                .putShort((short) rideId.length).put(rideId)
+                .putInt(request.index())
+                .putShort((short) riderId.length).put(riderId)
+                .array();
+    }
+
+    public static StartRequest decodeStart(byte[] record) {
+        return decode(record, buffer -> new StartRequest(getId(buffer), buffer.getInt(), getId(buffer)));
+    }
+
+    public static byte[] encodeStop(StopRequest request) {
+        byte[] rideId = idBytes(request.rideId());
+        return ByteBuffer.allocate(Short.BYTES + rideId.length + Double.BYTES * 3)
+                .putShort((short) rideId.length).put(rideId)
+                .putDouble(request.endLatitude())
+                .putDouble(request.endLongitude())
+                .putDouble(request.duration())
+                .array();
+    }
+
+    public static StopRequest decodeStop(byte[] record) {
+        return decode(record, buffer -> new StopRequest(
+                getId(buffer), buffer.getDouble(), buffer.getDouble(), buffer.getDouble()));
+    }
+
+    public static byte[] encodeBill(BillDetails bill) {
+        byte[] rideId = idBytes(bill.getRideId());
+        byte[] driverId = idBytes(bill.getDriverId());
+        return ByteBuffer.allocate(Short.BYTES * 2 + rideId.length + driverId.length + Long.BYTES)
+                .putShort((short) rideId.length).put(rideId)
+                .putShort((short) driverId.length).put(driverId)
+                .putLong(bill.getTotalFare().movePointRight(2).longValueExact())
+                .array();
+    }
+
+    public static BillDetails decodeBill(byte[] record) {
+        return decode(record, buffer -> new BillDetails(
+                getId(buffer), getId(buffer), BigDecimal.valueOf(buffer.getLong(), 2)));
+    }
+
+    private static <T> T decode(byte[] record, Function<ByteBuffer, T> reader) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        T value;
+        try {
+            value = reader.apply(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated record");
+        }
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Unexpected " + buffer.remaining() + " bytes after record");
+        }
+        return value;
+    }
+
+    private static byte[] idBytes(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_ID_LENGTH) {
+            throw new IllegalArgumentException("ID longer than " + MAX_ID_LENGTH + " bytes");
+        }
+        return bytes;
+    }
+
+    private static String getId(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String id = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return id;
+    }
+}
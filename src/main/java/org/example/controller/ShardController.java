@@ -0,0 +1,150 @@
+package org.example.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.service.BillDetails;
+import org.example.service.LocationEntry;
+import org.example.service.MatchCandidates;
+import org.example.service.RideService;
+import org.example.shard.ShardDirectory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Endpoints through which a shard router drives this node's {@link RideService} as one
+ * shard of a region-partitioned fleet. Rejected requests answer 400 with the service's
+ * message, and lookups of something this node does not hold answer 404.
+ */
+@Tag(name = "Shard", description = "APIs a shard router calls on the node owning a region")
+@RestController
+@RequestMapping("/api/shard")
+public class ShardController {
+    private final RideService rideService;
+
+    public ShardController(RideService rideService) {
+        this.rideService = rideService;
+    }
+
+    @Operation(summary = "Add a driver to this shard")
+    @PostMapping("/drivers")
+    public ResponseEntity<String> addDriver(
+            @Parameter(description = "Driver's unique identifier", required = true) @RequestParam String id,
+            @Parameter(description = "Latitude coordinate", required = true) @RequestParam double latitude,
+            @Parameter(description = "Longitude coordinate", required = true) @RequestParam double longitude) {
+        try {
+            rideService.addDriver(id, latitude, longitude);
+            return ResponseEntity.ok("Driver added successfully.");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Move a driver of this shard")
+    @PutMapping("/drivers/{id}/location")
+    public ResponseEntity<String> updateDriverLocation(
+            @Parameter(description = "Driver's unique identifier", required = true) @PathVariable String id,
+            @Parameter(description = "New latitude coordinate", required = true) @RequestParam double latitude,
+            @Parameter(description = "New longitude coordinate", required = true) @RequestParam double longitude) {
+        try {
+            rideService.updateDriverLocation(id, latitude, longitude);
+            return ResponseEntity.ok("Driver location updated.");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(
+            summary = "Hand an available driver over",
+            description = "Removes an available driver from this shard and returns its last location"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The removed driver's location"),
+            @ApiResponse(responseCode = "404", description = "The driver is unknown or on a ride")
+    })
+    @DeleteMapping("/drivers/{id}")
+    public ResponseEntity<LocationEntry> removeAvailableDriver(
+            @Parameter(description = "Driver's unique identifier", required = true) @PathVariable String id) {
+        return rideService.removeAvailableDriver(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Add a rider to this shard")
+    @PostMapping("/riders")
+    public ResponseEntity<String> addRider(
+            @Parameter(description = "Rider's unique identifier", required = true) @RequestParam String id,
+            @Parameter(description = "Latitude coordinate", required = true) @RequestParam double latitude,
+            @Parameter(description = "Longitude coordinate", required = true) @RequestParam double longitude) {
+        try {
+            rideService.addRider(id, latitude, longitude);
+            return ResponseEntity.ok("Rider added successfully.");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(
+            summary = "Find this shard's drivers near a location",
+            description = "Returns the closest available drivers with their distances, for merging with other shards"
+    )
+    @GetMapping("/nearby")
+    public MatchCandidates findNearbyDrivers(
+            @Parameter(description = "Latitude to search around", required = true) @RequestParam double latitude,
+            @Parameter(description = "Longitude to search around", required = true) @RequestParam double longitude,
+            @Parameter(description = "Largest radius to search", required = true) @RequestParam double ceiling,
+            @Parameter(description = "Whether to count the search as surge demand") @RequestParam(defaultValue = "false") boolean countDemand) {
+        return rideService.findNearbyDrivers(latitude, longitude, ceiling, countDemand);
+    }
+
+    @Operation(summary = "Start a ride with a chosen driver of this shard")
+    @PostMapping("/rides")
+    public ResponseEntity<String> startRide(
+            @Parameter(description = "Unique ride ID", required = true) @RequestParam String rideId,
+            @Parameter(description = "Chosen driver ID", required = true) @RequestParam String driverId,
+            @Parameter(description = "Rider ID", required = true) @RequestParam String riderId) {
+        try {
+            return ResponseEntity.ok(rideService.startRideWithDriver(rideId, driverId, riderId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Stop a ride of this shard")
+    @PostMapping("/rides/{rideId}/stop")
+    public ResponseEntity<String> stopRide(
+            @Parameter(description = "Ride ID to stop", required = true) @PathVariable String rideId,
+            @Parameter(description = "End latitude", required = true) @RequestParam double endLatitude,
+            @Parameter(description = "End longitude", required = true) @RequestParam double endLongitude,
+            @Parameter(description = "Ride duration in minutes", required = true) @RequestParam double duration) {
+        try {
+            return ResponseEntity.ok(rideService.stopRide(rideId, endLatitude, endLongitude, duration));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Get the bill of a completed ride of this shard")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The bill"),
+            @ApiResponse(responseCode = "404", description = "The ride is unknown or incomplete")
+    })
+    @GetMapping("/rides/{rideId}/bill")
+    public ResponseEntity<BillDetails> generateBill(
+            @Parameter(description = "Ride ID to bill", required = true) @PathVariable String rideId) {
+        return rideService.generateBill(rideId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "List this shard's drivers, riders and rides",
+            description = "Read by a starting router to rebuild its directory of which shard holds what"
+    )
+    @GetMapping("/directory")
+    public ShardDirectory directory() {
+        return ShardDirectory.of(rideService);
+    }
+}
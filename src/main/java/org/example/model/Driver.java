@@ -4,29 +4,48 @@ import lombok.Getter;
 import lombok.Setter;
 import javax.validation.constraints.*;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * Driver represents a driver in the ride system.
  * It contains information about the driver's ID, location, and availability status.
  */
 @Getter
 public class Driver {
+    private static final VarHandle AVAILABLE;
+
+    static {
+        try {
+            AVAILABLE = MethodHandles.lookup().findVarHandle(Driver.class, "available", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     @NotBlank(message = "Driver ID cannot be blank")
     @Size(min = 3, max = 20, message = "Driver ID must be between 3 and 20 characters")
     @Pattern(regexp = "^[a-zA-Z0-9]+$", message = "Driver ID must be alphanumeric")
     private final String id;
 
+    // The driver's handle in the registry of the service holding it, or -1 outside a service.
+    private final int handle;
+
     @NotNull(message = "Latitude cannot be null")
     @DecimalMin(value = "-90.0", message = "Latitude must be at least -90.0")
     @DecimalMax(value = "90.0", message = "Latitude cannot be greater than 90.0")
-    private double latitude;
+    private volatile double latitude;
 
     @NotNull(message = "Longitude cannot be null")
     @DecimalMin(value = "-180.0", message = "Longitude must be at least -180.0")
     @DecimalMax(value = "180.0", message = "Longitude cannot be greater than 180.0")
-    private double longitude;
+    private volatile double longitude;
+
+    // Cosine of the latitude, kept for great-circle distances; may briefly lag a concurrent move.
+    private volatile double cosLatitude;
 
     @Setter
-    private boolean available;
+    private volatile boolean available;
 
     /**
      * Constructs a new Driver with the given ID and location.
@@ -36,10 +55,49 @@ public class Driver {
      * @param longitude The initial longitude of the driver's location
      */
     public Driver(String id, double latitude, double longitude) {
+        this(id, -1, latitude, longitude);
+    }
+
+    /**
+     * Constructs a new Driver registered under the given handle.
+     *
+     * @param id The unique identifier for the driver
+     * @param handle The dense integer handle interned for the ID
+     * @param latitude The initial latitude of the driver's location
+     * @param longitude The initial longitude of the driver's location
+     */
+    public Driver(String id, int handle, double latitude, double longitude) {
         this.id = id;
+        this.handle = handle;
         this.latitude = latitude;
         this.longitude = longitude;
+        this.cosLatitude = Math.cos(Math.toRadians(latitude));
         this.available = true;
     }
 
+    /**
+     * Moves the driver to a new location in place.
+     * Drivers held in a {@code DriverGridIndex} must be moved through the index instead,
+     * so that they are re-filed under the cell covering the new location.
+     *
+     * @param latitude  The new latitude of the driver's location
+     * @param longitude The new longitude of the driver's location
+     */
+    public void updateLocation(double latitude, double longitude) {
+        if (latitude != this.latitude) {
+            this.cosLatitude = Math.cos(Math.toRadians(latitude));
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * Atomically claims this driver for a ride.
+     * Exactly one of several concurrent callers succeeds while the driver is available.
+     *
+     * @return true if the driver was available and is now reserved by the caller
+     */
+    public boolean tryReserve() {
+        return AVAILABLE.compareAndSet(this, true, false);
+    }
 }
@@ -1,12 +1,17 @@
 package org.example.model;
 
 import lombok.Getter;
+import org.example.config.FareProfile;
+
 import javax.validation.constraints.*;
+import java.math.BigDecimal;
 
 /**
  * Represents a ride in the ride-sharing system.
  * This class contains information about the ride, including its ID, driver, rider,
- * start and end locations, duration, and completion status.
+ * start and end locations, duration, and state, and the fare profile and surge multiplier
+ * it is billed with. State changes follow {@link RideState#canBecome} and are made under
+ * the ride's monitor, so two requests cannot both move a ride out of the same state.
  */
 @Getter
 public class Ride {
@@ -23,10 +28,12 @@ public class Ride {
 
     private final double startLatitude;
     private final double startLongitude;
+    private final FareProfile fareProfile; // null to bill with the profile current at billing time
+    private final BigDecimal surgeMultiplier;
     private double endLatitude;
     private double endLongitude;
     private double duration; // in minutes
-    private boolean completed;
+    private volatile RideState state; // written last, so a completed ride is fully visible
 
     /**
      * Constructs a new Ride with the given ID, driver, and rider.
@@ -36,25 +43,149 @@ public class Ride {
      * @param rider  The rider requesting the ride
      */
     public Ride(String id, Driver driver, Rider rider) {
+        this(id, driver, rider, rider.getLatitude(), rider.getLongitude());
+    }
+
+    /**
+     * Constructs a new Ride starting from a recorded location rather than the rider's current one.
+     *
+     * @param id             The unique identifier for the ride
+     * @param driver         The driver assigned to the ride
+     * @param rider          The rider requesting the ride
+     * @param startLatitude  The latitude the ride started from
+     * @param startLongitude The longitude the ride started from
+     */
+    public Ride(String id, Driver driver, Rider rider, double startLatitude, double startLongitude) {
+        this(id, driver, rider, startLatitude, startLongitude, null, BigDecimal.ONE);
+    }
+
+    /**
+     * Constructs a new Ride from a recorded location, billed with the given fare profile and surge.
+     *
+     * @param id              The unique identifier for the ride
+     * @param driver          The driver assigned to the ride
+     * @param rider           The rider requesting the ride
+     * @param startLatitude   The latitude the ride started from
+     * @param startLongitude  The longitude the ride started from
+     * @param fareProfile     The fare profile in force when the ride started
+     * @param surgeMultiplier The surge multiplier applied to the fare
+     */
+    public Ride(String id, Driver driver, Rider rider, double startLatitude, double startLongitude,
+                FareProfile fareProfile, BigDecimal surgeMultiplier) {
+        this(id, driver, rider, startLatitude, startLongitude, fareProfile, surgeMultiplier, RideState.STARTED);
+    }
+
+    /**
+     * Constructs a new Ride in the given state, before it has been completed.
+     *
+     * @param id              The unique identifier for the ride
+     * @param driver          The driver assigned to the ride
+     * @param rider           The rider requesting the ride
+     * @param startLatitude   The latitude the ride started from
+     * @param startLongitude  The longitude the ride started from
+     * @param fareProfile     The fare profile in force when the ride started
+     * @param surgeMultiplier The surge multiplier applied to the fare
+     * @param state           The state the ride is in, such as {@link RideState#MATCHED}
+     */
+    public Ride(String id, Driver driver, Rider rider, double startLatitude, double startLongitude,
+                FareProfile fareProfile, BigDecimal surgeMultiplier, RideState state) {
         this.id = id;
         this.driver = driver;
         this.rider = rider;
-        this.startLatitude = rider.getLatitude();
-        this.startLongitude = rider.getLongitude();
-        this.completed = false;
+        this.startLatitude = startLatitude;
+        this.startLongitude = startLongitude;
+        this.fareProfile = fareProfile;
+        this.surgeMultiplier = surgeMultiplier;
+        this.state = state;
     }
 
     /**
-     * Ends the ride by setting the end location, duration, and marking it as completed.
+     * Ends a started ride by setting the end location and duration and moving it to
+     * {@link RideState#COMPLETED}.
      *
      * @param endLatitude  The latitude of the end location
      * @param endLongitude The longitude of the end location
      * @param duration     The duration of the ride in minutes
+     * @return Whether the ride was ended; false if it was not in progress
      */
-    public void endRide(double endLatitude, double endLongitude, double duration) {
+    public synchronized boolean endRide(double endLatitude, double endLongitude, double duration) {
+        if (state != RideState.STARTED) {
+            return false;
+        }
         this.endLatitude = endLatitude;
         this.endLongitude = endLongitude;
         this.duration = duration;
-        this.completed = true;
+        this.state = RideState.COMPLETED;
+        return true;
+    }
+
+    /**
+     * Claims a started ride for a stop that is yet to be recorded, setting the end location
+     * and duration and moving it to {@link RideState#STOPPING}. The stop takes effect when
+     * the ride moves on to {@link RideState#COMPLETED}.
+     *
+     * @param endLatitude  The latitude of the end location
+     * @param endLongitude The longitude of the end location
+     * @param duration     The duration of the ride in minutes
+     * @return Whether the ride was claimed; false if it was not in progress
+     */
+    public synchronized boolean beginStop(double endLatitude, double endLongitude, double duration) {
+        if (state != RideState.STARTED) {
+            return false;
+        }
+        this.endLatitude = endLatitude;
+        this.endLongitude = endLongitude;
+        this.duration = duration;
+        this.state = RideState.STOPPING;
+        return true;
+    }
+
+    /**
+     * Moves the ride from one state to another, if it is still in the first.
+     *
+     * @param from The state the ride is expected to be in
+     * @param to   The state to move it to
+     * @return Whether the ride was moved; false if it had already left {@code from}
+     * @throws IllegalArgumentException if a ride cannot move from {@code from} to {@code to}
+     */
+    public synchronized boolean transition(RideState from, RideState to) {
+        if (!from.canBecome(to)) {
+            throw new IllegalArgumentException("A ride cannot move from " + from + " to " + to);
+        }
+        if (state != from) {
+            return false;
+        }
+        state = to;
+        return true;
+    }
+
+    /**
+     * Takes back a stop or cancellation that could not be recorded, returning the ride to
+     * {@link RideState#STARTED}.
+     *
+     * @param from The state the stop or cancellation moved the ride to
+     * @return Whether the ride was returned; false if it had already left {@code from}
+     */
+    public synchronized boolean reopen(RideState from) {
+        if (state != from) {
+            return false;
+        }
+        state = RideState.STARTED;
+        return true;
+    }
+
+    /**
+     * @return Whether the ride has been stopped, whether or not it has been billed yet
+     */
+    public boolean isCompleted() {
+        RideState current = state;
+        return current == RideState.COMPLETED || current == RideState.BILLED;
+    }
+
+    /**
+     * @return Whether the ride was cancelled before it was completed
+     */
+    public boolean isCancelled() {
+        return state == RideState.CANCELLED;
     }
 }
@@ -0,0 +1,41 @@
+package org.example.model;
+
+/**
+ * The states a ride passes through, in order. A ride is created matched with the driver a
+ * start names, started once the start is durable, stopping while its stop is being made
+ * durable, completed once it is, and billed once its fare is computed; it may be cancelled
+ * while matched or started. A stopping ride is not billed, and returns to started if its
+ * stop cannot be recorded.
+ * <p>
+ * There is no requested state: a match request carries no ride ID and reserves no driver,
+ * so there is no ride to track until a start names one.
+ */
+public enum RideState {
+    MATCHED,
+    STARTED,
+    STOPPING,
+    COMPLETED,
+    BILLED,
+    CANCELLED;
+
+    /**
+     * @param next The state to move to
+     * @return Whether a ride in this state may move to the given one
+     */
+    public boolean canBecome(RideState next) {
+        return switch (this) {
+            case MATCHED -> next == STARTED || next == CANCELLED;
+            case STARTED -> next == STOPPING || next == COMPLETED || next == CANCELLED;
+            case STOPPING -> next == COMPLETED || next == STARTED;
+            case COMPLETED -> next == BILLED;
+            case BILLED, CANCELLED -> false;
+        };
+    }
+
+    /**
+     * @return Whether no further transition is possible from this state
+     */
+    public boolean isTerminal() {
+        return this == BILLED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,300 @@
+package org.example.persistence;
+
+import org.example.service.BillDetails;
+import org.example.service.RideArchive;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Append-only {@link RideArchive} of bills, spread over a fixed number of bucket files by
+ * ride ID hash.
+ * <p>
+ * A record is the ride ID and driver ID as length-prefixed UTF-8, then the fare in cents,
+ * around 30 bytes in all. Each bucket keeps an in-memory index from ride ID hash to record
+ * offset, about 16 bytes per archived ride, rebuilt from the file when the archive is
+ * reopened. A lookup reads only the records whose ride ID hash matches, so a ride that was
+ * never archived is usually answered without touching the file. Repeated lookups are
+ * absorbed by the bill cache in front of the archive.
+ * <p>
+ * Appends are forced to disk before they become visible to lookups, and a record left
+ * incomplete by a crash is truncated when the archive is reopened.
+ */
+public class FileRideArchive implements RideArchive, Closeable {
+
+    static final int BUCKETS = 64;
+    private static final String BUCKET_FORMAT = "bills-%02d.arc";
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final Path[] paths = new Path[BUCKETS];
+    private final FileChannel[] channels = new FileChannel[BUCKETS];
+    private final OffsetIndex[] indexes = new OffsetIndex[BUCKETS];
+    // Durable length of each bucket, where its next records are written.
+    private final AtomicLongArray sizes = new AtomicLongArray(BUCKETS);
+
+    private FileRideArchive(Path directory) throws IOException {
+        try {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                paths[bucket] = directory.resolve(String.format(BUCKET_FORMAT, bucket));
+                channels[bucket] = FileChannel.open(paths[bucket],
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                indexes[bucket] = new OffsetIndex();
+                long size = index(paths[bucket], indexes[bucket]);
+                channels[bucket].truncate(size);
+                sizes.set(bucket, size);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the archive in a directory, creating it if needed.
+     *
+     * @param directory The directory holding the bucket files
+     * @return The open archive
+     * @throws IOException if a bucket file cannot be opened or repaired
+     */
+    public static FileRideArchive open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileRideArchive archive = new FileRideArchive(directory);
+        WriteAheadLog.forceDirectory(directory);
+        return archive;
+    }
+
+    @Override
+    public synchronized void append(List<BillDetails> bills) {
+        ByteBuffer[] pending = new ByteBuffer[BUCKETS];
+        long[] recordOffsets = new long[bills.size()];
+        for (int i = 0; i < bills.size(); i++) {
+            BillDetails bill = bills.get(i);
+            int bucket = bucketOf(bill.getRideId());
+            byte[] rideId = bill.getRideId().getBytes(StandardCharsets.UTF_8);
+            byte[] driverId = bill.getDriverId().getBytes(StandardCharsets.UTF_8);
+            int recordSize = Short.BYTES * 2 + rideId.length + driverId.length + Long.BYTES;
+            ByteBuffer buffer = pending[bucket];
+            if (buffer == null || buffer.remaining() < recordSize) {
+                buffer = grow(buffer, recordSize);
+                pending[bucket] = buffer;
+            }
+            recordOffsets[i] = sizes.get(bucket) + buffer.position();
+            buffer.putShort((short) rideId.length).put(rideId)
+                    .putShort((short) driverId.length).put(driverId)
+                    .putLong(bill.getTotalFare().movePointRight(2).longValueExact());
+        }
+
+        long[] written = new long[BUCKETS];
+        try {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                if (pending[bucket] != null) {
+                    ByteBuffer buffer = pending[bucket].flip();
+                    long position = sizes.get(bucket);
+                    while (buffer.hasRemaining()) {
+                        position += channels[bucket].write(buffer, position);
+                    }
+                    written[bucket] = position;
+                }
+            }
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                if (written[bucket] != 0) {
+                    channels[bucket].force(false);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ride archive is unavailable", e);
+        }
+        for (int i = 0; i < bills.size(); i++) {
+            String rideId = bills.get(i).getRideId();
+            indexes[bucketOf(rideId)].put(rideId.hashCode(), recordOffsets[i]);
+        }
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (written[bucket] != 0) {
+                sizes.set(bucket, written[bucket]);
+            }
+        }
+    }
+
+    @Override
+    public Optional<BillDetails> find(String rideId) {
+        int bucket = bucketOf(rideId);
+        byte[] target = rideId.getBytes(StandardCharsets.UTF_8);
+        try {
+            for (long offset : indexes[bucket].offsetsOf(rideId.hashCode())) {
+                ByteBuffer header = read(channels[bucket], Short.BYTES, offset);
+                int rideIdLength = header.getShort() & 0xFFFF;
+                if (rideIdLength != target.length) {
+                    continue;
+                }
+                ByteBuffer id = read(channels[bucket], rideIdLength + Short.BYTES, offset + Short.BYTES);
+                if (!id.slice(0, rideIdLength).equals(ByteBuffer.wrap(target))) {
+                    continue;
+                }
+                int driverIdLength = id.getShort(rideIdLength) & 0xFFFF;
+                ByteBuffer rest = read(channels[bucket], driverIdLength + Long.BYTES,
+                        offset + Short.BYTES * 2 + rideIdLength);
+                byte[] driverId = new byte[driverIdLength];
+                rest.get(driverId);
+                return Optional.of(new BillDetails(rideId, new String(driverId, StandardCharsets.UTF_8),
+                        BigDecimal.valueOf(rest.getLong(), 2)));
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ride archive is unavailable", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (FileChannel channel : channels) {
+            if (channel == null) {
+                continue;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static int bucketOf(String rideId) {
+        return Math.floorMod(rideId.hashCode(), BUCKETS);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        int capacity = Math.max(1024, buffer == null ? needed : (buffer.position() + needed) * 2);
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        if (buffer != null) {
+            grown.put(buffer.flip());
+        }
+        return grown;
+    }
+
+    private static ByteBuffer read(FileChannel channel, int length, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Archived record ends early at " + position);
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Indexes the complete records at the start of a bucket file.
+     *
+     * @return The length of those records
+     */
+    private static long index(Path path, OffsetIndex index) throws IOException {
+        long length = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), READ_BUFFER_SIZE))) {
+            while (true) {
+                int rideIdLength = in.readUnsignedShort();
+                byte[] rideId = in.readNBytes(rideIdLength);
+                if (rideId.length < rideIdLength) {
+                    return length;
+                }
+                int driverIdLength = in.readUnsignedShort();
+                in.skipNBytes(driverIdLength + Long.BYTES);
+                index.put(new String(rideId, StandardCharsets.UTF_8).hashCode(), length);
+                length += Short.BYTES * 2 + rideIdLength + driverIdLength + Long.BYTES;
+            }
+        } catch (EOFException e) {
+            return length;
+        }
+    }
+
+    /**
+     * Open-addressing table from ride ID hash to the offsets of the records with that hash.
+     * Lookups share a read lock; appends, which are already serialized, take the write lock.
+     */
+    private static final class OffsetIndex {
+
+        private static final long[] NO_OFFSETS = new long[0];
+
+        private final StampedLock lock = new StampedLock();
+        private int[] hashes = new int[16];
+        // The offset of a record plus one, so that 0 marks an empty slot.
+        private long[] offsets = new long[16];
+        private int count;
+
+        void put(int hash, long offset) {
+            long stamp = lock.writeLock();
+            try {
+                if ((count + 1) * 4L > offsets.length * 3L) {
+                    int[] oldHashes = hashes;
+                    long[] oldOffsets = offsets;
+                    hashes = new int[oldHashes.length * 2];
+                    offsets = new long[oldOffsets.length * 2];
+                    for (int slot = 0; slot < oldOffsets.length; slot++) {
+                        if (oldOffsets[slot] != 0) {
+                            insert(oldHashes[slot], oldOffsets[slot]);
+                        }
+                    }
+                }
+                insert(hash, offset + 1);
+                count++;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * @return The offsets of the records whose ride ID has the hash, in file order
+         */
+        long[] offsetsOf(int hash) {
+            long[] found = NO_OFFSETS;
+            long stamp = lock.readLock();
+            try {
+                int mask = offsets.length - 1;
+                for (int slot = slot(hash, mask); offsets[slot] != 0; slot = (slot + 1) & mask) {
+                    if (hashes[slot] == hash) {
+                        found = Arrays.copyOf(found, found.length + 1);
+                        found[found.length - 1] = offsets[slot] - 1;
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            Arrays.sort(found);
+            return found;
+        }
+
+        private void insert(int hash, long storedOffset) {
+            int mask = offsets.length - 1;
+            int slot = slot(hash, mask);
+            while (offsets[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            offsets[slot] = storedOffset;
+        }
+
+        private static int slot(int hash, int mask) {
+            // The low bits already chose the bucket, so spread the rest over the table.
+            return (hash * 0x9E3779B9 >>> 7) & mask;
+        }
+    }
+}
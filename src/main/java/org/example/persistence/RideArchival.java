@@ -0,0 +1,75 @@
+package org.example.persistence;
+
+import org.example.config.RideConfiguration;
+import org.example.service.RideService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the heap bounded by rides in progress rather than all rides ever taken.
+ * Enabled by {@code ride.archive.enabled}; every {@code ride.archive.interval.seconds},
+ * rides completed more than {@code ride.archive.ttl.seconds} ago are moved to a
+ * {@link FileRideArchive}, from which their bills are still served.
+ */
+@Component
+public class RideArchival {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideArchival.class);
+
+    private final RideConfiguration config;
+    private final RideService rideService;
+    private FileRideArchive archive;
+    private ScheduledExecutorService sweeps;
+
+    public RideArchival(RideConfiguration config, RideService rideService) {
+        this.config = config;
+        this.rideService = rideService;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!config.isArchiveEnabled()) {
+            return;
+        }
+        archive = FileRideArchive.open(Path.of(config.getArchiveDirectory()));
+        rideService.setArchive(archive);
+
+        long interval = Math.max(1, config.getArchiveIntervalSeconds());
+        sweeps = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ride-archival");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeps.scheduleWithFixedDelay(this::archive, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (sweeps != null) {
+            sweeps.shutdown();
+            sweeps.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        if (archive != null) {
+            archive.close();
+        }
+    }
+
+    private void archive() {
+        try {
+            int archived = rideService.archiveCompletedRides(Duration.ofSeconds(config.getArchiveTtlSeconds()));
+            logger.debug("Archived {} completed rides", archived);
+        } catch (RuntimeException e) {
+            logger.error("Error archiving completed rides", e);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package org.example.persistence;
+
+import org.example.service.RideEvent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary encoding of {@link RideEvent}s shared by the write-ahead log and snapshots.
+ * Each event is stored as a frame: the payload length, a CRC32C of the payload, then the
+ * payload itself (a type tag followed by the event's fields). IDs are length-prefixed
+ * UTF-8 and coordinates raw IEEE 754 doubles, so a frame is a few dozen bytes. Ride starts
+ * end with the fare profile's version and its rates as length-prefixed decimal strings;
+ * frames written before fare profiles were journaled end after the surge multiplier and
+ * decode without rates, and those written before surge pricing end after the start
+ * location and decode with a multiplier of 1. Driver removals and ride cancellations
+ * carry only an ID.
+ */
+final class RideEventCodec {
+
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int MAX_PAYLOAD_SIZE = 1 << 20;
+
+    private static final byte DRIVER_ADDED = 1;
+    private static final byte DRIVER_MOVED = 2;
+    private static final byte RIDER_ADDED = 3;
+    private static final byte RIDE_STARTED = 4;
+    private static final byte RIDE_STOPPED = 5;
+    private static final byte DRIVER_REMOVED = 6;
+    private static final byte RIDE_CANCELLED = 7;
+
+    private RideEventCodec() {
+    }
+
+    /**
+     * Encodes an event as a complete frame.
+     *
+     * @param event The event to encode
+     * @return The frame bytes
+     */
+    static byte[] encode(RideEvent event) {
+        byte[][] ids = ids(event);
+        int size = 1;
+        for (byte[] id : ids) {
+            size += Short.BYTES + id.length;
+        }
+        size += Double.BYTES * coordinateCount(event);
+        byte[][] rates = rates(event);
+        if (rates.length > 0) {
+            size += Long.BYTES;
+            for (byte[] rate : rates) {
+                size += Short.BYTES + rate.length;
+            }
+        }
+
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + size);
+        frame.position(HEADER_SIZE);
+        frame.put(type(event));
+        for (byte[] id : ids) {
+            frame.putShort((short) id.length).put(id);
+        }
+        if (event instanceof RideEvent.DriverAdded added) {
+            frame.putDouble(added.latitude()).putDouble(added.longitude());
+        } else if (event instanceof RideEvent.DriverMoved moved) {
+            frame.putDouble(moved.latitude()).putDouble(moved.longitude());
+        } else if (event instanceof RideEvent.RiderAdded added) {
+            frame.putDouble(added.latitude()).putDouble(added.longitude());
+        } else if (event instanceof RideEvent.RideStarted started) {
+            frame.putDouble(started.startLatitude()).putDouble(started.startLongitude())
+                    .putDouble(started.surgeMultiplier());
+            if (rates.length > 0) {
+                frame.putLong(started.fareRates().version());
+                for (byte[] rate : rates) {
+                    frame.putShort((short) rate.length).put(rate);
+                }
+            }
+        } else if (event instanceof RideEvent.RideStopped stopped) {
+            frame.putDouble(stopped.endLatitude()).putDouble(stopped.endLongitude()).putDouble(stopped.duration());
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(frame.array(), HEADER_SIZE, size);
+        frame.putInt(0, size).putInt(Integer.BYTES, (int) crc.getValue());
+        return frame.array();
+    }
+
+    /**
+     * Reads the next frame from a stream.
+     *
+     * @param in The stream to read from
+     * @return The decoded event, or null at the end of the stream
+     * @throws CorruptFrameException if the stream ends inside a frame or the frame fails its checksum
+     * @throws IOException           if the stream cannot be read
+     */
+    static RideEvent read(InputStream in) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        int headerRead = in.readNBytes(header, 0, HEADER_SIZE);
+        if (headerRead == 0) {
+            return null;
+        }
+        if (headerRead < HEADER_SIZE) {
+            throw new CorruptFrameException("Truncated frame header");
+        }
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+        int size = headerBuffer.getInt();
+        int checksum = headerBuffer.getInt();
+        if (size <= 0 || size > MAX_PAYLOAD_SIZE) {
+            throw new CorruptFrameException("Invalid frame length " + size);
+        }
+        byte[] payload = in.readNBytes(size);
+        if (payload.length < size) {
+            throw new CorruptFrameException("Truncated frame payload");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        if ((int) crc.getValue() != checksum) {
+            throw new CorruptFrameException("Frame checksum mismatch");
+        }
+        try {
+            return decode(ByteBuffer.wrap(payload));
+        } catch (RuntimeException e) {
+            throw new CorruptFrameException("Undecodable frame: " + e.getMessage());
+        }
+    }
+
+    private static RideEvent decode(ByteBuffer payload) throws CorruptFrameException {
+        byte type = payload.get();
+        return switch (type) {
+            case DRIVER_ADDED -> new RideEvent.DriverAdded(readId(payload), payload.getDouble(), payload.getDouble());
+            case DRIVER_MOVED -> new RideEvent.DriverMoved(readId(payload), payload.getDouble(), payload.getDouble());
+            case RIDER_ADDED -> new RideEvent.RiderAdded(readId(payload), payload.getDouble(), payload.getDouble());
+            case RIDE_STARTED -> new RideEvent.RideStarted(readId(payload), readId(payload), readId(payload),
+                    payload.getDouble(), payload.getDouble(), payload.hasRemaining() ? payload.getDouble() : 1,
+                    payload.hasRemaining() ? readRates(payload) : null);
+            case RIDE_STOPPED -> new RideEvent.RideStopped(readId(payload),
+                    payload.getDouble(), payload.getDouble(), payload.getDouble());
+            case DRIVER_REMOVED -> new RideEvent.DriverRemoved(readId(payload));
+            case RIDE_CANCELLED -> new RideEvent.RideCancelled(readId(payload));
+            default -> throw new CorruptFrameException("Unknown event type " + type);
+        };
+    }
+
+    private static RideEvent.FareRates readRates(ByteBuffer payload) {
+        return new RideEvent.FareRates(payload.getLong(), readDecimal(payload), readDecimal(payload),
+                readDecimal(payload), readDecimal(payload));
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer payload) {
+        return new BigDecimal(readId(payload));
+    }
+
+    private static String readId(ByteBuffer payload) {
+        int length = Short.toUnsignedInt(payload.getShort());
+        String id = new String(payload.array(), payload.position(), length, StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return id;
+    }
+
+    private static byte[][] ids(RideEvent event) {
+        if (event instanceof RideEvent.DriverAdded added) {
+            return new byte[][]{utf8(added.driverId())};
+        } else if (event instanceof RideEvent.DriverMoved moved) {
+            return new byte[][]{utf8(moved.driverId())};
+        } else if (event instanceof RideEvent.RiderAdded added) {
+            return new byte[][]{utf8(added.riderId())};
+        } else if (event instanceof RideEvent.RideStarted started) {
+            return new byte[][]{utf8(started.rideId()), utf8(started.driverId()), utf8(started.riderId())};
+        } else if (event instanceof RideEvent.DriverRemoved removed) {
+            return new byte[][]{utf8(removed.driverId())};
+        } else if (event instanceof RideEvent.RideCancelled cancelled) {
+            return new byte[][]{utf8(cancelled.rideId())};
+        }
+        return new byte[][]{utf8(((RideEvent.RideStopped) event).rideId())};
+    }
+
+    private static byte[][] rates(RideEvent event) {
+        if (event instanceof RideEvent.RideStarted started && started.fareRates() != null) {
+            RideEvent.FareRates rates = started.fareRates();
+            return new byte[][]{utf8(rates.baseFare().toString()), utf8(rates.distanceFareRate().toString()),
+                    utf8(rates.timeFareRate().toString()), utf8(rates.serviceTaxMultiplier().toString())};
+        }
+        return new byte[0][];
+    }
+
+    private static byte[] utf8(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("ID is too long to journal");
+        }
+        return bytes;
+    }
+
+    private static byte type(RideEvent event) {
+        if (event instanceof RideEvent.DriverAdded) {
+            return DRIVER_ADDED;
+        } else if (event instanceof RideEvent.DriverMoved) {
+            return DRIVER_MOVED;
+        } else if (event instanceof RideEvent.RiderAdded) {
+            return RIDER_ADDED;
+        } else if (event instanceof RideEvent.RideStarted) {
+            return RIDE_STARTED;
+        } else if (event instanceof RideEvent.DriverRemoved) {
+            return DRIVER_REMOVED;
+        } else if (event instanceof RideEvent.RideCancelled) {
+            return RIDE_CANCELLED;
+        }
+        return RIDE_STOPPED;
+    }
+
+    private static int coordinateCount(RideEvent event) {
+        if (event instanceof RideEvent.DriverRemoved || event instanceof RideEvent.RideCancelled) {
+            return 0;
+        }
+        return event instanceof RideEvent.RideStopped || event instanceof RideEvent.RideStarted ? 3 : 2;
+    }
+
+    /**
+     * Signals a frame that was only partially written or has been damaged.
+     */
+    static class CorruptFrameException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        CorruptFrameException(String message) {
+            super(message);
+        }
+    }
+}
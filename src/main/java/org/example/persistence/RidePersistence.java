@@ -0,0 +1,75 @@
+package org.example.persistence;
+
+import org.example.config.RideConfiguration;
+import org.example.service.RideService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restores the ride state on startup and keeps it persisted while the application runs.
+ * Enabled by {@code ride.persistence.enabled}; recovery completes before the application
+ * starts serving requests, and a snapshot is written every
+ * {@code ride.persistence.snapshot.interval.seconds} and on shutdown.
+ */
+@Component
+public class RidePersistence {
+
+    private static final Logger logger = LoggerFactory.getLogger(RidePersistence.class);
+
+    private final RideConfiguration config;
+    private final RideService rideService;
+    private RideStateStore store;
+    private ScheduledExecutorService snapshots;
+
+    public RidePersistence(RideConfiguration config, RideService rideService) {
+        this.config = config;
+        this.rideService = rideService;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!config.isPersistenceEnabled()) {
+            return;
+        }
+        store = new RideStateStore(Path.of(config.getPersistenceDirectory()), rideService);
+        store.recover();
+
+        long interval = config.getSnapshotIntervalSeconds();
+        if (interval > 0) {
+            snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ride-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshots.scheduleWithFixedDelay(this::snapshot, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (snapshots != null) {
+            snapshots.shutdown();
+            snapshots.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private void snapshot() {
+        try {
+            store.snapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error writing ride state snapshot", e);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.example.persistence;
+
+import org.example.service.RideEvent;
+import org.example.service.RideJournal;
+import org.example.service.RideService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Durable storage for the state of a {@link RideService}: a {@link WriteAheadLog} of every
+ * change plus periodic binary snapshots that bound how much of the log has to be replayed.
+ * <p>
+ * A snapshot is written after rotating the log, so it covers every event in the closed
+ * segments and possibly some later ones. Recovery loads the latest snapshot and replays
+ * the segments after it; {@link RideService#replay} is idempotent, so events that the
+ * snapshot already reflects are harmless.
+ */
+public class RideStateStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideStateStore.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x52534e50; // "RSNP"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_COUNT_OFFSET = Integer.BYTES * 2 + Long.BYTES;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+    private final RideService rideService;
+    private WriteAheadLog log;
+    private long snapshotSequence;
+
+    /**
+     * Constructs a store for the given service.
+     *
+     * @param directory   The directory holding the log segments and snapshots
+     * @param rideService The service whose state is persisted
+     */
+    public RideStateStore(Path directory, RideService rideService) {
+        this.directory = directory;
+        this.rideService = rideService;
+    }
+
+    /**
+     * Restores the service from the latest snapshot and the log written after it, then
+     * starts journaling the service's changes.
+     *
+     * @throws IOException if the stored state cannot be read or the log cannot be opened
+     */
+    public synchronized void recover() throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+
+        Path snapshot = latestSnapshot();
+        long boundary = snapshot != null ? readSnapshot(snapshot, rideService::replay) : 0;
+        long last = WriteAheadLog.replay(directory, boundary, rideService::replay);
+        rideService.completeReplay();
+
+        log = WriteAheadLog.open(directory, last);
+        snapshotSequence = boundary;
+        rideService.setJournal(log);
+        logger.info("Recovered ride state up to event {} in {} ms", last, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Writes a snapshot of the current state and deletes the log segments and older
+     * snapshots it makes obsolete. Nothing is written if no event was logged since the
+     * previous snapshot.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public synchronized void snapshot() throws IOException {
+        long boundary = log.rotate();
+        if (boundary == snapshotSequence) {
+            return;
+        }
+
+        Path target = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, boundary, SNAPSHOT_SUFFIX));
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_COUNT_OFFSET + Long.BYTES)
+                    .putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(boundary).putLong(0);
+            out.write(header.array());
+            long[] count = new long[1];
+            try {
+                rideService.exportState(event -> {
+                    try {
+                        out.write(RideEventCodec.encode(event));
+                        count[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, count[0]), SNAPSHOT_COUNT_OFFSET);
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        WriteAheadLog.forceDirectory(directory);
+
+        for (Path snapshot : snapshots()) {
+            if (!snapshot.equals(target)) {
+                Files.delete(snapshot);
+            }
+        }
+        log.deleteSegmentsBefore(boundary + 1);
+        snapshotSequence = boundary;
+        logger.info("Wrote ride state snapshot at event {}", boundary);
+    }
+
+    /**
+     * Takes a final snapshot, stops journaling the service's changes and closes the log.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (log == null) {
+            return;
+        }
+        try {
+            snapshot();
+        } finally {
+            rideService.setJournal(RideJournal.NONE);
+            log.close();
+            log = null;
+        }
+    }
+
+    private long readSnapshot(Path snapshot, Consumer<RideEvent> action) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot), BUFFER_SIZE))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unrecognised snapshot " + snapshot);
+            }
+            long boundary = in.readLong();
+            long count = in.readLong();
+            for (long i = 0; i < count; i++) {
+                RideEvent event = RideEventCodec.read(in);
+                if (event == null) {
+                    throw new IOException("Snapshot " + snapshot + " ends after " + i + " of " + count + " events");
+                }
+                action.accept(event);
+            }
+            return boundary;
+        }
+    }
+
+    private Path latestSnapshot() throws IOException {
+        List<Path> snapshots = snapshots();
+        return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+    }
+
+    private List<Path> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+}
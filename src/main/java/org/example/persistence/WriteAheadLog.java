@@ -0,0 +1,367 @@
+package org.example.persistence;
+
+import org.example.service.RideEvent;
+import org.example.service.RideJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, group-committed write-ahead log of {@link RideEvent}s.
+ * <p>
+ * Callers encode their event and hand the frame to a single writer thread, which writes
+ * everything queued since its last pass in one write and one fsync. Callers waiting in
+ * {@link #awaitDurable} are released together once that fsync returns, so the cost of a
+ * sync is shared by every request that arrived while the previous one was in progress.
+ * <p>
+ * The log is split into segment files named after the sequence number of their first
+ * event. {@link #rotate()} starts a new segment so that a snapshot can make the older
+ * ones obsolete.
+ */
+public class WriteAheadLog implements RideJournal, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition progress = lock.newCondition();
+    private final Thread writer;
+
+    // Guarded by lock.
+    private List<byte[]> pending = new ArrayList<>();
+    private long lastSequence;
+    private long durableSequence;
+    private long rotateAfter = -1;
+    private long segmentStart;
+    private IOException failure;
+    private boolean closed;
+
+    // Owned by the writer thread.
+    private FileChannel segment;
+    private ByteBuffer batch = ByteBuffer.allocateDirect(1 << 16);
+
+    private WriteAheadLog(Path directory, long lastSequence) throws IOException {
+        this.directory = directory;
+        this.lastSequence = lastSequence;
+        this.durableSequence = lastSequence;
+        this.segmentStart = lastSequence + 1;
+        this.segment = openSegment(segmentStart);
+        this.writer = new Thread(this::writeLoop, "ride-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Opens the log for appending, starting a new segment after the given sequence number.
+     *
+     * @param directory    The directory holding the segment files
+     * @param lastSequence The sequence number of the last event already recovered
+     * @return The open log
+     * @throws IOException if the new segment cannot be created
+     */
+    public static WriteAheadLog open(Path directory, long lastSequence) throws IOException {
+        Files.createDirectories(directory);
+        return new WriteAheadLog(directory, lastSequence);
+    }
+
+    /**
+     * Replays the events stored in a log directory, in sequence order.
+     * A frame that was only partially written when the process stopped ends its segment;
+     * the segment is truncated to its last complete frame.
+     *
+     * @param directory     The directory holding the segment files
+     * @param afterSequence Events up to and including this sequence number are skipped
+     * @param action        The action to run for each replayed event
+     * @return The sequence number of the last event in the log, or afterSequence if none is newer
+     * @throws IOException if a segment cannot be read
+     */
+    public static long replay(Path directory, long afterSequence, Consumer<RideEvent> action) throws IOException {
+        long last = afterSequence;
+        for (Path path : segments(directory)) {
+            long sequence = segmentStart(path);
+            long validLength = 0;
+            try (CountingInputStream in = new CountingInputStream(
+                    new BufferedInputStream(Files.newInputStream(path), READ_BUFFER_SIZE))) {
+                RideEvent event;
+                while ((event = RideEventCodec.read(in)) != null) {
+                    if (sequence > afterSequence) {
+                        action.accept(event);
+                    }
+                    last = Math.max(last, sequence);
+                    sequence++;
+                    validLength = in.count;
+                }
+            } catch (RideEventCodec.CorruptFrameException e) {
+                logger.warn("Truncating journal segment {} after {} bytes: {}", path, validLength, e.getMessage());
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(validLength);
+                    channel.force(true);
+                }
+            }
+        }
+        return last;
+    }
+
+    @Override
+    public long append(RideEvent event) {
+        byte[] frame = RideEventCodec.encode(event);
+        lock.lock();
+        try {
+            ensureWritable();
+            pending.add(frame);
+            workAvailable.signal();
+            return ++lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Ride journal is unavailable", failure);
+                }
+                progress.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the current segment once every event appended so far is durable and starts a new one.
+     *
+     * @return The sequence number of the last event in the closed segments
+     */
+    public long rotate() {
+        lock.lock();
+        try {
+            ensureWritable();
+            long boundary = lastSequence;
+            if (segmentStart > boundary) {
+                return boundary; // The current segment is still empty.
+            }
+            rotateAfter = boundary;
+            workAvailable.signal();
+            while (segmentStart <= boundary) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Ride journal is unavailable", failure);
+                }
+                progress.awaitUninterruptibly();
+            }
+            return boundary;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments that only hold events before the given sequence number.
+     *
+     * @param sequence The first sequence number that must be kept
+     * @throws IOException if a segment cannot be deleted
+     */
+    public void deleteSegmentsBefore(long sequence) throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i + 1 < segments.size() && segmentStart(segments.get(i + 1)) <= sequence; i++) {
+            Files.delete(segments.get(i));
+        }
+    }
+
+    /**
+     * Stops accepting events, waits for the queued ones to become durable and closes the current segment.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void ensureWritable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Ride journal is unavailable", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Ride journal is closed");
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<byte[]> frames;
+            long firstSequence;
+            long rotation;
+            lock.lock();
+            try {
+                while (pending.isEmpty() && rotateAfter < 0 && !closed) {
+                    workAvailable.awaitUninterruptibly();
+                }
+                if (pending.isEmpty() && rotateAfter < 0) {
+                    return;
+                }
+                frames = pending;
+                pending = new ArrayList<>();
+                firstSequence = durableSequence + 1;
+                rotation = rotateAfter;
+                rotateAfter = -1;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                // Frames up to the rotation boundary belong to the segment being closed.
+                int split = rotation < 0 ? frames.size() : (int) (rotation - firstSequence + 1);
+                write(frames.subList(0, split));
+                if (rotation >= 0) {
+                    segment.close();
+                    segment = openSegment(rotation + 1);
+                    write(frames.subList(split, frames.size()));
+                }
+            } catch (IOException e) {
+                logger.error("Ride journal write failed", e);
+                lock.lock();
+                try {
+                    failure = e;
+                    progress.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                durableSequence = firstSequence + frames.size() - 1;
+                if (rotation >= 0) {
+                    segmentStart = rotation + 1;
+                }
+                progress.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void write(List<byte[]> frames) throws IOException {
+        if (frames.isEmpty()) {
+            return;
+        }
+        int size = 0;
+        for (byte[] frame : frames) {
+            size += frame.length;
+        }
+        if (batch.capacity() < size) {
+            batch = ByteBuffer.allocateDirect(Integer.highestOneBit(size) << 1);
+        }
+        batch.clear();
+        for (byte[] frame : frames) {
+            batch.put(frame);
+        }
+        batch.flip();
+        while (batch.hasRemaining()) {
+            segment.write(batch);
+        }
+        segment.force(false);
+    }
+
+    private FileChannel openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        // Make the new file's directory entry durable before any event is acknowledged from it.
+        forceDirectory(directory);
+        return channel;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long segmentStart(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not every platform allows opening a directory; the file contents are still forced.
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
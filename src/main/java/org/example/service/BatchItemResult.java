@@ -0,0 +1,20 @@
+package org.example.service;
+
+/**
+ * Outcome of a single item in a batch request.
+ * Batch results are returned in the same order as the submitted items.
+ *
+ * @param id      The ID of the submitted item
+ * @param success Whether the item was applied
+ * @param message The confirmation or error message for the item
+ */
+public record BatchItemResult(String id, boolean success, String message) {
+
+    public static BatchItemResult succeeded(String id, String message) {
+        return new BatchItemResult(id, true, message);
+    }
+
+    public static BatchItemResult failed(String id, String message) {
+        return new BatchItemResult(id, false, message);
+    }
+}
@@ -0,0 +1,222 @@
+package org.example.service;
+
+import org.example.config.RideConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches riders in batches, so that riders competing for the same drivers are each given
+ * a different one instead of all being offered the closest.
+ * <p>
+ * Requests are collected for {@code ride.match.batch.window.millis} after the first of a
+ * window arrives, or until {@code ride.match.batch.max.riders} are waiting. Each rider's
+ * candidates come from the usual ring search, widened to as many drivers as there are
+ * riders in the batch, or {@code ride.max.matches} if that is more, so that a crowd of
+ * riders is not limited to the same few drivers; riders that share no candidate, directly or
+ * through other riders, are solved apart. Within a group, a {@link HungarianAssignment}
+ * first assigns as many riders as possible and then minimises their total pickup distance.
+ * Batches are solved one at a time on a single thread.
+ * <p>
+ * Where the riders of a batch compete for the same drivers, they form one group of n riders
+ * with n candidates each, solved in O(n^3) time: about 0.1 s at the default batch size of
+ * 100 and 5 s at 1000, during which the following batches wait. Raising
+ * {@code ride.match.batch.max.riders} trades that latency for fewer split crowds.
+ * <p>
+ * Assignments are not reservations: a driver is only taken once its ride starts, so a
+ * start with the assigned driver can still fail to a request made outside the batch.
+ */
+@Component
+public class BatchMatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchMatcher.class);
+
+    private final RideConfiguration config;
+    private final RideService rideService;
+    // Guarded by this.
+    private List<PendingMatch> pending = new ArrayList<>();
+    private ScheduledExecutorService solver;
+
+    public BatchMatcher(RideConfiguration config, RideService rideService) {
+        this.config = config;
+        this.rideService = rideService;
+    }
+
+    @PostConstruct
+    public void start() {
+        solver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ride-batch-match");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        solver.shutdown();
+        solver.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Queues a rider for the current batch.
+     *
+     * @param riderId The ID of the rider requesting a match
+     * @return The rider's assignment, completed once its batch has been solved
+     */
+    public CompletableFuture<RiderAssignment> match(String riderId) {
+        PendingMatch match = new PendingMatch(riderId, new CompletableFuture<>());
+        int waiting;
+        synchronized (this) {
+            pending.add(match);
+            waiting = pending.size();
+        }
+        // A window closed early by size leaves its timer behind, which only closes the next one early.
+        if (waiting >= config.getBatchMatchMaxRiders()) {
+            solver.execute(this::flush);
+        } else if (waiting == 1) {
+            solver.schedule(this::flush, config.getBatchMatchWindowMillis(), TimeUnit.MILLISECONDS);
+        }
+        return match.result();
+    }
+
+    /**
+     * Assigns drivers to a batch of riders at once. A rider listed more than once is
+     * assigned once.
+     *
+     * @param riderIds The IDs of the riders requesting a match
+     * @return Each distinct rider's assignment, in order of first appearance
+     */
+    public List<RiderAssignment> assign(List<String> riderIds) {
+        Set<String> distinctRiders = new LinkedHashSet<>(riderIds);
+        // A rider's best driver outside its n nearest can be swapped for one of them that none
+        // of the other n - 1 riders holds, so n candidates each keep an optimal assignment.
+        int limit = Math.max(distinctRiders.size(), config.getMaxMatches());
+        Map<String, MatchCandidates> candidates = new LinkedHashMap<>();
+        for (String riderId : distinctRiders) {
+            candidates.put(riderId, rideService.findNearbyDrivers(riderId, limit));
+        }
+        List<String> riders = new ArrayList<>(candidates.keySet());
+        Map<String, RiderAssignment> assignments = new HashMap<>();
+        for (List<String> group : groupBySharedDrivers(riders, candidates)) {
+            assignments.putAll(assignGroup(group, candidates));
+        }
+        List<RiderAssignment> results = new ArrayList<>(riders.size());
+        for (String riderId : riders) {
+            results.add(assignments.get(riderId));
+        }
+        return results;
+    }
+
+    private void flush() {
+        List<PendingMatch> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        try {
+            List<String> riderIds = batch.stream().map(PendingMatch::riderId).toList();
+            Map<String, RiderAssignment> assignments = new HashMap<>();
+            for (RiderAssignment assignment : assign(riderIds)) {
+                assignments.put(assignment.riderId(), assignment);
+            }
+            logger.debug("Assigned a batch of {} match requests", batch.size());
+            batch.forEach(match -> match.result().complete(assignments.get(match.riderId())));
+        } catch (RuntimeException e) {
+            logger.error("Error assigning a batch of {} match requests", batch.size(), e);
+            batch.forEach(match -> match.result().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Splits the riders into the connected groups of the graph in which a rider is linked to
+     * each of its candidate drivers.
+     */
+    private static List<List<String>> groupBySharedDrivers(List<String> riders,
+                                                          Map<String, MatchCandidates> candidates) {
+        int[] parent = new int[riders.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        Map<String, Integer> firstRiderOf = new HashMap<>();
+        for (int i = 0; i < riders.size(); i++) {
+            for (MatchCandidates.Candidate candidate : candidates.get(riders.get(i)).drivers()) {
+                Integer other = firstRiderOf.putIfAbsent(candidate.driverId(), i);
+                if (other != null) {
+                    parent[root(parent, i)] = root(parent, other);
+                }
+            }
+        }
+        Map<Integer, List<String>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < riders.size(); i++) {
+            groups.computeIfAbsent(root(parent, i), root -> new ArrayList<>()).add(riders.get(i));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static int root(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Assigns a group of riders to their candidate drivers. Every rider also has the option
+     * of going unassigned, costing more than all assigned distances together, so no
+     * assignment leaves a rider out that could have been served.
+     */
+    private Map<String, RiderAssignment> assignGroup(List<String> group, Map<String, MatchCandidates> candidates) {
+        List<String> drivers = new ArrayList<>();
+        Map<String, Integer> columnOf = new HashMap<>();
+        for (String riderId : group) {
+            for (MatchCandidates.Candidate candidate : candidates.get(riderId).drivers()) {
+                if (columnOf.putIfAbsent(candidate.driverId(), drivers.size()) == null) {
+                    drivers.add(candidate.driverId());
+                }
+            }
+        }
+
+        double unassigned = group.size() * config.getMaxDistanceRadius().doubleValue() + 1;
+        double excluded = 2 * unassigned;
+        double[][] cost = new double[group.size()][drivers.size() + group.size()];
+        for (int row = 0; row < group.size(); row++) {
+            for (int column = 0; column < cost[row].length; column++) {
+                cost[row][column] = column < drivers.size() ? excluded : unassigned;
+            }
+            for (MatchCandidates.Candidate candidate : candidates.get(group.get(row)).drivers()) {
+                cost[row][columnOf.get(candidate.driverId())] = candidate.distance();
+            }
+        }
+
+        int[] assigned = HungarianAssignment.solve(cost);
+        Map<String, RiderAssignment> assignments = new HashMap<>();
+        for (int row = 0; row < group.size(); row++) {
+            String riderId = group.get(row);
+            int column = assigned[row];
+            boolean served = column < drivers.size() && cost[row][column] < unassigned;
+            assignments.put(riderId, new RiderAssignment(riderId, served ? drivers.get(column) : null,
+                    served ? cost[row][column] : 0, candidates.get(riderId).surgeMultiplier()));
+        }
+        return assignments;
+    }
+
+    private record PendingMatch(String riderId, CompletableFuture<RiderAssignment> result) {}
+}
@@ -0,0 +1,121 @@
+package org.example.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of generated bills, keyed by ride ID.
+ * Only bills that exist are cached: a completed ride's bill never changes, as the ride is
+ * billed with the fare profile recorded at its start, whereas a ride that is still in
+ * progress gets its bill later. A change of fare rates therefore needs no invalidation.
+ * <p>
+ * Eviction is second-chance FIFO (CLOCK), an approximation of LRU in which a hit only sets
+ * a flag on the entry. Lookups therefore take no lock and allocate nothing; entries read
+ * since the eviction hand last passed them are kept for another round.
+ */
+public class BillCache {
+
+    private final int capacity;
+    private final Function<String, Optional<BillDetails>> loader;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<String> evictionOrder = new ConcurrentLinkedQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param capacity The maximum number of bills kept
+     * @param loader   Computes the bill of a ride, or an empty Optional if it has none yet
+     */
+    public BillCache(int capacity, Function<String, Optional<BillDetails>> loader) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Bill cache size must be greater than 0");
+        }
+        this.capacity = capacity;
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the bill of a ride, computing and caching it on a miss.
+     *
+     * @param rideId The ID of the ride
+     * @return The ride's bill, or an empty Optional if it has none yet
+     */
+    public Optional<BillDetails> get(String rideId) {
+        Entry entry = entries.get(rideId);
+        if (entry != null) {
+            hits.increment();
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.bill;
+        }
+
+        misses.increment();
+        Optional<BillDetails> bill = loader.apply(rideId);
+        if (bill.isPresent() && entries.putIfAbsent(rideId, new Entry(bill)) == null) {
+            evictionOrder.offer(rideId);
+            if (entries.size() > capacity) {
+                evict();
+            }
+        }
+        return bill;
+    }
+
+    /**
+     * @return The number of lookups answered from the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that had to compute the bill
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of bills currently cached
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        // Bounded so that concurrent hits re-flagging entries cannot keep the hand spinning.
+        for (int scanned = 0; ; scanned++) {
+            String rideId = evictionOrder.poll();
+            if (rideId == null) {
+                return;
+            }
+            Entry entry = entries.get(rideId);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.referenced && scanned < capacity) {
+                entry.referenced = false;
+                evictionOrder.offer(rideId);
+                continue;
+            }
+            entries.remove(rideId, entry);
+            return;
+        }
+    }
+
+    private static final class Entry {
+        private final Optional<BillDetails> bill;
+        private volatile boolean referenced;
+
+        private Entry(Optional<BillDetails> bill) {
+            this.bill = bill;
+        }
+    }
+}
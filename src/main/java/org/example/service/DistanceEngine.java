@@ -0,0 +1,53 @@
+package org.example.service;
+
+import org.example.model.Driver;
+
+/**
+ * Measures distances between coordinates, in a unit that depends on the engine.
+ */
+public interface DistanceEngine {
+
+    /**
+     * Calculates the distance between two points.
+     *
+     * @param startLatitude  Latitude of the first point
+     * @param startLongitude Longitude of the first point
+     * @param endLatitude    Latitude of the second point
+     * @param endLongitude   Longitude of the second point
+     * @return The distance between the two points
+     */
+    double distance(double startLatitude, double startLongitude, double endLatitude, double endLongitude);
+
+    /**
+     * Prepares the distance checks of one radius query, so that the work that depends only
+     * on the search centre is done once rather than per driver.
+     *
+     * @param latitude  Latitude of the search centre
+     * @param longitude Longitude of the search centre
+     * @param radius    Search radius in the engine's unit
+     * @return The prepared search
+     */
+    Search search(double latitude, double longitude, double radius);
+
+    /**
+     * Distance checks around a fixed search centre.
+     */
+    interface Search {
+
+        /**
+         * @return The half-width in degrees of a square around the centre that contains every
+         *         point within the search radius, for querying a {@link DriverIndex}
+         */
+        double degreeRadius();
+
+        /**
+         * Calculates the distance from the search centre to a driver. Drivers outside the
+         * bounding box of the search radius are rejected before any distance is computed.
+         *
+         * @param driver The driver
+         * @return The distance to the driver, or {@link Double#POSITIVE_INFINITY} if the
+         *         driver is outside the bounding box
+         */
+        double distanceTo(Driver driver);
+    }
+}
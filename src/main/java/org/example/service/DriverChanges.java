@@ -0,0 +1,73 @@
+package org.example.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Where drivers have last changed, on a grid of square cells, so that a repeated match can
+ * be skipped while nothing it could return has changed. Each change takes the next number
+ * of a sequence and raises the mark of its cell to it. Marks only grow, so once an area has
+ * changed its highest mark is larger than any value read from it before.
+ * <p>
+ * Marks are striped over a fixed array by cell, so that memory does not grow with the area
+ * covered; cells sharing a stripe only report each other's changes. Columns wrap around
+ * the antimeridian.
+ */
+final class DriverChanges {
+
+    private static final int STRIPES = 4096;
+
+    private final double cellSize;
+    private final int columns;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLongArray marks = new AtomicLongArray(STRIPES);
+
+    /**
+     * @param cellSize The side of a cell, in degrees
+     */
+    DriverChanges(double cellSize) {
+        this.cellSize = cellSize;
+        this.columns = (int) Math.ceil(360 / cellSize);
+    }
+
+    /**
+     * Records a change to the drivers at a location.
+     */
+    void record(double latitude, double longitude) {
+        long change = sequence.incrementAndGet();
+        marks.accumulateAndGet(stripe(cell(latitude), column(cell(longitude + 180))), change, Math::max);
+    }
+
+    /**
+     * @return The number of the last change recorded within the square of side
+     *         2 * degreeRadius centred on the location, or of a later one
+     */
+    long lastChange(double latitude, double longitude, double degreeRadius) {
+        long minRow = cell(latitude - degreeRadius);
+        long maxRow = cell(latitude + degreeRadius);
+        long minCol = cell(longitude + 180 - degreeRadius);
+        long maxCol = cell(longitude + 180 + degreeRadius);
+        if ((maxRow - minRow + 1) * Math.min(maxCol - minCol + 1, columns) > STRIPES) {
+            return sequence.get();
+        }
+        long last = 0;
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long col = minCol; col <= maxCol && col < minCol + columns; col++) {
+                last = Math.max(last, marks.get(stripe(row, column(col))));
+            }
+        }
+        return last;
+    }
+
+    private long cell(double degrees) {
+        return (long) Math.floor(degrees / cellSize);
+    }
+
+    private int column(long col) {
+        return (int) Math.floorMod(col, (long) columns);
+    }
+
+    private static int stripe(long row, int column) {
+        return (int) ((row * 31 + column) & (STRIPES - 1));
+    }
+}
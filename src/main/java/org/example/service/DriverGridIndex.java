@@ -0,0 +1,214 @@
+package org.example.service;
+
+import org.example.model.Driver;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Concurrent uniform-grid {@link DriverIndex}.
+ * The coordinate plane is divided into square cells of a fixed size (in degrees) and each
+ * cell holds the drivers currently located in it, so that radius queries only visit the
+ * cells overlapping the search circle instead of the whole fleet. A search reaching past
+ * the antimeridian also visits the cells on the other side of it.
+ * <p>
+ * A driver crossing into another cell is filed in the new cell before it leaves the old
+ * one, under the write lock of a {@link StampedLock}. Scans read optimistically and, if a
+ * crossing overlapped them, visit their cells again under the read lock, so a driver that
+ * moved from a cell not yet visited into one already visited is still found.
+ */
+public class DriverGridIndex implements DriverIndex {
+
+    private final double cellSize;
+    private final Map<Long, Set<Driver>> cells = new ConcurrentHashMap<>();
+    private final StampedLock crossings = new StampedLock();
+
+    /**
+     * Constructs an empty index.
+     *
+     * @param cellSize The edge length of a grid cell in degrees
+     */
+    public DriverGridIndex(double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Grid cell size must be greater than 0");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds a driver to the cell covering its current location.
+     *
+     * @param driver The driver to index
+     */
+    @Override
+    public void add(Driver driver) {
+        addToCell(cellKey(driver.getLatitude(), driver.getLongitude()), driver);
+    }
+
+    /**
+     * Removes a driver from the cell covering its current location.
+     * Cells left empty are dropped so the index does not grow with visited area.
+     *
+     * @param driver The driver to remove
+     */
+    @Override
+    public void remove(Driver driver) {
+        removeFromCell(cellKey(driver.getLatitude(), driver.getLongitude()), driver);
+    }
+
+    /**
+     * Moves a driver to a new location, re-filing it only when it crosses into another cell.
+     * Drivers that are not indexed (for example while on a ride) just have their location updated.
+     *
+     * @param driver    The driver to move
+     * @param latitude  The new latitude of the driver's location
+     * @param longitude The new longitude of the driver's location
+     */
+    @Override
+    public void move(Driver driver, double latitude, double longitude) {
+        long from = cellKey(driver.getLatitude(), driver.getLongitude());
+        long to = cellKey(latitude, longitude);
+        if (from == to) {
+            driver.updateLocation(latitude, longitude);
+            return;
+        }
+        Set<Driver> cell = cells.get(from);
+        if (cell == null || !cell.contains(driver)) {
+            driver.updateLocation(latitude, longitude);
+            return;
+        }
+        long stamp = crossings.writeLock();
+        try {
+            addToCell(to, driver);
+            driver.updateLocation(latitude, longitude);
+            removeFromCell(from, driver);
+        } finally {
+            crossings.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Visits the indexed drivers located in the cells that overlap the circle of the given
+     * radius around a point. Cells are dealt round-robin to the partitions, so a single
+     * crowded cell is never split.
+     */
+    @Override
+    public void forEachCandidate(double latitude, double longitude, double radius,
+                                 int partition, int partitions, Consumer<Driver> action) {
+        long stamp = crossings.tryOptimisticRead();
+        visitCells(latitude, longitude, radius, partition, partitions, action);
+        if (crossings.validate(stamp)) {
+            return;
+        }
+        stamp = crossings.readLock();
+        try {
+            visitCells(latitude, longitude, radius, partition, partitions, action);
+        } finally {
+            crossings.unlockRead(stamp);
+        }
+    }
+
+    private void visitCells(double latitude, double longitude, double radius,
+                            int partition, int partitions, Consumer<Driver> action) {
+        int minRow = cellIndex(latitude - radius);
+        int maxRow = cellIndex(latitude + radius);
+        Columns columns = columns(longitude, radius);
+
+        long cols = columns.count();
+        long cellsInRange = (maxRow - minRow + 1) * cols;
+        if (cellsInRange > cells.size()) {
+            // Probing empty cells would cost more than walking the occupied ones.
+            cells.forEach((key, cell) -> {
+                int row = (int) (key >> 32);
+                int col = (int) (long) key;
+                if (row >= minRow && row <= maxRow && columns.contains(col)
+                        && Math.floorMod(Long.hashCode(key), partitions) == partition) {
+                    cell.forEach(action);
+                }
+            });
+            return;
+        }
+
+        for (long i = partition; i < cellsInRange; i += partitions) {
+            Set<Driver> cell = cells.get(pack(minRow + (int) (i / cols), columns.get(i % cols)));
+            if (cell != null) {
+                cell.forEach(action);
+            }
+        }
+    }
+
+    /**
+     * The columns of the cells within the given radius of a longitude. A range reaching past
+     * the antimeridian continues from the other side of it, as a second run of columns.
+     */
+    private Columns columns(double longitude, double radius) {
+        int westmost = cellIndex(-180);
+        int eastmost = cellIndex(180);
+        if (radius >= 180) {
+            return new Columns(westmost, eastmost, 0, -1);
+        }
+        if (longitude - radius < -180) {
+            int max = cellIndex(longitude + radius);
+            return new Columns(westmost, max, Math.max(cellIndex(longitude - radius + 360), max + 1), eastmost);
+        }
+        if (longitude + radius > 180) {
+            int min = cellIndex(longitude - radius);
+            return new Columns(min, eastmost, westmost, Math.min(cellIndex(longitude + radius - 360), min - 1));
+        }
+        return new Columns(cellIndex(longitude - radius), cellIndex(longitude + radius), 0, -1);
+    }
+
+    private void addToCell(long key, Driver driver) {
+        cells.compute(key, (k, cell) -> {
+            Set<Driver> drivers = cell != null ? cell : ConcurrentHashMap.newKeySet();
+            drivers.add(driver);
+            return drivers;
+        });
+    }
+
+    private void removeFromCell(long key, Driver driver) {
+        cells.computeIfPresent(key, (k, cell) -> {
+            cell.remove(driver);
+            return cell.isEmpty() ? null : cell;
+        });
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return pack(cellIndex(latitude), cellIndex(longitude));
+    }
+
+    private int cellIndex(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long pack(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Two disjoint runs of columns, from min to max and from wrapMin to wrapMax; the second
+     * is empty unless a search reaches across the antimeridian.
+     */
+    private record Columns(int min, int max, int wrapMin, int wrapMax) {
+
+        long count() {
+            return (long) (max - min + 1) + Math.max(0, wrapMax - wrapMin + 1);
+        }
+
+        /**
+         * @param i A position from 0 to count() - 1
+         * @return The column at that position, counting the first run before the second
+         */
+        int get(long i) {
+            long first = max - min + 1;
+            return (int) (i < first ? min + i : wrapMin + i - first);
+        }
+
+        boolean contains(int col) {
+            return col >= min && col <= max || col >= wrapMin && col <= wrapMax;
+        }
+    }
+}
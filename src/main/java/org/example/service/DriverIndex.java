@@ -0,0 +1,66 @@
+package org.example.service;
+
+import org.example.model.Driver;
+
+import java.util.function.Consumer;
+
+/**
+ * Spatial index of the drivers available for matching.
+ * A driver's position in the index is derived from its current coordinates, so callers
+ * must serialise {@link #add}, {@link #remove} and {@link #move} for the same driver.
+ */
+public interface DriverIndex {
+
+    /**
+     * Adds a driver at its current location. Adding an indexed driver has no effect.
+     *
+     * @param driver The driver to index
+     */
+    void add(Driver driver);
+
+    /**
+     * Removes a driver. Removing a driver that is not indexed has no effect.
+     *
+     * @param driver The driver to remove
+     */
+    void remove(Driver driver);
+
+    /**
+     * Moves a driver to a new location, updating the index if the driver is in it.
+     *
+     * @param driver    The driver to move
+     * @param latitude  The new latitude of the driver's location
+     * @param longitude The new longitude of the driver's location
+     */
+    void move(Driver driver, double latitude, double longitude);
+
+    /**
+     * Visits every indexed driver that may lie within the given radius of a point, on
+     * either side of the antimeridian if the radius reaches past it.
+     * Callers still have to apply the exact distance check, and must tolerate being shown a
+     * driver twice if it moves concurrently.
+     *
+     * @param latitude  Latitude of the search centre
+     * @param longitude Longitude of the search centre
+     * @param radius    Search radius in degrees
+     * @param action    The action to run for each candidate driver
+     */
+    default void forEachCandidate(double latitude, double longitude, double radius, Consumer<Driver> action) {
+        forEachCandidate(latitude, longitude, radius, 0, 1, action);
+    }
+
+    /**
+     * Visits one partition of the candidates of {@link #forEachCandidate(double, double, double, Consumer)}.
+     * The partitions of a query are disjoint and together cover all of its candidates, so
+     * they can be scanned concurrently.
+     *
+     * @param latitude   Latitude of the search centre
+     * @param longitude  Longitude of the search centre
+     * @param radius     Search radius in degrees
+     * @param partition  The partition to visit, from 0 to partitions - 1
+     * @param partitions The number of partitions the query is split into
+     * @param action     The action to run for each candidate driver
+     */
+    void forEachCandidate(double latitude, double longitude, double radius,
+                          int partition, int partitions, Consumer<Driver> action);
+}
@@ -0,0 +1,36 @@
+package org.example.service;
+
+import org.example.model.Driver;
+
+/**
+ * {@link DistanceEngine} treating coordinates as planar, with distances in degrees.
+ */
+public class EuclideanDistanceEngine implements DistanceEngine {
+
+    @Override
+    public double distance(double startLatitude, double startLongitude, double endLatitude, double endLongitude) {
+        double xDiff = endLatitude - startLatitude;
+        double yDiff = endLongitude - startLongitude;
+        return Math.sqrt(xDiff * xDiff + yDiff * yDiff);
+    }
+
+    @Override
+    public Search search(double latitude, double longitude, double radius) {
+        return new Search() {
+            @Override
+            public double degreeRadius() {
+                return radius;
+            }
+
+            @Override
+            public double distanceTo(Driver driver) {
+                double xDiff = driver.getLatitude() - latitude;
+                double yDiff = driver.getLongitude() - longitude;
+                if (Math.abs(xDiff) > radius || Math.abs(yDiff) > radius) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                return Math.sqrt(xDiff * xDiff + yDiff * yDiff);
+            }
+        };
+    }
+}
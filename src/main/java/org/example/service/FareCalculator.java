@@ -0,0 +1,172 @@
+package org.example.service;
+
+import org.example.config.DistanceArithmetic;
+import org.example.config.DistanceEngineType;
+import org.example.config.FareProfile;
+import org.example.config.FareProfiles;
+import org.example.config.RideConfiguration;
+import org.example.model.Ride;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Computes distances and fares for the ride service.
+ * Distances are measured by the {@link DistanceEngine} selected by {@code ride.distance.engine}.
+ * The arithmetic is selected by {@code ride.distance.arithmetic}: DOUBLE measures distances
+ * on primitives, BIG_DECIMAL uses the original BigDecimal implementation for planar
+ * distances. Either way the fare itself is summed in BigDecimal, so both produce the same
+ * fare once rounded to cents, half-cent ties included. Rates come from the ride's
+ * {@link FareProfile}, whose taxed coefficients are computed once per profile.
+ */
+@Component
+public class FareCalculator {
+
+    private final RideConfiguration config;
+    private final FareProfiles fareProfiles;
+    private final DistanceArithmetic arithmetic;
+    private final MathContext distanceContext;
+    private final DistanceEngine engine;
+    private final boolean planar;
+
+    public FareCalculator(RideConfiguration config, FareProfiles fareProfiles) {
+        this.config = config;
+        this.fareProfiles = fareProfiles;
+        this.arithmetic = config.getDistanceArithmetic();
+        this.distanceContext = config.getDistanceCalculationContext();
+        this.engine = switch (config.getDistanceEngine()) {
+            case EUCLIDEAN -> new EuclideanDistanceEngine();
+            case HAVERSINE -> new HaversineDistanceEngine();
+            case EQUIRECTANGULAR -> new EquirectangularDistanceEngine();
+        };
+        this.planar = config.getDistanceEngine() == DistanceEngineType.EUCLIDEAN;
+    }
+
+    /**
+     * @return The fare profile that rides starting now are billed with
+     */
+    public FareProfile currentProfile() {
+        return fareProfiles.current();
+    }
+
+    /**
+     * Calculates the distance between two points with the configured engine and arithmetic.
+     *
+     * @param startLatitude  Latitude of the first point
+     * @param startLongitude Longitude of the first point
+     * @param endLatitude    Latitude of the second point
+     * @param endLongitude   Longitude of the second point
+     * @return The distance between the two points
+     */
+    public double distance(double startLatitude, double startLongitude, double endLatitude, double endLongitude) {
+        if (planar && arithmetic == DistanceArithmetic.BIG_DECIMAL) {
+            return calculateDistance(
+                    BigDecimal.valueOf(startLatitude),
+                    BigDecimal.valueOf(startLongitude),
+                    BigDecimal.valueOf(endLatitude),
+                    BigDecimal.valueOf(endLongitude)
+            ).doubleValue();
+        }
+        return engine.distance(startLatitude, startLongitude, endLatitude, endLongitude);
+    }
+
+    /**
+     * Prepares a radius query around a point with the configured engine.
+     * Drivers are matched in double arithmetic whatever {@code ride.distance.arithmetic} is.
+     *
+     * @param latitude  Latitude of the search centre
+     * @param longitude Longitude of the search centre
+     * @param radius    Search radius in the engine's unit
+     * @return The prepared search
+     */
+    public DistanceEngine.Search search(double latitude, double longitude, double radius) {
+        return engine.search(latitude, longitude, radius);
+    }
+
+    /**
+     * Calculates the total fare for a completed ride with the configured arithmetic.
+     *
+     * @param ride The Ride object for which to calculate the fare.
+     * @return A BigDecimal representing the unrounded total fare for the ride.
+     */
+    public BigDecimal calculateFare(Ride ride) {
+        return calculateFare(ride, arithmetic);
+    }
+
+    /**
+     * Calculates the total fare for a completed ride with the given arithmetic.
+     * The ride is billed with the fare profile it recorded at its start, or with the current
+     * profile if it recorded none, and the fare is multiplied by the ride's surge multiplier.
+     *
+     * @param ride       The Ride object for which to calculate the fare.
+     * @param arithmetic The arithmetic to use
+     * @return A BigDecimal representing the unrounded total fare for the ride.
+     */
+    public BigDecimal calculateFare(Ride ride, DistanceArithmetic arithmetic) {
+        FareProfile profile = ride.getFareProfile() != null ? ride.getFareProfile() : fareProfiles.current();
+        if (arithmetic == DistanceArithmetic.BIG_DECIMAL) {
+            return calculateExactFare(ride, profile).multiply(ride.getSurgeMultiplier());
+        }
+
+        // Round like the BigDecimal path so both agree on the distance.
+        double distance = roundToPrecision(engineDistance(ride), distanceContext.getPrecision());
+
+        // A sum in double can land either side of a half cent, so the fare is summed exactly.
+        return profile.fare(BigDecimal.valueOf(distance), BigDecimal.valueOf(ride.getDuration()))
+                .multiply(ride.getSurgeMultiplier());
+    }
+
+    /**
+     * Calculates the planar distance between two points using BigDecimal arithmetic.
+     *
+     * @param startLatitude  Latitude of the first point
+     * @param startLongitude Longitude of the first point
+     * @param endLatitude    Latitude of the second point
+     * @param endLongitude   Longitude of the second point
+     * @return The calculated distance in degrees as a BigDecimal.
+     */
+    public BigDecimal calculateDistance(BigDecimal startLatitude, BigDecimal startLongitude,
+                                        BigDecimal endLatitude, BigDecimal endLongitude) {
+        if (config.getMaxDistanceRadius() == null) {
+            throw new IllegalStateException("Max distance radius is not configured");
+        }
+
+        BigDecimal xDiff = endLatitude.subtract(startLatitude);
+        BigDecimal yDiff = endLongitude.subtract(startLongitude);
+        BigDecimal xDiffSquared = xDiff.multiply(xDiff);
+        BigDecimal yDiffSquared = yDiff.multiply(yDiff);
+
+        return xDiffSquared.add(yDiffSquared).sqrt(distanceContext);
+    }
+
+    private BigDecimal calculateExactFare(Ride ride, FareProfile profile) {
+        // Spherical distances need trigonometry, so only their fare is computed in BigDecimal.
+        BigDecimal distance = planar
+                ? calculateDistance(
+                        BigDecimal.valueOf(ride.getStartLatitude()),
+                        BigDecimal.valueOf(ride.getStartLongitude()),
+                        BigDecimal.valueOf(ride.getEndLatitude()),
+                        BigDecimal.valueOf(ride.getEndLongitude()))
+                : BigDecimal.valueOf(roundToPrecision(engineDistance(ride), distanceContext.getPrecision()));
+        return profile.fare(distance, BigDecimal.valueOf(ride.getDuration()));
+    }
+
+    private double engineDistance(Ride ride) {
+        return engine.distance(ride.getStartLatitude(), ride.getStartLongitude(),
+                ride.getEndLatitude(), ride.getEndLongitude());
+    }
+
+    /**
+     * Rounds a value half-up to the given number of significant digits, mirroring
+     * {@link BigDecimal#round(MathContext)} for the precisions a double can represent.
+     */
+    private static double roundToPrecision(double value, int precision) {
+        if (value == 0 || precision == 0 || precision > 15 || !Double.isFinite(value)) {
+            return value;
+        }
+        int shift = precision - 1 - (int) Math.floor(Math.log10(Math.abs(value)));
+        double scale = Math.pow(10, Math.abs(shift));
+        return shift >= 0 ? Math.round(value * scale) / scale : Math.round(value / scale) * scale;
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.service;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The current value for each handle of an {@link IdRegistry}, held in an array indexed by
+ * handle so that lookups are a bounds check and a volatile read. Writes are serialised on
+ * the table's monitor, which also covers growing the array; reads and iteration take no
+ * lock and, like those of a concurrent map, may or may not see concurrent writes.
+ *
+ * @param <T> The type of value
+ */
+final class HandleTable<T> implements Iterable<T> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private volatile AtomicReferenceArray<T> slots = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * @param handle A handle, or {@link IdRegistry#NONE}
+     * @return The handle's value, or null if it has none
+     */
+    T get(int handle) {
+        AtomicReferenceArray<T> current = slots;
+        return handle >= 0 && handle < current.length() ? current.get(handle) : null;
+    }
+
+    /**
+     * Sets the value of a handle.
+     *
+     * @param handle A handle issued by the registry
+     * @param value  The new value
+     * @return The handle's previous value, or null if it had none
+     */
+    synchronized T put(int handle, T value) {
+        AtomicReferenceArray<T> current = slots;
+        if (handle >= current.length()) {
+            AtomicReferenceArray<T> grown = new AtomicReferenceArray<>(Math.max(handle + 1, current.length() * 2));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            slots = grown;
+            current = grown;
+        }
+        T previous = current.getAndSet(handle, value);
+        if (previous == null) {
+            count.incrementAndGet();
+        }
+        return previous;
+    }
+
+    /**
+     * Clears a handle's value if it is still the given one.
+     *
+     * @param handle   A handle, or {@link IdRegistry#NONE}
+     * @param expected The value to remove
+     * @return Whether the value was removed
+     */
+    synchronized boolean remove(int handle, T expected) {
+        AtomicReferenceArray<T> current = slots;
+        if (handle < 0 || handle >= current.length() || !current.compareAndSet(handle, expected, null)) {
+            return false;
+        }
+        count.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return The number of handles with a value
+     */
+    int size() {
+        return count.get();
+    }
+
+    /**
+     * Iterates over the values in handle order, skipping handles without one.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        AtomicReferenceArray<T> current = slots;
+        return new Iterator<>() {
+            private int handle = -1;
+            private T next = advance();
+
+            private T advance() {
+                while (++handle < current.length()) {
+                    T value = current.get(handle);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                T value = next;
+                next = advance();
+                return value;
+            }
+        };
+    }
+}
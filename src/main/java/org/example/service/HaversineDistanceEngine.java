@@ -0,0 +1,16 @@
+package org.example.service;
+
+/**
+ * {@link DistanceEngine} measuring great-circle distances in kilometres with the haversine formula.
+ */
+public class HaversineDistanceEngine extends SphericalDistanceEngine {
+
+    @Override
+    double sphericalDistance(double startCosLatitude, double endCosLatitude,
+                             double latitudeDifference, double longitudeDifference) {
+        double sinLatitude = Math.sin(Math.toRadians(latitudeDifference) / 2);
+        double sinLongitude = Math.sin(Math.toRadians(longitudeDifference) / 2);
+        double haversine = sinLatitude * sinLatitude + startCosLatitude * endCosLatitude * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(haversine)));
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.service;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment of rows to distinct columns by the Hungarian method, in the
+ * shortest-augmenting-path form with row and column potentials. Each row is added with
+ * one Dijkstra-like pass over the columns, so solving n rows against m columns takes
+ * O(n^2 m) time and O(m) memory besides the cost matrix.
+ */
+public final class HungarianAssignment {
+
+    private HungarianAssignment() {
+    }
+
+    /**
+     * Assigns every row to a different column so that the total cost is minimal.
+     *
+     * @param cost The cost of assigning each row to each column; finite, with at least as
+     *             many columns as rows
+     * @return The column assigned to each row
+     * @throws IllegalArgumentException if there are more rows than columns or the rows differ in length
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        int columns = rows == 0 ? 0 : cost[0].length;
+        if (rows > columns) {
+            throw new IllegalArgumentException("Cannot assign " + rows + " rows to " + columns + " columns");
+        }
+        for (double[] row : cost) {
+            if (row.length != columns) {
+                throw new IllegalArgumentException("Cost rows must all have the same length");
+            }
+        }
+
+        // 1-based: column 0 is a virtual column holding the row being added.
+        double[] rowPotential = new double[rows + 1];
+        double[] columnPotential = new double[columns + 1];
+        int[] rowOf = new int[columns + 1];
+        int[] previous = new int[columns + 1];
+        double[] slack = new double[columns + 1];
+        boolean[] visited = new boolean[columns + 1];
+        for (int row = 1; row <= rows; row++) {
+            rowOf[0] = row;
+            int column = 0;
+            Arrays.fill(slack, Double.POSITIVE_INFINITY);
+            Arrays.fill(visited, false);
+            do {
+                visited[column] = true;
+                int current = rowOf[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int next = 0;
+                for (int j = 1; j <= columns; j++) {
+                    if (visited[j]) {
+                        continue;
+                    }
+                    double reduced = cost[current - 1][j - 1] - rowPotential[current] - columnPotential[j];
+                    if (reduced < slack[j]) {
+                        slack[j] = reduced;
+                        previous[j] = column;
+                    }
+                    if (slack[j] < delta) {
+                        delta = slack[j];
+                        next = j;
+                    }
+                }
+                for (int j = 0; j <= columns; j++) {
+                    if (visited[j]) {
+                        rowPotential[rowOf[j]] += delta;
+                        columnPotential[j] -= delta;
+                    } else {
+                        slack[j] -= delta;
+                    }
+                }
+                column = next;
+            } while (rowOf[column] != 0);
+            // Flip the augmenting path back to the virtual column.
+            do {
+                int before = previous[column];
+                rowOf[column] = rowOf[before];
+                column = before;
+            } while (column != 0);
+        }
+
+        int[] assignment = new int[rows];
+        for (int j = 1; j <= columns; j++) {
+            if (rowOf[j] != 0) {
+                assignment[rowOf[j] - 1] = j - 1;
+            }
+        }
+        return assignment;
+    }
+}
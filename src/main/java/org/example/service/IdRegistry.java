@@ -0,0 +1,87 @@
+package org.example.service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns external string IDs as dense int handles, numbered from 0 in order of first
+ * registration. A handle is never reused, so it names the same ID for the life of the
+ * registry, including after whatever it identified has been removed.
+ * <p>
+ * Callers hash an ID once, at the service boundary, and work with its handle from then on:
+ * tables indexed by handle replace hash lookups, and only the strings of results leaving
+ * the service are read back. Lookups take no lock; registering a new ID takes the
+ * registry's monitor.
+ */
+public final class IdRegistry {
+
+    /**
+     * The handle returned for an ID that has never been registered.
+     */
+    public static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, Integer> handles = new ConcurrentHashMap<>();
+    // Written under this; ids is replaced before size is raised past its old length.
+    private volatile String[] ids = new String[INITIAL_CAPACITY];
+    private volatile int size;
+
+    /**
+     * Returns the handle of an ID, registering the ID if it is new.
+     *
+     * @param id The external ID
+     * @return The ID's handle
+     */
+    public int intern(String id) {
+        Integer handle = handles.get(id);
+        if (handle != null) {
+            return handle;
+        }
+        synchronized (this) {
+            handle = handles.get(id);
+            if (handle != null) {
+                return handle;
+            }
+            int next = size;
+            String[] current = ids;
+            if (next == current.length) {
+                current = Arrays.copyOf(current, next * 2);
+            }
+            current[next] = id;
+            ids = current;
+            size = next + 1;
+            handles.put(id, next);
+            return next;
+        }
+    }
+
+    /**
+     * @param id The external ID
+     * @return The ID's handle, or {@link #NONE} if it has never been registered
+     */
+    public int find(String id) {
+        Integer handle = handles.get(id);
+        return handle == null ? NONE : handle;
+    }
+
+    /**
+     * @param handle A handle returned by {@link #intern}
+     * @return The ID the handle was issued for
+     * @throws IllegalArgumentException if no ID has that handle
+     */
+    public String idOf(int handle) {
+        if (handle < 0 || handle >= size) {
+            throw new IllegalArgumentException("Unknown handle " + handle);
+        }
+        return ids[handle];
+    }
+
+    /**
+     * @return The number of IDs registered, which is also the next handle to be issued
+     */
+    public int size() {
+        return size;
+    }
+}
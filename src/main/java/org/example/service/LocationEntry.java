@@ -0,0 +1,13 @@
+package org.example.service;
+
+/**
+ * An ID with a location, as submitted in batch driver, rider and location-update requests.
+ * The coordinates are boxed so that an item missing one is reported as failed rather than
+ * placed at 0.
+ *
+ * @param id        The driver or rider ID
+ * @param latitude  The latitude of the location, or null if the item has none
+ * @param longitude The longitude of the location, or null if the item has none
+ */
+public record LocationEntry(String id, Double latitude, Double longitude) {
+}
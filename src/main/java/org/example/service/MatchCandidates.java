@@ -0,0 +1,26 @@
+package org.example.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The drivers closest to a location together with their distances, so that candidates
+ * found by separate searches can be merged into one ranking.
+ *
+ * @param drivers         The closest available drivers, closest first, at most {@code ride.max.matches}
+ * @param radius          The search radius at which the drivers were found
+ * @param surgeMultiplier The surge multiplier currently in force at the location
+ */
+public record MatchCandidates(List<Candidate> drivers, double radius, BigDecimal surgeMultiplier) {
+
+    /**
+     * The candidates of a rider that is not registered.
+     */
+    public static final MatchCandidates NONE = new MatchCandidates(List.of(), 0, BigDecimal.ONE);
+
+    /**
+     * A matched driver and its distance from the searched location, in the unit of the
+     * configured {@link DistanceEngine}.
+     */
+    public record Candidate(String driverId, double distance) {}
+}
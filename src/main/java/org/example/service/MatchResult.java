@@ -0,0 +1,28 @@
+package org.example.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The outcome of matching a rider with nearby drivers.
+ *
+ * @param driverIds       The matched driver IDs, closest first
+ * @param radius          The search radius at which the match was made; the configured
+ *                        ceiling when fewer than {@code ride.max.matches} drivers were found
+ * @param surgeMultiplier The surge multiplier a ride started at the rider's location would
+ *                        currently be billed with
+ */
+public record MatchResult(List<String> driverIds, double radius, BigDecimal surgeMultiplier) {
+
+    /**
+     * The result for a rider that is not registered.
+     */
+    public static final MatchResult NONE = new MatchResult(List.of(), 0);
+
+    /**
+     * A match made without surge.
+     */
+    public MatchResult(List<String> driverIds, double radius) {
+        this(driverIds, radius, BigDecimal.ONE);
+    }
+}
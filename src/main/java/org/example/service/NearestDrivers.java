@@ -0,0 +1,174 @@
+package org.example.service;
+
+import org.example.model.Driver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Bounded collector of the drivers closest to a point.
+ * Candidates are kept in a max-heap keyed by distance, so the farthest retained driver is
+ * evicted in O(log K) when a closer one is offered and the heap never holds more than K
+ * entries. Ties on distance are broken by driver ID to keep the result order stable
+ * between a MATCH and the START_RIDE that indexes into it, and so that collectors filled
+ * from disjoint partitions merge into exactly the result of a single scan. A driver offered
+ * again, as a scan can see one moving between grid cells, is retained only once.
+ */
+class NearestDrivers {
+
+    private static final Comparator<Candidate> BY_PROXIMITY = Comparator
+            .comparingDouble(Candidate::distance)
+            .thenComparing(candidate -> candidate.driver().getId());
+
+    private static final int[] NO_HANDLES = new int[0];
+
+    private final int limit;
+    private final PriorityQueue<Candidate> farthestFirst;
+    private int scanned;
+
+    NearestDrivers(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Match limit must be greater than 0");
+        }
+        this.limit = limit;
+        this.farthestFirst = new PriorityQueue<>(limit, BY_PROXIMITY.reversed());
+    }
+
+    /**
+     * Offers a driver at the given distance, keeping it only if it is among the K closest seen so far.
+     *
+     * @param driver   The candidate driver
+     * @param distance The candidate's distance from the search point
+     */
+    void offer(Driver driver, double distance) {
+        boolean full = farthestFirst.size() == limit;
+        if (full) {
+            Candidate farthest = farthestFirst.peek();
+            if (distance > farthest.distance()
+                    || (distance == farthest.distance() && driver.getId().compareTo(farthest.driver().getId()) >= 0)) {
+                return;
+            }
+        }
+        if (isRetained(driver)) {
+            return;
+        }
+        if (full) {
+            farthestFirst.poll();
+        }
+        farthestFirst.offer(new Candidate(driver, distance));
+    }
+
+    /**
+     * Tells whether a driver, or another record registered under its handle, is retained.
+     * A linear pass, as at most K drivers are ever retained.
+     */
+    private boolean isRetained(Driver driver) {
+        int handle = driver.getHandle();
+        for (Candidate candidate : farthestFirst) {
+            Driver retained = candidate.driver();
+            if (retained == driver || (handle >= 0 && retained.getHandle() == handle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if K drivers have been retained, so closer drivers can only displace them
+     */
+    boolean isFull() {
+        return farthestFirst.size() == limit;
+    }
+
+    /**
+     * @return The number of drivers retained
+     */
+    int size() {
+        return farthestFirst.size();
+    }
+
+    /**
+     * Counts a driver examined by the search, whether or not it is offered.
+     */
+    void countScanned() {
+        scanned++;
+    }
+
+    /**
+     * @return The number of drivers examined by the search
+     */
+    int getScanned() {
+        return scanned;
+    }
+
+    /**
+     * Folds the drivers retained by another collector into this one.
+     *
+     * @param other A collector with the same limit, filled from a disjoint set of drivers
+     * @return This collector
+     */
+    NearestDrivers merge(NearestDrivers other) {
+        for (Candidate candidate : other.farthestFirst) {
+            offer(candidate.driver(), candidate.distance());
+        }
+        scanned += other.scanned;
+        return this;
+    }
+
+    /**
+     * @return The retained drivers' IDs, closest first
+     */
+    List<String> toSortedIds() {
+        if (farthestFirst.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Candidate[] candidates = sorted();
+        List<String> ids = new ArrayList<>(candidates.length);
+        for (Candidate candidate : candidates) {
+            ids.add(candidate.driver().getId());
+        }
+        return ids;
+    }
+
+    /**
+     * @return The retained drivers' registry handles, closest first
+     */
+    int[] toSortedHandles() {
+        if (farthestFirst.isEmpty()) {
+            return NO_HANDLES;
+        }
+        Candidate[] candidates = sorted();
+        int[] handles = new int[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            handles[i] = candidates[i].driver().getHandle();
+        }
+        return handles;
+    }
+
+    /**
+     * @return The retained drivers' IDs with their distances, closest first
+     */
+    List<MatchCandidates.Candidate> toSortedCandidates() {
+        if (farthestFirst.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Candidate[] candidates = sorted();
+        List<MatchCandidates.Candidate> sorted = new ArrayList<>(candidates.length);
+        for (Candidate candidate : candidates) {
+            sorted.add(new MatchCandidates.Candidate(candidate.driver().getId(), candidate.distance()));
+        }
+        return sorted;
+    }
+
+    private Candidate[] sorted() {
+        Candidate[] candidates = farthestFirst.toArray(new Candidate[0]);
+        Arrays.sort(candidates, BY_PROXIMITY);
+        return candidates;
+    }
+
+    private record Candidate(Driver driver, double distance) {}
+}
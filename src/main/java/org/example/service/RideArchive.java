@@ -0,0 +1,40 @@
+package org.example.service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cold storage for the bills of completed rides that {@link RideService} has evicted
+ * from memory.
+ */
+public interface RideArchive {
+
+    /**
+     * Archive that keeps nothing, used while archival is disabled.
+     */
+    RideArchive NONE = new RideArchive() {
+        @Override
+        public void append(List<BillDetails> bills) {
+        }
+
+        @Override
+        public Optional<BillDetails> find(String rideId) {
+            return Optional.empty();
+        }
+    };
+
+    /**
+     * Stores bills durably; the rides they belong to may be dropped from memory once this returns.
+     *
+     * @param bills The bills to store
+     */
+    void append(List<BillDetails> bills);
+
+    /**
+     * Looks up the bill of an archived ride.
+     *
+     * @param rideId The ID of the ride
+     * @return The ride's bill, or an empty Optional if the ride was never archived
+     */
+    Optional<BillDetails> find(String rideId);
+}
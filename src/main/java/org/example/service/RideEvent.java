@@ -0,0 +1,75 @@
+package org.example.service;
+
+import org.example.config.FareProfile;
+
+import java.math.BigDecimal;
+
+/**
+ * A state change applied by {@link RideService}.
+ * Events carry everything needed to re-apply the change, so the in-memory state can be
+ * rebuilt by replaying them in order.
+ */
+public sealed interface RideEvent {
+
+    /**
+     * A driver was added or re-registered.
+     */
+    record DriverAdded(String driverId, double latitude, double longitude) implements RideEvent {}
+
+    /**
+     * An existing driver moved to a new location.
+     */
+    record DriverMoved(String driverId, double latitude, double longitude) implements RideEvent {}
+
+    /**
+     * An available driver was taken out of this service, to be registered elsewhere.
+     */
+    record DriverRemoved(String driverId) implements RideEvent {}
+
+    /**
+     * A rider was added or re-registered.
+     */
+    record RiderAdded(String riderId, double latitude, double longitude) implements RideEvent {}
+
+    /**
+     * A ride was started with the given driver from the rider's location at that time,
+     * billed with the surge multiplier of that location and the fare profile then current.
+     * The fare rates are null for rides journaled before fare profiles were.
+     */
+    record RideStarted(String rideId, String driverId, String riderId, double startLatitude, double startLongitude,
+                       double surgeMultiplier, FareRates fareRates) implements RideEvent {
+
+        /**
+         * A ride started without surge, whose fare rates were not recorded.
+         */
+        public RideStarted(String rideId, String driverId, String riderId, double startLatitude, double startLongitude) {
+            this(rideId, driverId, riderId, startLatitude, startLongitude, 1, null);
+        }
+    }
+
+    /**
+     * The version and rates of the fare profile a ride is billed with.
+     */
+    record FareRates(long version, BigDecimal baseFare, BigDecimal distanceFareRate,
+                     BigDecimal timeFareRate, BigDecimal serviceTaxMultiplier) {
+
+        public static FareRates of(FareProfile profile) {
+            return new FareRates(profile.getVersion(), profile.getBaseFare(), profile.getDistanceFareRate(),
+                    profile.getTimeFareRate(), profile.getServiceTaxMultiplier());
+        }
+
+        public FareProfile toProfile() {
+            return new FareProfile(version, baseFare, distanceFareRate, timeFareRate, serviceTaxMultiplier);
+        }
+    }
+
+    /**
+     * A ride was completed.
+     */
+    record RideStopped(String rideId, double endLatitude, double endLongitude, double duration) implements RideEvent {}
+
+    /**
+     * A ride in progress was cancelled, releasing its driver without a bill.
+     */
+    record RideCancelled(String rideId) implements RideEvent {}
+}
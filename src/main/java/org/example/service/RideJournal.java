@@ -0,0 +1,38 @@
+package org.example.service;
+
+/**
+ * Durable record of the {@link RideEvent}s applied by {@link RideService}.
+ * Appending and waiting for durability are separate steps so that a caller applying
+ * several changes can append them all and wait once for the last one.
+ */
+public interface RideJournal {
+
+    /**
+     * Journal that keeps nothing, used while persistence is disabled.
+     */
+    RideJournal NONE = new RideJournal() {
+        @Override
+        public long append(RideEvent event) {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long sequence) {
+        }
+    };
+
+    /**
+     * Appends an event to the journal.
+     *
+     * @param event The event to record
+     * @return The sequence number assigned to the event
+     */
+    long append(RideEvent event);
+
+    /**
+     * Blocks until every event up to the given sequence number is durable.
+     *
+     * @param sequence The sequence number returned by {@link #append}
+     */
+    void awaitDurable(long sequence);
+}
@@ -0,0 +1,167 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer instrumentation of the ride service hot paths.
+ * Latencies and match sizes are published as histograms so that percentiles can be
+ * aggregated across instances from the Prometheus scrape endpoint.
+ */
+@Component
+public class RideMetrics {
+
+    private final MeterRegistry registry;
+
+    private final Timer matchLatency;
+    private final DistributionSummary matchCandidates;
+    private final DistributionSummary matchResults;
+    private final DistributionSummary matchRadius;
+    private final Counter ridesStarted;
+    private final Counter startConflicts;
+    private final Counter startsRejected;
+    private final Counter ridesStopped;
+    private final Counter stopsRejected;
+    private final Counter ridesCancelled;
+    private final Counter cancelsRejected;
+    private final Counter ridesArchived;
+    private final Timer billLatency;
+
+    public RideMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.matchLatency = Timer.builder("ride.match.latency")
+                .description("Time taken to match a rider with nearby drivers")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.matchCandidates = DistributionSummary.builder("ride.match.candidates")
+                .description("Drivers scanned in the index around the rider, over all search rings")
+                .baseUnit("drivers")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.matchResults = DistributionSummary.builder("ride.match.results")
+                .description("Drivers returned by a match")
+                .baseUnit("drivers")
+                .register(registry);
+        this.matchRadius = DistributionSummary.builder("ride.match.radius")
+                .description("Search radius at which a match was made")
+                .baseUnit("degrees")
+                .register(registry);
+        this.ridesStarted = rideStart("started");
+        this.startConflicts = rideStart("conflict");
+        this.startsRejected = rideStart("rejected");
+        this.ridesStopped = rideStop("stopped");
+        this.stopsRejected = rideStop("rejected");
+        this.ridesCancelled = rideCancel("cancelled");
+        this.cancelsRejected = rideCancel("rejected");
+        this.ridesArchived = Counter.builder("ride.rides.archived")
+                .description("Completed rides moved from memory to the archive")
+                .register(registry);
+        this.billLatency = Timer.builder("ride.bill.latency")
+                .description("Time taken to generate a bill")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Registers the gauges and counters that read the service's state. Called once, for
+     * the service managed by the application context.
+     *
+     * @param rideService The service to observe
+     * @param bills       The service's bill cache
+     */
+    void bind(RideService rideService, BillCache bills) {
+        Gauge.builder("ride.drivers", rideService, RideService::countAvailableDrivers)
+                .description("Registered drivers by availability")
+                .tag("state", "available")
+                .register(registry);
+        Gauge.builder("ride.drivers", rideService, RideService::countBusyDrivers)
+                .description("Registered drivers by availability")
+                .tag("state", "busy")
+                .register(registry);
+        Gauge.builder("ride.rides.active", rideService, RideService::countActiveRides)
+                .description("Rides started and not yet stopped")
+                .register(registry);
+        Gauge.builder("ride.surge.cells", rideService, service -> service.getSurgePricing().countSurgingCells())
+                .description("Grid cells where fares currently surge")
+                .register(registry);
+        FunctionCounter.builder("ride.bill.cache", bills, BillCache::getHitCount)
+                .description("Bill lookups by cache outcome")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("ride.bill.cache", bills, BillCache::getMissCount)
+                .description("Bill lookups by cache outcome")
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    void matched(long nanos, int candidates, int results, double radius) {
+        matchLatency.record(nanos, TimeUnit.NANOSECONDS);
+        matchCandidates.record(candidates);
+        matchResults.record(results);
+        matchRadius.record(radius);
+    }
+
+    void rideStarted() {
+        ridesStarted.increment();
+    }
+
+    void startConflicted() {
+        startConflicts.increment();
+    }
+
+    void startRejected() {
+        startsRejected.increment();
+    }
+
+    void rideStopped() {
+        ridesStopped.increment();
+    }
+
+    void stopRejected() {
+        stopsRejected.increment();
+    }
+
+    void rideCancelled() {
+        ridesCancelled.increment();
+    }
+
+    void cancelRejected() {
+        cancelsRejected.increment();
+    }
+
+    void ridesArchived(int count) {
+        ridesArchived.increment(count);
+    }
+
+    void billed(long nanos) {
+        billLatency.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Counter rideStart(String outcome) {
+        return Counter.builder("ride.start")
+                .description("Ride start requests by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private Counter rideStop(String outcome) {
+        return Counter.builder("ride.stop")
+                .description("Ride stop requests by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private Counter rideCancel(String outcome) {
+        return Counter.builder("ride.cancel")
+                .description("Ride cancel requests by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -1,31 +1,148 @@
 package org.example.service;
 
+import org.example.config.FareProfile;
 import org.example.config.RideConfiguration;
 import org.example.model.Driver;
 import org.example.model.Ride;
+import org.example.model.RideState;
 import org.example.model.Rider;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * Service class for managing ride operations.
  * This class handles driver and rider management, ride matching, and billing.
+ * <p>
+ * Rides move through the states of {@link RideState}. Once a change of state is durable,
+ * its follow-up work (metrics, the eager bill, ride listeners and archival) is handed to
+ * consumers through a {@link RideTransitionRing} if {@code ride.events.ring.enabled} is
+ * set, and otherwise done on the request thread, leaving bills to be computed on request.
  */
 @Service
 public class RideService {
 
-    @Autowired
-    private final RideConfiguration config= new RideConfiguration();
+    private static final int DRIVER_LOCK_STRIPES = 256;
+
+    private final RideConfiguration config;
+    private final FareCalculator fareCalculator;
+    private final RideMetrics metrics;
 
-    private final Map<String, Driver> drivers = new ConcurrentHashMap<>();
-    private final Map<String, Rider> riders = new ConcurrentHashMap<>();
+    // Drivers and riders by the handle interned for their ID when first registered.
+    private final IdRegistry driverIds = new IdRegistry();
+    private final HandleTable<Driver> drivers = new HandleTable<>();
+    private final IdRegistry riderIds = new IdRegistry();
+    private final HandleTable<Rider> riders = new HandleTable<>();
     private final Map<String, Ride> rides = new ConcurrentHashMap<>();
+    private final DriverIndex availableDrivers;
+    private final ReentrantLock[] driverLocks = newDriverLocks();
+    private final DriverChanges driverChanges;
+    // One profile per distinct journaled fare profile, shared by the rides replayed with it.
+    private final Map<RideEvent.FareRates, FareProfile> replayedProfiles = new HashMap<>();
+    private final BillCache bills;
+    private final AtomicInteger activeRides = new AtomicInteger();
+    private final int matchPartitions;
+    private final List<Consumer<RideEvent>> rideListeners = new CopyOnWriteArrayList<>();
+    private final SurgePricing surgePricing;
+    // Completed rides awaiting archival, roughly in completion order; only filled while archiving.
+    private final Queue<CompletedRide> completedRides = new ConcurrentLinkedQueue<>();
+    private volatile RideJournal journal = RideJournal.NONE;
+    private volatile RideArchive archive = RideArchive.NONE;
+    private final RideTransitionRing transitions; // null to handle transitions inline
+
+    public RideService(RideConfiguration config, FareCalculator fareCalculator, RideMetrics metrics) {
+        this.config = config;
+        this.fareCalculator = fareCalculator;
+        this.metrics = metrics;
+        this.availableDrivers = new DriverGridIndex(config.getDriverGridCellSize());
+        this.driverChanges = new DriverChanges(config.getDriverGridCellSize());
+        this.bills = new BillCache(config.getBillCacheSize(), this::computeBill);
+        this.surgePricing = config.isSurgeEnabled()
+                ? new SurgePricing(config.getSurgeCellSize(), config.getSurgeDemandThreshold(),
+                        config.getSurgeMaxMultiplier(), Duration.ofSeconds(config.getSurgeIntervalSeconds()),
+                        Duration.ofSeconds(config.getSurgeHalfLifeSeconds()))
+                : SurgePricing.NONE;
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        this.matchPartitions = config.getParallelMatchPartitions() > 0 ? config.getParallelMatchPartitions()
+                : parallelism > 1 ? parallelism * 4 : 1;
+        // Last, as the consumers call back into this service.
+        this.transitions = config.isEventRingEnabled()
+                ? new RideTransitionRing(config.getEventRingSize(), List.of(
+                        new RideTransitionRing.NamedHandler("ride-transition-metrics", this::countTransition),
+                        new RideTransitionRing.NamedHandler("ride-transition-billing", this::billTransition),
+                        new RideTransitionRing.NamedHandler("ride-transition-notify", this::announceTransition)))
+                : null;
+    }
+
+    /**
+     * Publishes this service's gauges. Only the service managed by the application context
+     * binds them: Micrometer keeps the first gauge registered under a name and tags and
+     * ignores the rest, so services created alongside it, such as in-process shards, would
+     * otherwise be reported in its place. Those share its counters and timers only.
+     */
+    @PostConstruct
+    public void bindMetrics() {
+        metrics.bind(this, bills);
+    }
+
+    /**
+     * Stops the transition consumers once they have handled every transition published.
+     */
+    @PreDestroy
+    public void close() {
+        if (transitions != null) {
+            transitions.close();
+        }
+    }
+
+    /**
+     * Sets the journal that records every subsequent state change.
+     * Each change is applied in memory, appended to the journal, and only acknowledged to
+     * the caller once the journal reports it durable.
+     *
+     * @param journal The journal to record changes to, or {@link RideJournal#NONE}
+     */
+    public void setJournal(RideJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Sets the archive that completed rides are moved to by {@link #archiveCompletedRides}.
+     * Rides already completed become eligible for archival from now on.
+     *
+     * @param archive The archive, or {@link RideArchive#NONE} to keep every ride in memory
+     */
+    public void setArchive(RideArchive archive) {
+        this.archive = archive;
+        queueCompletedRides();
+    }
+
+    /**
+     * Registers a listener notified of every ride started, stopped or cancelled from now on.
+     * Listeners run once the change is durable, on the calling request's thread or the
+     * transition ring's notification thread, so they should hand the event off rather than
+     * block. Replayed events are not reported.
+     *
+     * @param listener The listener, receiving {@link RideEvent.RideStarted},
+     *                 {@link RideEvent.RideStopped} and {@link RideEvent.RideCancelled} events
+     */
+    public void addRideListener(Consumer<RideEvent> listener) {
+        rideListeners.add(listener);
+    }
 
     /**
      * Adds a new driver to the system.
@@ -35,7 +152,83 @@ public class RideService {
      * @param longitude The initial longitude of the driver's location
      */
     public void addDriver(String id, double latitude, double longitude) {
-        drivers.put(id, new Driver(id, latitude, longitude));
+        journal.awaitDurable(registerDriver(id, latitude, longitude));
+    }
+
+    private long registerDriver(String id, double latitude, double longitude) {
+        putDriver(id, latitude, longitude);
+        return journal.append(new RideEvent.DriverAdded(id, latitude, longitude));
+    }
+
+    private void putDriver(String id, double latitude, double longitude) {
+        int handle = driverIds.intern(id);
+        Driver driver = new Driver(driverIds.idOf(handle), handle, latitude, longitude);
+        availableDrivers.add(driver);
+        Driver previous = drivers.put(handle, driver);
+        if (previous != null) {
+            withDriverLock(previous, () -> availableDrivers.remove(previous));
+            driverChanges.record(previous.getLatitude(), previous.getLongitude());
+        }
+        driverChanges.record(latitude, longitude);
+    }
+
+    /**
+     * Moves an existing driver to a new location.
+     * The driver record is updated in place, keeping its availability, and is only
+     * re-filed in the spatial index when it crosses into another grid cell.
+     *
+     * @param id        The ID of the driver to move
+     * @param latitude  The new latitude of the driver's location
+     * @param longitude The new longitude of the driver's location
+     * @throws IllegalArgumentException if the driver does not exist or the location is out of range
+     */
+    public void updateDriverLocation(String id, double latitude, double longitude) {
+        String error = locationError(latitude, longitude);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        journal.awaitDurable(relocateDriver(id, latitude, longitude));
+    }
+
+    private long relocateDriver(String id, double latitude, double longitude) {
+        Driver driver = findDriver(id);
+        if (driver == null) {
+            throw new IllegalArgumentException("Driver not found");
+        }
+        moveDriver(driver, latitude, longitude);
+        return journal.append(new RideEvent.DriverMoved(id, latitude, longitude));
+    }
+
+    private void moveDriver(Driver driver, double latitude, double longitude) {
+        double fromLatitude = driver.getLatitude();
+        double fromLongitude = driver.getLongitude();
+        // The driver's lock serialises its moves with index updates from start/stop.
+        withDriverLock(driver, () -> availableDrivers.move(driver, latitude, longitude));
+        driverChanges.record(fromLatitude, fromLongitude);
+        driverChanges.record(latitude, longitude);
+    }
+
+    /**
+     * Takes an available driver out of this service, so that it can be registered with
+     * another one. The driver is claimed as a ride start would claim it, so it cannot be
+     * matched or reserved once this returns; drivers on a ride are never removed.
+     *
+     * @param id The ID of the driver to remove
+     * @return The driver's last location, or an empty Optional if the driver is unknown
+     *         or not available
+     */
+    public Optional<LocationEntry> removeAvailableDriver(String id) {
+        Driver driver = findDriver(id);
+        if (driver == null || !driver.tryReserve()) {
+            return Optional.empty();
+        }
+        withDriverLock(driver, () -> {
+            availableDrivers.remove(driver);
+            drivers.remove(driver.getHandle(), driver);
+        });
+        driverChanges.record(driver.getLatitude(), driver.getLongitude());
+        journal.awaitDurable(journal.append(new RideEvent.DriverRemoved(id)));
+        return Optional.of(new LocationEntry(id, driver.getLatitude(), driver.getLongitude()));
     }
 
     /**
@@ -46,54 +239,342 @@ public class RideService {
      * @param longitude The initial longitude of the rider's location
      */
     public void addRider(String id, double latitude, double longitude) {
-        riders.put(id, new Rider(id, latitude, longitude));
+        journal.awaitDurable(registerRider(id, latitude, longitude));
+    }
+
+    private long registerRider(String id, double latitude, double longitude) {
+        putRider(id, latitude, longitude);
+        return journal.append(new RideEvent.RiderAdded(id, latitude, longitude));
+    }
+
+    private void putRider(String id, double latitude, double longitude) {
+        int handle = riderIds.intern(id);
+        riders.put(handle, new Rider(riderIds.idOf(handle), latitude, longitude));
+        // Marks the rider's new surroundings as changed, so that its next match is not skipped.
+        driverChanges.record(latitude, longitude);
+    }
+
+    private Driver findDriver(String id) {
+        return drivers.get(driverIds.find(id));
+    }
+
+    private Rider findRider(String id) {
+        return riders.get(riderIds.find(id));
+    }
+
+    /**
+     * Adds or re-registers several drivers in one call.
+     *
+     * @param entries The drivers to add
+     * @return The outcome of each entry, in submission order
+     */
+    public List<BatchItemResult> addDrivers(List<LocationEntry> entries) {
+        return applyAll(entries, "Driver", this::registerDriver, "Driver added successfully.");
+    }
+
+    /**
+     * Adds or re-registers several riders in one call.
+     *
+     * @param entries The riders to add
+     * @return The outcome of each entry, in submission order
+     */
+    public List<BatchItemResult> addRiders(List<LocationEntry> entries) {
+        return applyAll(entries, "Rider", this::registerRider, "Rider added successfully.");
+    }
+
+    /**
+     * Applies several driver location updates in one call.
+     *
+     * @param entries The drivers' new locations
+     * @return The outcome of each entry, in submission order
+     */
+    public List<BatchItemResult> updateDriverLocations(List<LocationEntry> entries) {
+        return applyAll(entries, "Driver", this::relocateDriver, "Driver location updated.");
     }
 
     /**
      * Matches a rider with nearby available drivers.
      *
      * @param riderId The ID of the rider requesting a match
-     * @return A list of driver IDs sorted by proximity, limited to 5 matches
+     * @return A list of driver IDs sorted by proximity, limited to {@code ride.max.matches} entries
+     * @see #matchNearest(String)
      */
     public List<String> matchRider(String riderId) {
-        Rider rider = riders.get(riderId);
-        if (rider == null) return Collections.emptyList();
+        return matchRider(riderId, true);
+    }
+
+    /**
+     * Matches a rider with nearby available drivers.
+     *
+     * @param riderId     The ID of the rider requesting a match
+     * @param countDemand Whether the match counts as a match request for surge pricing
+     * @return A list of driver IDs sorted by proximity, limited to {@code ride.max.matches} entries
+     * @see #matchNearest(String, boolean)
+     */
+    public List<String> matchRider(String riderId, boolean countDemand) {
+        return matchNearest(riderId, countDemand).driverIds();
+    }
 
-        return drivers.values().stream()
-                .filter(Driver::isAvailable)
-                .filter(driver -> calculateDistance(
-                        BigDecimal.valueOf(rider.getLatitude()),
-                        BigDecimal.valueOf(rider.getLongitude()),
-                        BigDecimal.valueOf(driver.getLatitude()),
-                        BigDecimal.valueOf(driver.getLongitude())
-                ).compareTo(config.getMaxDistanceRadius()) <= 0)
-                .map(Driver::getId)
-                .collect(Collectors.toList());
+    /**
+     * Matches a rider with nearby available drivers, searching in expanding rings.
+     * The search starts at {@code ride.match.initial.radius} and doubles the radius until
+     * {@code ride.max.matches} drivers are found or {@code ride.max.distance.radius} is
+     * reached. Every driver closer than the final radius has been seen by then, so the result
+     * is the same as a single search at the ceiling, but dense areas are answered from the
+     * first ring. Radii are in the unit of the configured {@link DistanceEngine}.
+     * <p>
+     * Once the fleet reaches {@code ride.match.parallel.threshold} drivers, each ring's
+     * candidates are split into partitions that are scanned on the common ForkJoin pool,
+     * and the closest drivers of each partition are merged.
+     * <p>
+     * Each match counts as demand for surge pricing at the rider's location.
+     *
+     * @param riderId The ID of the rider requesting a match
+     * @return The matched driver IDs sorted by proximity, the radius that produced them, and
+     *         the current surge multiplier at the rider's location
+     */
+    public MatchResult matchNearest(String riderId) {
+        return matchNearest(riderId, true);
+    }
+
+    /**
+     * Matches a rider with nearby available drivers as {@link #matchNearest(String)} does.
+     * Matches repeated on the rider's behalf, such as refreshes of a match stream or a
+     * second look at the same request, should not count as demand.
+     *
+     * @param riderId     The ID of the rider requesting a match
+     * @param countDemand Whether the match counts as a match request for surge pricing
+     * @return The matched driver IDs sorted by proximity, the radius that produced them, and
+     *         the current surge multiplier at the rider's location
+     */
+    public MatchResult matchNearest(String riderId, boolean countDemand) {
+        Rider rider = findRider(riderId);
+        if (rider == null) return MatchResult.NONE;
+
+        if (countDemand) {
+            surgePricing.recordRequest(rider.getLatitude(), rider.getLongitude());
+        }
+        return matchNearest(rider);
+    }
+
+    private MatchResult matchNearest(Rider rider) {
+        RingSearch search = match(rider);
+        return new MatchResult(search.nearest().toSortedIds(), search.radius(),
+                surgePricing.multiplier(rider.getLatitude(), rider.getLongitude()));
     }
 
+    private RingSearch match(Rider rider) {
+        long started = System.nanoTime();
+        RingSearch search = searchRings(rider.getLatitude(), rider.getLongitude(),
+                config.getMaxDistanceRadius().doubleValue(), config.getMaxMatches());
+        metrics.matched(System.nanoTime() - started, search.scanned(), search.nearest().size(), search.radius());
+        return search;
+    }
 
     /**
-     * Starts a new ride.
+     * Reports when the drivers a match for the rider could return last changed, so that a
+     * caller repeating the match can skip it while they have not. Drivers being added,
+     * moved, removed, claimed for a ride or released within {@code ride.max.distance.radius}
+     * of the rider, and the rider being registered again, are changes. Changes elsewhere may
+     * also be reported.
+     *
+     * @param riderId The ID of the rider
+     * @return A value that is unchanged while matching the rider would return the same
+     *         drivers, or 0 if the rider is not registered
+     */
+    public long lastDriverChange(String riderId) {
+        Rider rider = findRider(riderId);
+        if (rider == null) return 0;
+
+        return driverChanges.lastChange(rider.getLatitude(), rider.getLongitude(),
+                fareCalculator.search(rider.getLatitude(), rider.getLongitude(),
+                        config.getMaxDistanceRadius().doubleValue()).degreeRadius());
+    }
+
+    /**
+     * Finds the available drivers closest to a location, searching in expanding rings as
+     * {@link #matchNearest(String)} does, but up to the given radius and reporting each
+     * driver's distance so that the result can be merged with searches made elsewhere.
+     *
+     * @param latitude    The latitude to search around
+     * @param longitude   The longitude to search around
+     * @param ceiling     The largest radius to search, at most {@code ride.max.distance.radius}
+     * @param countDemand Whether the search counts as a match request for surge pricing
+     * @return The closest drivers with their distances, the radius that produced them, and
+     *         the current surge multiplier at the location
+     */
+    public MatchCandidates findNearbyDrivers(double latitude, double longitude, double ceiling, boolean countDemand) {
+        return findNearbyDrivers(latitude, longitude, ceiling, config.getMaxMatches(), countDemand);
+    }
+
+    private MatchCandidates findNearbyDrivers(double latitude, double longitude, double ceiling, int limit,
+                                              boolean countDemand) {
+        long started = System.nanoTime();
+        if (countDemand) {
+            surgePricing.recordRequest(latitude, longitude);
+        }
+        RingSearch search = searchRings(latitude, longitude,
+                Math.min(ceiling, config.getMaxDistanceRadius().doubleValue()), limit);
+        List<MatchCandidates.Candidate> matches = search.nearest().toSortedCandidates();
+        metrics.matched(System.nanoTime() - started, search.scanned(), matches.size(), search.radius());
+        return new MatchCandidates(matches, search.radius(), surgePricing.multiplier(latitude, longitude));
+    }
+
+    /**
+     * Finds the available drivers closest to a rider with their distances, searching in
+     * expanding rings as {@link #matchNearest(String)} does but until the given number of
+     * drivers is found, so that the candidates of several riders can be weighed against
+     * each other. Counts as demand for surge pricing.
+     *
+     * @param riderId The ID of the rider requesting a match
+     * @param limit   The largest number of drivers to return
+     * @return The closest drivers with their distances, or {@link MatchCandidates#NONE} if
+     *         the rider is not registered
+     */
+    public MatchCandidates findNearbyDrivers(String riderId, int limit) {
+        Rider rider = findRider(riderId);
+        if (rider == null) return MatchCandidates.NONE;
+
+        return findNearbyDrivers(rider.getLatitude(), rider.getLongitude(),
+                config.getMaxDistanceRadius().doubleValue(), limit, true);
+    }
+
+    private RingSearch searchRings(double latitude, double longitude, double ceiling, int limit) {
+        double initial = config.getInitialMatchRadius();
+        double radius = initial > 0 ? Math.min(initial, ceiling) : ceiling;
+        int partitions = drivers.size() >= config.getParallelMatchThreshold() ? matchPartitions : 1;
+
+        int scanned = 0;
+        NearestDrivers nearest;
+        while (true) {
+            nearest = scan(latitude, longitude, radius, limit, partitions);
+            scanned += nearest.getScanned();
+            if (nearest.isFull() || radius >= ceiling) {
+                break;
+            }
+            radius = Math.min(radius * 2, ceiling);
+        }
+        return new RingSearch(nearest, radius, scanned);
+    }
+
+    private NearestDrivers scan(double riderLatitude, double riderLongitude, double radius, int limit, int partitions) {
+        DistanceEngine.Search search = fareCalculator.search(riderLatitude, riderLongitude, radius);
+        return partitions == 1
+                ? scan(riderLatitude, riderLongitude, search, radius, limit, 0, 1)
+                : IntStream.range(0, partitions)
+                        .parallel()
+                        .mapToObj(partition -> scan(riderLatitude, riderLongitude, search, radius, limit,
+                                partition, partitions))
+                        .reduce(NearestDrivers::merge)
+                        .orElseThrow();
+    }
+
+    private NearestDrivers scan(double riderLatitude, double riderLongitude, DistanceEngine.Search search,
+                                double radius, int limit, int partition, int partitions) {
+        NearestDrivers nearest = new NearestDrivers(limit);
+        availableDrivers.forEachCandidate(riderLatitude, riderLongitude, search.degreeRadius(),
+                partition, partitions, driver -> {
+            nearest.countScanned();
+            if (!driver.isAvailable()) {
+                return;
+            }
+            double distance = search.distanceTo(driver);
+            if (distance <= radius) {
+                nearest.offer(driver, distance);
+            }
+        });
+        return nearest;
+    }
+
+    /**
+     * Starts a new ride, billed with the current fare profile and the surge multiplier at
+     * the rider's location.
      *
      * @param rideId  The unique identifier for the ride
      * @param index       The index of the chosen driver from the matched list
      * @param riderId The ID of the rider starting the ride
      * @return The ride ID if successfully started
-     * @throws IllegalArgumentException if the ride cannot be started due to invalid input
+     * @throws IllegalArgumentException if the ride cannot be started due to invalid input,
+     *                                  or the chosen driver was reserved by a concurrent request
      */
     public String startRide(String rideId, int index, String riderId) {
-        List<String> matchedDrivers = matchRider(riderId);
-        if (index > matchedDrivers.size() || rides.containsKey(rideId)) {
+        Rider rider = findRider(riderId);
+        // Not counted as surge demand: the rider's preceding match request already was.
+        // Matched by handle, so the chosen driver is found without hashing its ID again.
+        int[] matchedDrivers = rider == null ? new int[0] : match(rider).nearest().toSortedHandles();
+        if (index < 1 || index > matchedDrivers.length || rides.containsKey(rideId)) {
+            metrics.startRejected();
             throw new IllegalArgumentException("Invalid ride or already exists");
         }
 
-        String driverId = matchedDrivers.get(index - 1);
-        Driver driver = drivers.get(driverId);
-        Rider rider = riders.get(riderId);
+        return begin(rideId, drivers.get(matchedDrivers[index - 1]), rider);
+    }
 
-        driver.setAvailable(false);
-        Ride ride = new Ride(rideId, driver, rider);
-        rides.put(rideId, ride);
+    /**
+     * Starts a new ride with a driver chosen by the caller rather than by index into a
+     * fresh match, as a router does after merging matches from several services.
+     *
+     * @param rideId   The unique identifier for the ride
+     * @param driverId The ID of the chosen driver
+     * @param riderId  The ID of the rider starting the ride
+     * @return The ride ID if successfully started
+     * @throws IllegalArgumentException if the rider is unknown, the ride already exists or was
+     *                                  archived, or the driver is unknown or no longer available
+     */
+    public String startRideWithDriver(String rideId, String driverId, String riderId) {
+        Rider rider = findRider(riderId);
+        if (rider == null || rides.containsKey(rideId)) {
+            metrics.startRejected();
+            throw new IllegalArgumentException("Invalid ride or already exists");
+        }
+        return begin(rideId, findDriver(driverId), rider);
+    }
+
+    /**
+     * Creates the ride as {@link RideState#MATCHED} and only moves it to
+     * {@link RideState#STARTED} once its start is durable, so it cannot be stopped or
+     * cancelled before then. If the journal fails, the ride is dropped and its driver
+     * released again, as the start was never acknowledged.
+     */
+    private String begin(String rideId, Driver driver, Rider rider) {
+        // Another request may have claimed the driver since it was matched.
+        if (driver == null || !driver.tryReserve()) {
+            metrics.startConflicted();
+            throw new IllegalArgumentException("Driver is no longer available");
+        }
+        withDriverLock(driver, () -> availableDrivers.remove(driver));
+        driverChanges.record(driver.getLatitude(), driver.getLongitude());
+
+        Ride ride = new Ride(rideId, driver, rider, rider.getLatitude(), rider.getLongitude(),
+                fareCalculator.currentProfile(), surgePricing.multiplier(rider.getLatitude(), rider.getLongitude()),
+                RideState.MATCHED);
+        if (rides.putIfAbsent(rideId, ride) != null) {
+            releaseDriver(driver);
+            metrics.startConflicted();
+            throw new IllegalArgumentException("Invalid ride or already exists");
+        }
+        // Archival writes a ride to the archive before dropping it from memory, so a ride
+        // missing from memory just now is either new or already findable there.
+        if (archive.find(rideId).isPresent()) {
+            rides.remove(rideId, ride);
+            releaseDriver(driver);
+            metrics.startRejected();
+            throw new IllegalArgumentException("Invalid ride or already exists");
+        }
+        activeRides.incrementAndGet();
+        RideEvent started = new RideEvent.RideStarted(rideId, driver.getId(), rider.getId(),
+                ride.getStartLatitude(), ride.getStartLongitude(), ride.getSurgeMultiplier().doubleValue(),
+                RideEvent.FareRates.of(ride.getFareProfile()));
+        try {
+            journal.awaitDurable(journal.append(started));
+        } catch (RuntimeException e) {
+            rides.remove(rideId, ride);
+            activeRides.decrementAndGet();
+            releaseDriver(driver);
+            throw e;
+        }
+        ride.transition(RideState.MATCHED, RideState.STARTED);
+        transitioned(ride, RideState.STARTED, started);
 
         return rideId;
     }
@@ -106,80 +587,472 @@ public class RideService {
      * @param endLongitude The end longitude of the ride
      * @param duration     The duration of the ride in minutes
      * @return The ride ID if successfully stopped
-     * @throws IllegalArgumentException if the ride is invalid or already completed
+     * @throws IllegalArgumentException if the ride is invalid or not in progress
      */
     public String stopRide(String rideId, double endLatitude, double endLongitude, double duration) {
         Ride ride = rides.get(rideId);
-        if (ride == null || ride.isCompleted()) {
+        // Only one of concurrent stops or cancels can move the ride on from STARTED. The ride
+        // is not billable until the stop is durable and it moves on from STOPPING.
+        if (ride == null || !ride.beginStop(endLatitude, endLongitude, duration)) {
+            metrics.stopRejected();
+            throw new IllegalArgumentException("Invalid or already completed ride");
+        }
+
+        RideEvent stopped = new RideEvent.RideStopped(rideId, endLatitude, endLongitude, duration);
+        journalEnd(ride, RideState.STOPPING, stopped);
+        ride.transition(RideState.STOPPING, RideState.COMPLETED);
+        releaseDriver(ride.getDriver());
+        activeRides.decrementAndGet();
+        transitioned(ride, RideState.COMPLETED, stopped);
+
+        return rideId;
+    }
+
+    /**
+     * Cancels a ride in progress, making its driver available again. A cancelled ride is
+     * never billed.
+     *
+     * @param rideId The ID of the ride to cancel
+     * @return The ride ID if successfully cancelled
+     * @throws IllegalArgumentException if the ride is invalid or not in progress
+     */
+    public String cancelRide(String rideId) {
+        Ride ride = rides.get(rideId);
+        if (ride == null || !ride.transition(RideState.STARTED, RideState.CANCELLED)) {
+            metrics.cancelRejected();
             throw new IllegalArgumentException("Invalid or already completed ride");
         }
 
-        ride.endRide(endLatitude, endLongitude, duration);
-        ride.getDriver().setAvailable(true);
+        RideEvent cancelled = new RideEvent.RideCancelled(rideId);
+        journalEnd(ride, RideState.CANCELLED, cancelled);
+        releaseDriver(ride.getDriver());
+        activeRides.decrementAndGet();
+        transitioned(ride, RideState.CANCELLED, cancelled);
 
         return rideId;
     }
 
+    /**
+     * Journals the stop or cancellation of a ride already moved to the given state, from
+     * which nothing else moves it. The driver is only released once the change is durable;
+     * if the journal fails, the ride is returned to {@link RideState#STARTED} so that it can
+     * be stopped or cancelled again.
+     */
+    private void journalEnd(Ride ride, RideState state, RideEvent event) {
+        try {
+            journal.awaitDurable(journal.append(event));
+        } catch (RuntimeException e) {
+            ride.reopen(state);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until the follow-up work of every transition made so far has been done.
+     * Returns at once unless transitions are handed off through the ring.
+     */
+    public void awaitTransitions() {
+        if (transitions != null) {
+            transitions.awaitHandled();
+        }
+    }
+
+    private void transitioned(Ride ride, RideState state, RideEvent event) {
+        if (transitions != null) {
+            transitions.publish(ride, state, event);
+        } else {
+            countTransition(ride, state, event);
+            announceTransition(ride, state, event);
+        }
+    }
+
+    private void countTransition(Ride ride, RideState state, RideEvent event) {
+        switch (state) {
+            case STARTED -> metrics.rideStarted();
+            case COMPLETED -> metrics.rideStopped();
+            case CANCELLED -> metrics.rideCancelled();
+            default -> {
+            }
+        }
+    }
+
+    private void billTransition(Ride ride, RideState state, RideEvent event) {
+        if (state == RideState.COMPLETED) {
+            bills.get(ride.getId());
+        }
+    }
+
+    private void announceTransition(Ride ride, RideState state, RideEvent event) {
+        if ((state == RideState.COMPLETED || state == RideState.CANCELLED) && archive != RideArchive.NONE) {
+            completedRides.offer(new CompletedRide(ride.getId(), System.nanoTime()));
+        }
+        for (Consumer<RideEvent> listener : rideListeners) {
+            listener.accept(event);
+        }
+    }
+
+    /**
+     * Makes a reserved driver available for matching again.
+     * The driver is indexed before it is flagged available, so a concurrent startRide can
+     * only reserve it once it is in the index and its removal cannot be lost.
+     *
+     * @param driver The driver to release
+     */
+    private void releaseDriver(Driver driver) {
+        withDriverLock(driver, () -> {
+            // A driver re-registered during the ride is already indexed under its new record.
+            if (drivers.get(driver.getHandle()) == driver) {
+                availableDrivers.add(driver);
+            }
+        });
+        driver.setAvailable(true);
+        driverChanges.record(driver.getLatitude(), driver.getLongitude());
+    }
+
+    /**
+     * Runs an update of the driver's index entry while holding the driver's lock.
+     * The locks are striped by handle rather than kept per driver, which would cost more
+     * heap than the driver record, and are not monitors, so that a virtual thread waiting
+     * on the index's own locks while holding one does not pin its carrier thread.
+     *
+     * @param driver The driver being updated
+     * @param update The update to run
+     */
+    private void withDriverLock(Driver driver, Runnable update) {
+        ReentrantLock lock = driverLocks[driver.getHandle() & (DRIVER_LOCK_STRIPES - 1)];
+        lock.lock();
+        try {
+            update.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Generates a bill for a completed ride.
+     * Bills are cached once computed, so repeated requests for the same ride are served
+     * without recalculating the fare. Bills of archived rides are read from the archive.
      *
      * @param rideId The ID of the ride for which to generate the bill.
      * @return A BillDetails object containing raw bill data,
      *         or null if the ride is invalid or incomplete.
      */
     public Optional<BillDetails> generateBill(String rideId) {
-        Ride ride = rides.get(rideId);
-        if (ride == null || !ride.isCompleted()) {
-            return Optional.empty(); // Invalid or incomplete ride
+        long started = System.nanoTime();
+        Optional<BillDetails> bill = bills.get(rideId);
+        metrics.billed(System.nanoTime() - started);
+        return bill;
+    }
+
+    /**
+     * Looks up a ride, whether in progress or completed.
+     *
+     * @param rideId The ID of the ride
+     * @return The ride, or an empty Optional if no ride has that ID
+     */
+    public Optional<Ride> findRide(String rideId) {
+        return Optional.ofNullable(rides.get(rideId));
+    }
+
+    /**
+     * @return The number of registered drivers available for matching
+     */
+    public int countAvailableDrivers() {
+        int available = 0;
+        for (Driver driver : drivers) {
+            if (driver.isAvailable()) {
+                available++;
+            }
         }
+        return available;
+    }
+
+    /**
+     * @return The number of registered drivers currently on a ride
+     */
+    public int countBusyDrivers() {
+        return drivers.size() - countAvailableDrivers();
+    }
+
+    /**
+     * @return The number of rides started and not yet stopped
+     */
+    public int countActiveRides() {
+        return activeRides.get();
+    }
+
+    /**
+     * @return The cache of generated bills
+     */
+    public BillCache getBillCache() {
+        return bills;
+    }
 
-        BigDecimal totalFare = calculateFare(ride).setScale(2, RoundingMode.HALF_EVEN);
+    /**
+     * @return The surge multipliers applied to rides as they start
+     */
+    public SurgePricing getSurgePricing() {
+        return surgePricing;
+    }
 
-        return Optional.of(new BillDetails(rideId, ride.getDriver().getId(), totalFare));
+    /**
+     * Recomputes the surge multipliers from the match requests counted since the last call
+     * and the drivers available now.
+     */
+    public void recomputeSurge() {
+        surgePricing.recompute(drivers);
     }
 
     /**
-     * Calculates the total fare for a completed ride.
+     * Moves rides completed at least the given time ago out of memory and into the archive.
+     * Their bills are computed and stored durably first, so {@link #generateBill} still
+     * answers for them; rides in progress are never archived. Rides cancelled as long ago
+     * have no bill to keep and are simply dropped from memory.
      *
-     * @param ride The Ride object for which to calculate the fare.
-     * @return A BigDecimal representing the total fare for the ride.
+     * @param timeToLive How long a completed ride stays in memory
+     * @return The number of rides archived
      */
-    private BigDecimal calculateFare(Ride ride) {
-        BigDecimal distance = calculateDistance(
-                BigDecimal.valueOf(ride.getStartLatitude()),
-                BigDecimal.valueOf(ride.getStartLongitude()),
-                BigDecimal.valueOf(ride.getEndLatitude()),
-                BigDecimal.valueOf(ride.getEndLongitude())
-        );
-        BigDecimal duration = BigDecimal.valueOf(ride.getDuration());
+    public int archiveCompletedRides(Duration timeToLive) {
+        long cutoff = System.nanoTime() - timeToLive.toNanos();
+        List<Ride> archived = new ArrayList<>();
+        List<BillDetails> archivedBills = new ArrayList<>();
+        CompletedRide completed;
+        while ((completed = completedRides.peek()) != null && completed.completedAt() - cutoff <= 0) {
+            completedRides.poll();
+            Ride ride = rides.get(completed.rideId());
+            if (ride == null) {
+                continue;
+            }
+            if (ride.isCompleted()) {
+                archived.add(ride);
+                archivedBills.add(bill(ride));
+            } else if (ride.isCancelled()) {
+                rides.remove(ride.getId(), ride);
+            }
+        }
+        if (archived.isEmpty()) {
+            return 0;
+        }
+        archive.append(archivedBills);
+        for (Ride ride : archived) {
+            rides.remove(ride.getId(), ride);
+        }
+        metrics.ridesArchived(archived.size());
+        return archived.size();
+    }
 
-        BigDecimal distanceFare = config.getDistanceFareRate().multiply(distance);
-        BigDecimal timeFare = config.getTimeFareRate().multiply(duration);
+    private void queueCompletedRides() {
+        if (archive == RideArchive.NONE) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Ride ride : rides.values()) {
+            if (ride.isCompleted() || ride.isCancelled()) {
+                completedRides.offer(new CompletedRide(ride.getId(), now));
+            }
+        }
+    }
 
-        return config.getBaseFare().add(distanceFare).add(timeFare).multiply(config.getServiceTaxMultiplier());
+    private Optional<BillDetails> computeBill(String rideId) {
+        Ride ride = rides.get(rideId);
+        if (ride == null) {
+            return archive.find(rideId);
+        }
+        if (!ride.isCompleted()) {
+            return Optional.empty(); // Incomplete or cancelled ride
+        }
+        BillDetails bill = bill(ride);
+        ride.transition(RideState.COMPLETED, RideState.BILLED);
+        return Optional.of(bill);
+    }
+
+    private BillDetails bill(Ride ride) {
+        BigDecimal totalFare = fareCalculator.calculateFare(ride).setScale(2, RoundingMode.HALF_EVEN);
+
+        return new BillDetails(ride.getId(), ride.getDriver().getId(), totalFare);
     }
 
     /**
-     * Calculates the distance between two points using BigDecimal arithmetic.
+     * Re-applies a journaled event without journaling it again.
+     * Replay is idempotent and skips events whose driver, rider or ride is unknown, so a
+     * snapshot taken while changes were in flight can be followed by the journal tail
+     * that overlaps it. {@link #completeReplay()} must be called once all events are applied.
+     * Replayed rides are billed with the fare profile journaled with their start, or with
+     * the profile current during replay if the journal predates fare profiles.
      *
-     * @param startLatitude  Latitude of the first point
-     * @param startLongitude Longitude of the first point
-     * @param endLatitude    Latitude of the second point
-     * @param endLongitude   Longitude of the second point
-     * @return The calculated distance in kilometers as a BigDecimal.
+     * @param event The event to apply
      */
-    private BigDecimal calculateDistance(BigDecimal startLatitude, BigDecimal startLongitude,
-                                         BigDecimal endLatitude, BigDecimal endLongitude) {
-        if (config.getMaxDistanceRadius() == null) {
-            throw new IllegalStateException("Max distance radius is not configured");
+    public void replay(RideEvent event) {
+        if (event instanceof RideEvent.DriverAdded added) {
+            putDriver(added.driverId(), added.latitude(), added.longitude());
+        } else if (event instanceof RideEvent.DriverMoved moved) {
+            Driver driver = findDriver(moved.driverId());
+            if (driver != null) {
+                moveDriver(driver, moved.latitude(), moved.longitude());
+            }
+        } else if (event instanceof RideEvent.DriverRemoved removed) {
+            Driver driver = findDriver(removed.driverId());
+            if (driver != null) {
+                withDriverLock(driver, () -> {
+                    availableDrivers.remove(driver);
+                    drivers.remove(driver.getHandle(), driver);
+                });
+            }
+        } else if (event instanceof RideEvent.RiderAdded added) {
+            putRider(added.riderId(), added.latitude(), added.longitude());
+        } else if (event instanceof RideEvent.RideStarted started) {
+            Driver driver = findDriver(started.driverId());
+            Rider rider = findRider(started.riderId());
+            if (driver != null && rider != null) {
+                FareProfile profile = started.fareRates() == null ? fareCalculator.currentProfile()
+                        : replayedProfiles.computeIfAbsent(started.fareRates(), RideEvent.FareRates::toProfile);
+                rides.putIfAbsent(started.rideId(), new Ride(started.rideId(), driver, rider,
+                        started.startLatitude(), started.startLongitude(), profile,
+                        BigDecimal.valueOf(started.surgeMultiplier())));
+            }
+        } else if (event instanceof RideEvent.RideStopped stopped) {
+            Ride ride = rides.get(stopped.rideId());
+            if (ride != null) {
+                ride.endRide(stopped.endLatitude(), stopped.endLongitude(), stopped.duration());
+            }
+        } else if (event instanceof RideEvent.RideCancelled cancelled) {
+            Ride ride = rides.get(cancelled.rideId());
+            if (ride != null) {
+                ride.transition(RideState.STARTED, RideState.CANCELLED);
+            }
         }
+    }
 
-        BigDecimal xDiff = endLatitude.subtract(startLatitude);
-        BigDecimal yDiff = endLongitude.subtract(startLongitude);
-        BigDecimal xDiffSquared = xDiff.multiply(xDiff);
-        BigDecimal yDiffSquared = yDiff.multiply(yDiff);
+    /**
+     * Finishes a replay by deriving driver availability from the replayed rides.
+     * A driver is on a ride, and out of the matching index, exactly when one of its rides
+     * is still in progress; such rides are re-pointed at the driver's current record.
+     */
+    public void completeReplay() {
+        Set<String> busyDrivers = new HashSet<>();
+        int inProgress = 0;
+        for (Ride ride : rides.values()) {
+            if (ride.getState() == RideState.STARTED) {
+                inProgress++;
+            }
+        }
+        activeRides.set(inProgress);
+        rides.replaceAll((rideId, ride) -> {
+            if (ride.getState() != RideState.STARTED) {
+                return ride;
+            }
+            Driver current = drivers.get(ride.getDriver().getHandle());
+            busyDrivers.add(ride.getDriver().getId());
+            return current == null || current == ride.getDriver() ? ride
+                    : new Ride(rideId, current, ride.getRider(), ride.getStartLatitude(), ride.getStartLongitude(),
+                    ride.getFareProfile(), ride.getSurgeMultiplier());
+        });
+        for (Driver driver : drivers) {
+            boolean available = !busyDrivers.contains(driver.getId());
+            driver.setAvailable(available);
+            if (available) {
+                availableDrivers.add(driver);
+            } else {
+                availableDrivers.remove(driver);
+            }
+        }
+        replayedProfiles.clear();
+        queueCompletedRides();
+    }
 
-        return xDiffSquared.add(yDiffSquared).sqrt(config.getDistanceCalculationContext());
+    /**
+     * Describes the current state as the events that would rebuild it: every driver and
+     * rider, then every ride with its completion or cancellation. A ride whose driver has since been removed
+     * is described with that driver added before it and removed again after it. Changes made
+     * concurrently may or may not be included.
+     *
+     * @param action The action to run for each event
+     */
+    public void exportState(Consumer<RideEvent> action) {
+        drivers.forEach(driver -> action.accept(
+                new RideEvent.DriverAdded(driver.getId(), driver.getLatitude(), driver.getLongitude())));
+        riders.forEach(rider -> action.accept(
+                new RideEvent.RiderAdded(rider.getId(), rider.getLatitude(), rider.getLongitude())));
+        rides.values().forEach(ride -> {
+            RideState state = ride.getState();
+            Driver driver = ride.getDriver();
+            boolean removed = drivers.get(driver.getHandle()) == null;
+            if (removed) {
+                action.accept(new RideEvent.DriverAdded(driver.getId(), driver.getLatitude(), driver.getLongitude()));
+            }
+            action.accept(new RideEvent.RideStarted(ride.getId(), driver.getId(), ride.getRider().getId(),
+                    ride.getStartLatitude(), ride.getStartLongitude(), ride.getSurgeMultiplier().doubleValue(),
+                    RideEvent.FareRates.of(ride.getFareProfile())));
+            if (state == RideState.COMPLETED || state == RideState.BILLED) {
+                action.accept(new RideEvent.RideStopped(ride.getId(),
+                        ride.getEndLatitude(), ride.getEndLongitude(), ride.getDuration()));
+            } else if (state == RideState.CANCELLED) {
+                action.accept(new RideEvent.RideCancelled(ride.getId()));
+            }
+            if (removed) {
+                action.accept(new RideEvent.DriverRemoved(driver.getId()));
+            }
+        });
     }
 
+    private List<BatchItemResult> applyAll(List<LocationEntry> entries, String kind,
+                                           LocationAction action, String successMessage) {
+        List<BatchItemResult> results = new ArrayList<>(entries.size());
+        long lastSequence = 0;
+        for (LocationEntry entry : entries) {
+            String error = validate(entry, kind);
+            if (error != null) {
+                results.add(BatchItemResult.failed(entry == null ? null : entry.id(), error));
+                continue;
+            }
+            try {
+                lastSequence = Math.max(lastSequence, action.apply(entry.id(), entry.latitude(), entry.longitude()));
+                results.add(BatchItemResult.succeeded(entry.id(), successMessage));
+            } catch (IllegalArgumentException e) {
+                results.add(BatchItemResult.failed(entry.id(), e.getMessage()));
+            }
+        }
+        // One durability wait covers the whole batch.
+        journal.awaitDurable(lastSequence);
+        return results;
+    }
+
+    private static String validate(LocationEntry entry, String kind) {
+        if (entry == null || entry.id() == null || entry.id().isEmpty()) {
+            return kind + " ID cannot be empty";
+        }
+        if (entry.latitude() == null) {
+            return "Latitude is required";
+        }
+        if (entry.longitude() == null) {
+            return "Longitude is required";
+        }
+        return locationError(entry.latitude(), entry.longitude());
+    }
+
+    private static String locationError(double latitude, double longitude) {
+        // Negated so that NaN is rejected too.
+        if (!(latitude >= -90 && latitude <= 90)) {
+            return "Latitude must be between -90 and 90";
+        }
+        if (!(longitude >= -180 && longitude <= 180)) {
+            return "Longitude must be between -180 and 180";
+        }
+        return null;
+    }
+
+    private static ReentrantLock[] newDriverLocks() {
+        ReentrantLock[] locks = new ReentrantLock[DRIVER_LOCK_STRIPES];
+        Arrays.setAll(locks, i -> new ReentrantLock());
+        return locks;
+    }
+
+    @FunctionalInterface
+    private interface LocationAction {
+        long apply(String id, double latitude, double longitude);
+    }
+
+    private record CompletedRide(String rideId, long completedAt) {}
+
+    private record RingSearch(NearestDrivers nearest, double radius, int scanned) {}
 }
@@ -0,0 +1,229 @@
+package org.example.service;
+
+import org.example.model.Ride;
+import org.example.model.RideState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded ring of ride state transitions, handed from request threads to consumers that
+ * each run on a thread of their own, in the manner of a Disruptor.
+ * <p>
+ * Slots are allocated once and reused, so publishing allocates nothing. A publisher claims
+ * the next sequence with one atomic increment, waits while the ring is full (that is, while
+ * the slowest consumer has not yet read the slot about to be overwritten), fills the slot
+ * and then marks it published. Each consumer follows the ring with its own sequence and
+ * sees every transition in publication order, handling all of those available before it
+ * advances, so a consumer that falls behind catches up in batches. Waiting threads spin,
+ * then yield; an idle consumer then parks until a publisher unparks it, while a publisher
+ * waiting for room parks briefly at a time. No locks are taken on either side.
+ */
+final class RideTransitionRing implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideTransitionRing.class);
+
+    private static final int SPINS = 100;
+    private static final int YIELDS = 100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Handles the transitions read from the ring, on the consumer's own thread.
+     */
+    @FunctionalInterface
+    interface Handler {
+        /**
+         * @param ride  The ride that changed state
+         * @param state The state it moved to
+         * @param event The event journaled for the change
+         */
+        void onTransition(Ride ride, RideState state, RideEvent event);
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    // The sequence last published in each slot, so a consumer can tell a filled slot from a stale one.
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final List<Consumer> consumers;
+    private volatile boolean closed;
+
+    /**
+     * Creates the ring and starts one daemon thread per handler.
+     *
+     * @param size     The number of slots, a power of two
+     * @param handlers The consumers' handlers, by thread name
+     * @throws IllegalArgumentException if the size is not a positive power of two
+     */
+    RideTransitionRing(int size, List<NamedHandler> handlers) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a positive power of two");
+        }
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.consumers = handlers.stream().map(handler -> new Consumer(handler.handler())).toList();
+        for (int i = 0; i < consumers.size(); i++) {
+            Thread thread = new Thread(consumers.get(i), handlers.get(i).name());
+            thread.setDaemon(true);
+            consumers.get(i).thread = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Publishes a transition to every consumer. Transitions published after the ring is
+     * closed are dropped.
+     *
+     * @param ride  The ride that changed state
+     * @param state The state it moved to
+     * @param event The event journaled for the change
+     */
+    void publish(Ride ride, RideState state, RideEvent event) {
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - slots.length;
+        for (int attempt = 0; slowestConsumer() < wrapPoint; attempt++) {
+            if (closed) {
+                return;
+            }
+            idle(attempt);
+        }
+        int index = (int) (sequence & mask);
+        Slot slot = slots[index];
+        slot.ride = ride;
+        slot.state = state;
+        slot.event = event;
+        // A volatile write, ordered before the read of each consumer's parked flag.
+        published.set(index, sequence);
+        for (Consumer consumer : consumers) {
+            if (consumer.parked) {
+                LockSupport.unpark(consumer.thread);
+            }
+        }
+    }
+
+    /**
+     * Waits until every consumer has handled each transition published before this call.
+     */
+    void awaitHandled() {
+        long target = claimed.get();
+        for (int attempt = 0; slowestConsumer() < target && !closed; attempt++) {
+            idle(attempt);
+        }
+    }
+
+    /**
+     * Stops the consumers once they have handled the transitions already published.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Consumer consumer : consumers) {
+            LockSupport.unpark(consumer.thread);
+            try {
+                consumer.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private long slowestConsumer() {
+        long slowest = Long.MAX_VALUE;
+        for (Consumer consumer : consumers) {
+            slowest = Math.min(slowest, consumer.sequence.getAcquire());
+        }
+        return slowest;
+    }
+
+    private static void idle(int attempt) {
+        if (attempt < SPINS) {
+            Thread.onSpinWait();
+        } else if (attempt < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    /**
+     * A handler with the name of the thread it runs on.
+     */
+    record NamedHandler(String name, Handler handler) {}
+
+    /**
+     * A transition in the ring; written only by the publisher that claimed its sequence
+     * and read by consumers once that sequence is marked published.
+     */
+    private static final class Slot {
+        private Ride ride;
+        private RideState state;
+        private RideEvent event;
+    }
+
+    private final class Consumer implements Runnable {
+        private final Handler handler;
+        // The last sequence this consumer has handled.
+        private final AtomicLong sequence = new AtomicLong(-1);
+        // Set while the consumer is parked or about to park, so that publishers unpark it.
+        private volatile boolean parked;
+        private Thread thread;
+
+        private Consumer(Handler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            long next = 0;
+            int attempt = 0;
+            while (true) {
+                long first = next;
+                while (published.getAcquire((int) (next & mask)) == next) {
+                    Slot slot = slots[(int) (next & mask)];
+                    try {
+                        handler.onTransition(slot.ride, slot.state, slot.event);
+                    } catch (RuntimeException e) {
+                        logger.error("Error handling transition of ride {} to {}", slot.ride.getId(), slot.state, e);
+                    }
+                    next++;
+                }
+                if (next > first) {
+                    sequence.setRelease(next - 1);
+                    attempt = 0;
+                } else if (closed) {
+                    return;
+                } else if (attempt < SPINS + YIELDS) {
+                    idle(attempt++);
+                } else {
+                    awaitPublished(next);
+                }
+            }
+        }
+
+        /**
+         * Parks until the given sequence is published or the ring is closed. The flag is
+         * raised before the slot is checked again, and publishers mark the slot before they
+         * check the flag, so a publication cannot slip between the check and the park.
+         */
+        private void awaitPublished(long next) {
+            parked = true;
+            while (published.get((int) (next & mask)) != next && !closed) {
+                LockSupport.park(this);
+            }
+            parked = false;
+        }
+    }
+}
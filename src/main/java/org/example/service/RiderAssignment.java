@@ -0,0 +1,24 @@
+package org.example.service;
+
+import java.math.BigDecimal;
+
+/**
+ * The driver assigned to a rider by a batch match, in which no two riders of the batch are
+ * given the same driver.
+ *
+ * @param riderId         The ID of the rider
+ * @param driverId        The assigned driver's ID, or null if no driver could be assigned
+ * @param distance        The driver's distance from the rider, in the unit of the configured
+ *                        {@link DistanceEngine}; 0 when no driver was assigned
+ * @param surgeMultiplier The surge multiplier a ride started at the rider's location would
+ *                        currently be billed with
+ */
+public record RiderAssignment(String riderId, String driverId, double distance, BigDecimal surgeMultiplier) {
+
+    /**
+     * @return Whether a driver was assigned
+     */
+    public boolean isAssigned() {
+        return driverId != null;
+    }
+}
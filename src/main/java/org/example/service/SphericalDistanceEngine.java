@@ -0,0 +1,71 @@
+package org.example.service;
+
+import org.example.model.Driver;
+
+/**
+ * Base of the {@link DistanceEngine}s measuring kilometres on a spherical Earth.
+ * A search computes the exact latitude and longitude bounds of its radius once and rejects
+ * drivers outside them with plain comparisons; the distance to the remaining drivers uses
+ * their cached {@link Driver#getCosLatitude() cosine of latitude}. Longitude differences
+ * wrap around the antimeridian.
+ */
+abstract class SphericalDistanceEngine implements DistanceEngine {
+
+    // Mean Earth radius in kilometres.
+    static final double EARTH_RADIUS = 6371.0088;
+
+    @Override
+    public double distance(double startLatitude, double startLongitude, double endLatitude, double endLongitude) {
+        return sphericalDistance(Math.cos(Math.toRadians(startLatitude)), Math.cos(Math.toRadians(endLatitude)),
+                endLatitude - startLatitude, longitudeDifference(startLongitude, endLongitude));
+    }
+
+    @Override
+    public Search search(double latitude, double longitude, double radius) {
+        double angle = radius / EARTH_RADIUS;
+        double latitudeSpan = Math.toDegrees(angle);
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        // Past a pole every longitude is in range; otherwise the widest point of the circle.
+        double longitudeSpan = Math.abs(latitude) + latitudeSpan >= 90 ? 180
+                : Math.toDegrees(Math.asin(Math.sin(angle) / cosLatitude));
+        return new Search() {
+            @Override
+            public double degreeRadius() {
+                return Math.min(Math.max(latitudeSpan, longitudeSpan), 180);
+            }
+
+            @Override
+            public double distanceTo(Driver driver) {
+                double latitudeDifference = driver.getLatitude() - latitude;
+                if (Math.abs(latitudeDifference) > latitudeSpan) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                double longitudeDifference = longitudeDifference(longitude, driver.getLongitude());
+                if (Math.abs(longitudeDifference) > longitudeSpan) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                return sphericalDistance(cosLatitude, driver.getCosLatitude(), latitudeDifference, longitudeDifference);
+            }
+        };
+    }
+
+    /**
+     * Calculates the distance between two points from their precomputed properties.
+     *
+     * @param startCosLatitude    Cosine of the first point's latitude
+     * @param endCosLatitude      Cosine of the second point's latitude
+     * @param latitudeDifference  Latitude of the second point minus that of the first, in degrees
+     * @param longitudeDifference Longitude difference in degrees, between -180 and 180
+     * @return The distance in kilometres
+     */
+    abstract double sphericalDistance(double startCosLatitude, double endCosLatitude,
+                                      double latitudeDifference, double longitudeDifference);
+
+    private static double longitudeDifference(double startLongitude, double endLongitude) {
+        double difference = endLongitude - startLongitude;
+        if (difference > 180) {
+            return difference - 360;
+        }
+        return difference < -180 ? difference + 360 : difference;
+    }
+}
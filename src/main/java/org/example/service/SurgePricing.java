@@ -0,0 +1,176 @@
+package org.example.service;
+
+import org.example.model.Driver;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Surge multipliers per square grid cell, derived from match requests against available drivers.
+ * <p>
+ * Recording a match request is a single increment of the cell's {@link LongAdder}, which
+ * stripes contended updates instead of locking. Every interval {@link #recompute} drains
+ * the counters into exponentially decaying averages of demand (requests per minute) and
+ * supply (available drivers), and publishes an immutable map of the cells whose demand
+ * exceeds the threshold per driver. Looking up a multiplier reads that map and does no
+ * other work.
+ * <p>
+ * A cell's multiplier is its demand per available driver divided by the threshold, rounded
+ * down to a tenth and capped; cells at or under the threshold have no surge.
+ */
+public class SurgePricing {
+
+    /**
+     * Surge pricing that is switched off: requests are not counted and every multiplier is 1.
+     */
+    public static final SurgePricing NONE = new SurgePricing();
+
+    // Averages below this many requests per minute are forgotten along with their cell.
+    private static final double IDLE_DEMAND = 0.01;
+
+    private final boolean enabled;
+    private final double cellSize;
+    private final double demandThreshold;
+    private final double maxMultiplier;
+    private final double intervalMinutes;
+    private final double decay;
+    private final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+    private volatile Map<Long, BigDecimal> multipliers = Map.of();
+
+    /**
+     * Creates surge pricing with no recorded demand.
+     *
+     * @param cellSize        The edge length of a cell in degrees
+     * @param demandThreshold Match requests per available driver per minute above which a cell surges
+     * @param maxMultiplier   The highest multiplier applied
+     * @param interval        The time between calls to {@link #recompute}
+     * @param halfLife        The time after which a past request or driver counts half as much
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public SurgePricing(double cellSize, double demandThreshold, double maxMultiplier,
+                        Duration interval, Duration halfLife) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Surge cell size must be greater than 0");
+        }
+        if (!(demandThreshold > 0)) {
+            throw new IllegalArgumentException("Surge demand threshold must be greater than 0");
+        }
+        if (!(maxMultiplier >= 1)) {
+            throw new IllegalArgumentException("Maximum surge multiplier must be at least 1");
+        }
+        if (interval.isNegative() || interval.isZero() || halfLife.isNegative() || halfLife.isZero()) {
+            throw new IllegalArgumentException("Surge interval and half-life must be positive");
+        }
+        this.enabled = true;
+        this.cellSize = cellSize;
+        this.demandThreshold = demandThreshold;
+        this.maxMultiplier = maxMultiplier;
+        this.intervalMinutes = interval.toNanos() / 60e9;
+        this.decay = Math.pow(0.5, (double) interval.toNanos() / halfLife.toNanos());
+    }
+
+    private SurgePricing() {
+        this.enabled = false;
+        this.cellSize = 1;
+        this.demandThreshold = 1;
+        this.maxMultiplier = 1;
+        this.intervalMinutes = 1;
+        this.decay = 0;
+    }
+
+    /**
+     * Counts a match request made at a location.
+     *
+     * @param latitude  The latitude of the rider
+     * @param longitude The longitude of the rider
+     */
+    public void recordRequest(double latitude, double longitude) {
+        if (!enabled) {
+            return;
+        }
+        long key = cellKey(latitude, longitude);
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            cell = cells.computeIfAbsent(key, k -> new Cell());
+        }
+        cell.requests.increment();
+    }
+
+    /**
+     * @param latitude  The latitude of a location
+     * @param longitude The longitude of a location
+     * @return The multiplier last computed for the location's cell, 1 if it has no surge
+     */
+    public BigDecimal multiplier(double latitude, double longitude) {
+        Map<Long, BigDecimal> current = multipliers;
+        if (current.isEmpty()) {
+            return BigDecimal.ONE;
+        }
+        return current.getOrDefault(cellKey(latitude, longitude), BigDecimal.ONE);
+    }
+
+    /**
+     * @return The number of cells with a multiplier above 1
+     */
+    public int countSurgingCells() {
+        return multipliers.size();
+    }
+
+    /**
+     * Folds the requests counted since the last call and the drivers now available into
+     * each cell's averages, and publishes the resulting multipliers. Called from a single
+     * thread once per interval.
+     *
+     * @param drivers All registered drivers; only available ones count as supply
+     */
+    public void recompute(Iterable<Driver> drivers) {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Integer> supply = new HashMap<>();
+        for (Driver driver : drivers) {
+            if (driver.isAvailable()) {
+                supply.merge(cellKey(driver.getLatitude(), driver.getLongitude()), 1, Integer::sum);
+            }
+        }
+
+        Map<Long, BigDecimal> surging = new HashMap<>();
+        for (Iterator<Map.Entry<Long, Cell>> it = cells.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Cell> entry = it.next();
+            Cell cell = entry.getValue();
+            long requests = cell.requests.sumThenReset();
+            cell.demand = decay * cell.demand + (1 - decay) * (requests / intervalMinutes);
+            cell.supply = decay * cell.supply + (1 - decay) * supply.getOrDefault(entry.getKey(), 0);
+            if (requests == 0 && cell.demand < IDLE_DEMAND) {
+                // A request racing with the removal may go uncounted, which the averages absorb.
+                it.remove();
+                continue;
+            }
+            double pressure = cell.demand / (demandThreshold * Math.max(cell.supply, 1));
+            double multiplier = Math.min(Math.floor(pressure * 10) / 10, maxMultiplier);
+            if (multiplier > 1) {
+                surging.put(entry.getKey(), BigDecimal.valueOf(multiplier).setScale(1, RoundingMode.DOWN));
+            }
+        }
+        multipliers = Map.copyOf(surging);
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        long row = (long) Math.floor(latitude / cellSize);
+        long col = (long) Math.floor(longitude / cellSize);
+        return (row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    private static final class Cell {
+        final LongAdder requests = new LongAdder();
+        // Only read and written by recompute.
+        double demand;
+        double supply;
+    }
+}
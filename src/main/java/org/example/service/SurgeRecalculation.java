@@ -0,0 +1,62 @@
+package org.example.service;
+
+import org.example.config.RideConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recomputes surge multipliers in the background, so that matching and billing only read them.
+ * Enabled by {@code ride.surge.enabled}; runs every {@code ride.surge.interval.seconds}.
+ */
+@Component
+public class SurgeRecalculation {
+
+    private static final Logger logger = LoggerFactory.getLogger(SurgeRecalculation.class);
+
+    private final RideConfiguration config;
+    private final RideService rideService;
+    private ScheduledExecutorService recalculations;
+
+    public SurgeRecalculation(RideConfiguration config, RideService rideService) {
+        this.config = config;
+        this.rideService = rideService;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isSurgeEnabled()) {
+            return;
+        }
+        long interval = config.getSurgeIntervalSeconds();
+        recalculations = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ride-surge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Fixed rate, as the demand averages assume one recomputation per interval.
+        recalculations.scheduleAtFixedRate(this::recalculate, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (recalculations != null) {
+            recalculations.shutdown();
+            recalculations.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private void recalculate() {
+        try {
+            rideService.recomputeSurge();
+        } catch (RuntimeException e) {
+            logger.error("Error recomputing surge multipliers", e);
+        }
+    }
+}
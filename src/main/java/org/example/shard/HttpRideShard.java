@@ -0,0 +1,116 @@
+package org.example.shard;
+
+import org.example.service.BillDetails;
+import org.example.service.LocationEntry;
+import org.example.service.MatchCandidates;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A shard running in another process, reached through its {@code /api/shard} endpoints.
+ * Requests the shard rejects as bad are rethrown as {@link IllegalArgumentException}s with
+ * the shard's message; other failures surface as Spring's {@code RestClientException}s.
+ */
+public class HttpRideShard implements RideShard {
+
+    private final RestTemplate rest;
+    private final String url;
+
+    /**
+     * @param rest    The client to send requests with
+     * @param baseUrl The shard's base URL, such as {@code http://localhost:8081}
+     */
+    public HttpRideShard(RestTemplate rest, String baseUrl) {
+        this.rest = rest;
+        this.url = (baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl) + "/api/shard";
+    }
+
+    @Override
+    public void addDriver(String id, double latitude, double longitude) {
+        call(() -> rest.postForObject(url + "/drivers?id={id}&latitude={latitude}&longitude={longitude}",
+                null, String.class, id, latitude, longitude));
+    }
+
+    @Override
+    public void updateDriverLocation(String id, double latitude, double longitude) {
+        call(() -> {
+            rest.put(url + "/drivers/{id}/location?latitude={latitude}&longitude={longitude}",
+                    null, id, latitude, longitude);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<LocationEntry> removeAvailableDriver(String id) {
+        return find(() -> rest.exchange(url + "/drivers/{id}", HttpMethod.DELETE, null, LocationEntry.class, id)
+                .getBody());
+    }
+
+    @Override
+    public void addRider(String id, double latitude, double longitude) {
+        call(() -> rest.postForObject(url + "/riders?id={id}&latitude={latitude}&longitude={longitude}",
+                null, String.class, id, latitude, longitude));
+    }
+
+    @Override
+    public MatchCandidates findNearbyDrivers(double latitude, double longitude, double ceiling, boolean countDemand) {
+        return call(() -> rest.getForObject(
+                url + "/nearby?latitude={latitude}&longitude={longitude}&ceiling={ceiling}&countDemand={countDemand}",
+                MatchCandidates.class, latitude, longitude, ceiling, countDemand));
+    }
+
+    @Override
+    public String startRideWithDriver(String rideId, String driverId, String riderId) {
+        return call(() -> rest.postForObject(url + "/rides?rideId={rideId}&driverId={driverId}&riderId={riderId}",
+                null, String.class, rideId, driverId, riderId));
+    }
+
+    @Override
+    public String stopRide(String rideId, double endLatitude, double endLongitude, double duration) {
+        return call(() -> rest.postForObject(
+                url + "/rides/{rideId}/stop?endLatitude={endLatitude}&endLongitude={endLongitude}&duration={duration}",
+                null, String.class, rideId, endLatitude, endLongitude, duration));
+    }
+
+    @Override
+    public Optional<BillDetails> generateBill(String rideId) {
+        return find(() -> rest.getForObject(url + "/rides/{rideId}/bill", Bill.class, rideId))
+                .map(bill -> new BillDetails(bill.rideId(), bill.driverId(), bill.totalFare()));
+    }
+
+    @Override
+    public ShardDirectory directory() {
+        return call(() -> rest.getForObject(url + "/directory", ShardDirectory.class));
+    }
+
+    private static <T> T call(Supplier<T> request) {
+        try {
+            return request.get();
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.BAD_REQUEST) {
+                throw new IllegalArgumentException(e.getResponseBodyAsString(), e);
+            }
+            throw e;
+        }
+    }
+
+    private static <T> Optional<T> find(Supplier<T> request) {
+        try {
+            return Optional.ofNullable(call(request));
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    // BillDetails has no constructor Jackson can bind to.
+    private record Bill(String rideId, String driverId, BigDecimal totalFare) {}
+}
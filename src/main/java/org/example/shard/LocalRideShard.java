@@ -0,0 +1,73 @@
+package org.example.shard;
+
+import org.example.service.BillDetails;
+import org.example.service.LocationEntry;
+import org.example.service.MatchCandidates;
+import org.example.service.RideService;
+
+import java.util.Optional;
+
+/**
+ * A shard backed by a {@link RideService} in the same process, such as this node's own
+ * service or one of several services run side by side in tests.
+ */
+public class LocalRideShard implements RideShard {
+
+    private final RideService rideService;
+
+    public LocalRideShard(RideService rideService) {
+        this.rideService = rideService;
+    }
+
+    /**
+     * @return The service this shard delegates to
+     */
+    public RideService getRideService() {
+        return rideService;
+    }
+
+    @Override
+    public void addDriver(String id, double latitude, double longitude) {
+        rideService.addDriver(id, latitude, longitude);
+    }
+
+    @Override
+    public void updateDriverLocation(String id, double latitude, double longitude) {
+        rideService.updateDriverLocation(id, latitude, longitude);
+    }
+
+    @Override
+    public Optional<LocationEntry> removeAvailableDriver(String id) {
+        return rideService.removeAvailableDriver(id);
+    }
+
+    @Override
+    public void addRider(String id, double latitude, double longitude) {
+        rideService.addRider(id, latitude, longitude);
+    }
+
+    @Override
+    public MatchCandidates findNearbyDrivers(double latitude, double longitude, double ceiling, boolean countDemand) {
+        return rideService.findNearbyDrivers(latitude, longitude, ceiling, countDemand);
+    }
+
+    @Override
+    public String startRideWithDriver(String rideId, String driverId, String riderId) {
+        return rideService.startRideWithDriver(rideId, driverId, riderId);
+    }
+
+    @Override
+    public String stopRide(String rideId, double endLatitude, double endLongitude, double duration) {
+        return rideService.stopRide(rideId, endLatitude, endLongitude, duration);
+    }
+
+    @Override
+    public Optional<BillDetails> generateBill(String rideId) {
+        return rideService.generateBill(rideId);
+    }
+
+    @Override
+    public ShardDirectory directory() {
+        return ShardDirectory.of(rideService);
+    }
+}
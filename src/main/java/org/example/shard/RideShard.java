@@ -0,0 +1,71 @@
+package org.example.shard;
+
+import org.example.service.BillDetails;
+import org.example.service.LocationEntry;
+import org.example.service.MatchCandidates;
+
+import java.util.Optional;
+
+/**
+ * One {@code RideService} instance as seen by a {@link ShardedRideService}, either in the
+ * same process or reached over the network. Methods fail as the corresponding
+ * {@code RideService} methods do, with an {@link IllegalArgumentException}.
+ */
+public interface RideShard {
+
+    /**
+     * Adds or re-registers a driver.
+     */
+    void addDriver(String id, double latitude, double longitude);
+
+    /**
+     * Moves a registered driver.
+     *
+     * @throws IllegalArgumentException if the driver is not registered with this shard
+     */
+    void updateDriverLocation(String id, double latitude, double longitude);
+
+    /**
+     * Takes an available driver out of this shard so that another shard can take it over.
+     *
+     * @return The driver's last location, or an empty Optional if it is unknown or not available
+     */
+    Optional<LocationEntry> removeAvailableDriver(String id);
+
+    /**
+     * Adds or re-registers a rider.
+     */
+    void addRider(String id, double latitude, double longitude);
+
+    /**
+     * Finds the available drivers of this shard closest to a location.
+     *
+     * @param ceiling     The largest radius to search
+     * @param countDemand Whether the search counts as a match request for surge pricing
+     */
+    MatchCandidates findNearbyDrivers(double latitude, double longitude, double ceiling, boolean countDemand);
+
+    /**
+     * Starts a ride of a rider with a driver, both registered with this shard.
+     *
+     * @throws IllegalArgumentException if the ride cannot be started
+     */
+    String startRideWithDriver(String rideId, String driverId, String riderId);
+
+    /**
+     * Stops a ride owned by this shard.
+     *
+     * @throws IllegalArgumentException if the ride is unknown or already completed
+     */
+    String stopRide(String rideId, double endLatitude, double endLongitude, double duration);
+
+    /**
+     * @return The bill of a completed ride owned by this shard, or an empty Optional
+     */
+    Optional<BillDetails> generateBill(String rideId);
+
+    /**
+     * @return The drivers, riders and rides this shard holds
+     */
+    ShardDirectory directory();
+}
@@ -0,0 +1,46 @@
+package org.example.shard;
+
+import org.example.service.LocationEntry;
+import org.example.service.RideEvent;
+import org.example.service.RideService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What one shard holds, as a router needs it to rebuild its directory on startup: the
+ * registered drivers and riders with their locations, and the rides still in memory.
+ *
+ * @param drivers The drivers registered with the shard, available or on a ride
+ * @param riders  The riders registered with the shard
+ * @param rideIds The IDs of the rides the shard holds in memory
+ */
+public record ShardDirectory(List<LocationEntry> drivers, List<LocationEntry> riders, List<String> rideIds) {
+
+    /**
+     * Lists what a service holds, from the events that would rebuild its state.
+     *
+     * @param rideService The service of the shard
+     * @return The service's drivers, riders and rides
+     */
+    public static ShardDirectory of(RideService rideService) {
+        Map<String, LocationEntry> drivers = new LinkedHashMap<>();
+        List<LocationEntry> riders = new ArrayList<>();
+        List<String> rideIds = new ArrayList<>();
+        rideService.exportState(event -> {
+            if (event instanceof RideEvent.DriverAdded added) {
+                drivers.put(added.driverId(), new LocationEntry(added.driverId(), added.latitude(), added.longitude()));
+            } else if (event instanceof RideEvent.DriverRemoved removed) {
+                // Drivers removed since their rides are only described around those rides.
+                drivers.remove(removed.driverId());
+            } else if (event instanceof RideEvent.RiderAdded added) {
+                riders.add(new LocationEntry(added.riderId(), added.latitude(), added.longitude()));
+            } else if (event instanceof RideEvent.RideStarted started) {
+                rideIds.add(started.rideId());
+            }
+        });
+        return new ShardDirectory(List.copyOf(drivers.values()), riders, rideIds);
+    }
+}
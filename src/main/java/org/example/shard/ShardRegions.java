@@ -0,0 +1,93 @@
+package org.example.shard;
+
+import java.util.BitSet;
+
+/**
+ * Partitions the globe into columns of square regions of {@code ride.shard.region.size}
+ * degrees and gives each shard one contiguous band of columns, from pole to pole, in order
+ * of longitude.
+ * <p>
+ * A region's owner only depends on its column, so the assignment needs no coordination.
+ * Neighbouring regions belong to the same shard except at the edges of the bands, so a
+ * search only reaches into another shard when it comes within its radius of one of those
+ * edges, the antimeridian included.
+ */
+public class ShardRegions {
+
+    private final double regionSize;
+    private final int shardCount;
+    // Columns of regions around a parallel.
+    private final long columns;
+
+    /**
+     * @param regionSize The edge length of a region in degrees
+     * @param shardCount The number of shards regions are assigned to
+     * @throws IllegalArgumentException if the region size is not positive or there are no shards
+     */
+    public ShardRegions(double regionSize, int shardCount) {
+        if (!(regionSize > 0)) {
+            throw new IllegalArgumentException("Shard region size must be greater than 0");
+        }
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.regionSize = regionSize;
+        this.shardCount = shardCount;
+        this.columns = (long) Math.ceil(360 / regionSize);
+    }
+
+    /**
+     * @return The number of shards
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @param latitude  The latitude of a location
+     * @param longitude The longitude of a location
+     * @return The index of the shard owning the location's region
+     */
+    public int shardOf(double latitude, double longitude) {
+        return owner(column(longitude));
+    }
+
+    /**
+     * Finds every shard owning a region that overlaps a square around a location.
+     *
+     * @param latitude     The latitude of the centre of the square
+     * @param longitude    The longitude of the centre of the square
+     * @param degreeRadius Half the edge length of the square, in degrees
+     * @return The indexes of the shards whose regions overlap the square
+     */
+    public BitSet shardsNear(double latitude, double longitude, double degreeRadius) {
+        BitSet shards = new BitSet(shardCount);
+        long firstColumn = column(longitude - degreeRadius);
+        long lastColumn = column(longitude + degreeRadius);
+        // A square reaching over a pole may cover every longitude.
+        if (latitude - degreeRadius < -90 || latitude + degreeRadius > 90
+                || lastColumn - firstColumn + 1 >= columns) {
+            shards.set(0, shardCount);
+            return shards;
+        }
+        // Bands are in column order, so the square's shards run from the first column's to
+        // the last's, wrapping around the antimeridian where the square crosses it.
+        long first = Math.floorMod(firstColumn, columns);
+        long last = first + (lastColumn - firstColumn);
+        if (last < columns) {
+            shards.set(owner(first), owner(last) + 1);
+        } else {
+            shards.set(owner(first), shardCount);
+            shards.set(0, owner(last) + 1);
+        }
+        return shards;
+    }
+
+    private long column(double longitude) {
+        return (long) Math.floor((longitude + 180) / regionSize);
+    }
+
+    private int owner(long column) {
+        return (int) (Math.floorMod(column, columns) * shardCount / columns);
+    }
+}
@@ -0,0 +1,381 @@
+package org.example.shard;
+
+import org.example.config.RideConfiguration;
+import org.example.service.BillDetails;
+import org.example.service.FareCalculator;
+import org.example.service.LocationEntry;
+import org.example.service.MatchCandidates;
+import org.example.service.MatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Routes ride operations to several {@link RideShard}s, each owning the drivers and riders
+ * located in its {@link ShardRegions regions}.
+ * <p>
+ * A match is answered by the rider's shard first. Other shards are only asked when one
+ * of their regions lies within the search radius, or within the distance of the farthest
+ * driver once the rider's shard has found {@code ride.max.matches} drivers. They are asked
+ * in parallel and their drivers merged by distance. As long as every available driver is
+ * registered with the shard owning its location, the merged match is the one a single
+ * service holding every driver would make.
+ * <p>
+ * A ride belongs to the rider's shard: a matched driver registered with another shard is
+ * handed over to it before the ride starts. A driver moving into another shard's region is
+ * handed over on that location update, unless it is on a ride, in which case it stays with
+ * the ride's shard until its first update after the ride.
+ * <p>
+ * The router keeps a directory of the shard each driver and ride lives with and of the
+ * location each rider registered at, so that requests by ID need no broadcast. The
+ * directory lives in this router's memory, so exactly one router may front a set of
+ * shards: another would not know what was registered through this one. A starting router
+ * {@link #rebuildDirectory rebuilds} it from the shards. Location updates racing a
+ * hand-over of the same driver may be rejected as unknown; the driver's next update is
+ * routed to its new shard.
+ */
+public class ShardedRideService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedRideService.class);
+
+    private static final Comparator<MatchCandidates.Candidate> BY_PROXIMITY = Comparator
+            .comparingDouble(MatchCandidates.Candidate::distance)
+            .thenComparing(MatchCandidates.Candidate::driverId);
+
+    private final List<RideShard> shards;
+    private final ShardRegions regions;
+    private final FareCalculator fareCalculator;
+    private final double maxRadius;
+    private final int maxMatches;
+    private final Executor scatter;
+
+    private final Map<String, Integer> driverShards = new ConcurrentHashMap<>();
+    private final Map<String, LocationEntry> riderLocations = new ConcurrentHashMap<>();
+    private final Map<String, Integer> rideShards = new ConcurrentHashMap<>();
+
+    /**
+     * @param shards         The shards, in the order {@code regions} assigns them
+     * @param regions        The assignment of regions to shards
+     * @param config         The ride configuration, for the match radius and limit
+     * @param fareCalculator The calculator whose distance engine turns radii into degrees
+     * @param scatter        The executor that queries neighbouring shards
+     * @throws IllegalArgumentException if the number of shards does not match the regions
+     */
+    public ShardedRideService(List<RideShard> shards, ShardRegions regions, RideConfiguration config,
+                              FareCalculator fareCalculator, Executor scatter) {
+        if (shards.size() != regions.getShardCount()) {
+            throw new IllegalArgumentException("Expected " + regions.getShardCount() + " shards");
+        }
+        this.shards = List.copyOf(shards);
+        this.regions = regions;
+        this.fareCalculator = fareCalculator;
+        this.maxRadius = config.getMaxDistanceRadius().doubleValue();
+        this.maxMatches = config.getMaxMatches();
+        this.scatter = scatter;
+    }
+
+    /**
+     * Adds a new driver to the shard owning its location.
+     * A driver already registered is re-registered with its current shard, as a single
+     * service would, and then handed over if the location belongs to another shard.
+     *
+     * @param id        The unique identifier for the driver
+     * @param latitude  The initial latitude of the driver's location
+     * @param longitude The initial longitude of the driver's location
+     */
+    public void addDriver(String id, double latitude, double longitude) {
+        int target = regions.shardOf(latitude, longitude);
+        Integer owner = driverShards.putIfAbsent(id, target);
+        if (owner == null) {
+            try {
+                shards.get(target).addDriver(id, latitude, longitude);
+            } catch (RuntimeException e) {
+                driverShards.remove(id, target);
+                throw e;
+            }
+            return;
+        }
+        shards.get(owner).addDriver(id, latitude, longitude);
+        if (owner != target) {
+            handOver(id, owner, target, new LocationEntry(id, latitude, longitude));
+        }
+    }
+
+    /**
+     * Moves an existing driver, handing it over to another shard when it is available and
+     * has crossed into that shard's region.
+     *
+     * @param id        The ID of the driver to move
+     * @param latitude  The new latitude of the driver's location
+     * @param longitude The new longitude of the driver's location
+     * @throws IllegalArgumentException if the driver does not exist
+     */
+    public void updateDriverLocation(String id, double latitude, double longitude) {
+        int target = regions.shardOf(latitude, longitude);
+        for (int attempt = 0; ; attempt++) {
+            Integer owner = driverShards.get(id);
+            if (owner == null) {
+                throw new IllegalArgumentException("Driver not found");
+            }
+            if (owner != target && handOver(id, owner, target, new LocationEntry(id, latitude, longitude))) {
+                return;
+            }
+            try {
+                shards.get(owner).updateDriverLocation(id, latitude, longitude);
+                return;
+            } catch (IllegalArgumentException e) {
+                // A ride starting on another shard may have taken the driver over meanwhile.
+                if (attempt > 0 || owner.equals(driverShards.get(id))) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a new rider to the shard owning its location.
+     *
+     * @param id        The unique identifier for the rider
+     * @param latitude  The initial latitude of the rider's location
+     * @param longitude The initial longitude of the rider's location
+     */
+    public void addRider(String id, double latitude, double longitude) {
+        shards.get(regions.shardOf(latitude, longitude)).addRider(id, latitude, longitude);
+        riderLocations.put(id, new LocationEntry(id, latitude, longitude));
+    }
+
+    /**
+     * Matches a rider with nearby available drivers of every shard.
+     *
+     * @param riderId The ID of the rider requesting a match
+     * @return A list of driver IDs sorted by proximity, limited to {@code ride.max.matches} entries
+     */
+    public List<String> matchRider(String riderId) {
+        return matchNearest(riderId).driverIds();
+    }
+
+    /**
+     * Matches a rider with nearby available drivers of every shard, counting the request as
+     * surge demand on the rider's shard.
+     *
+     * @param riderId The ID of the rider requesting a match
+     * @return The matched driver IDs sorted by proximity, the radius of the rider's shard's
+     *         search, and the surge multiplier at the rider's location
+     */
+    public MatchResult matchNearest(String riderId) {
+        LocationEntry rider = riderLocations.get(riderId);
+        return rider == null ? MatchResult.NONE : match(rider, true);
+    }
+
+    private MatchResult match(LocationEntry rider, boolean countDemand) {
+        double latitude = rider.latitude();
+        double longitude = rider.longitude();
+        int home = regions.shardOf(latitude, longitude);
+        MatchCandidates local = shards.get(home).findNearbyDrivers(latitude, longitude, maxRadius, countDemand);
+
+        List<MatchCandidates.Candidate> candidates = local.drivers();
+        // Drivers farther than the farthest of a full local match cannot displace any of it.
+        double reach = candidates.size() >= maxMatches ? candidates.get(candidates.size() - 1).distance() : maxRadius;
+        BitSet neighbours = regions.shardsNear(latitude, longitude,
+                fareCalculator.search(latitude, longitude, reach).degreeRadius());
+        neighbours.clear(home);
+        if (!neighbours.isEmpty()) {
+            candidates = gather(neighbours, latitude, longitude, reach, candidates);
+        }
+
+        List<String> driverIds = new ArrayList<>(candidates.size());
+        for (MatchCandidates.Candidate candidate : candidates) {
+            driverIds.add(candidate.driverId());
+        }
+        return new MatchResult(driverIds, local.radius(), local.surgeMultiplier());
+    }
+
+    private List<MatchCandidates.Candidate> gather(BitSet neighbours, double latitude, double longitude,
+                                                   double reach, List<MatchCandidates.Candidate> local) {
+        List<CompletableFuture<MatchCandidates>> answers = new ArrayList<>(neighbours.cardinality());
+        for (int shard = neighbours.nextSetBit(0); shard >= 0; shard = neighbours.nextSetBit(shard + 1)) {
+            RideShard neighbour = shards.get(shard);
+            answers.add(CompletableFuture.supplyAsync(
+                    () -> neighbour.findNearbyDrivers(latitude, longitude, reach, false), scatter));
+        }
+
+        List<MatchCandidates.Candidate> merged = new ArrayList<>(local);
+        for (CompletableFuture<MatchCandidates> answer : answers) {
+            try {
+                merged.addAll(answer.join().drivers());
+            } catch (CompletionException e) {
+                // An unreachable neighbour leaves its drivers out rather than failing the match.
+                logger.warn("Neighbouring shard failed to answer a match: {}", e.getCause().getMessage());
+            }
+        }
+        merged.sort(BY_PROXIMITY);
+        return merged.size() > maxMatches ? merged.subList(0, maxMatches) : merged;
+    }
+
+    /**
+     * Starts a new ride on the rider's shard, taking the chosen driver over from its shard
+     * first if it is registered elsewhere.
+     *
+     * @param rideId  The unique identifier for the ride
+     * @param index   The index of the chosen driver from the matched list
+     * @param riderId The ID of the rider starting the ride
+     * @return The ride ID if successfully started
+     * @throws IllegalArgumentException if the ride cannot be started due to invalid input,
+     *                                  or the chosen driver was reserved by a concurrent request
+     */
+    public String startRide(String rideId, int index, String riderId) {
+        LocationEntry rider = riderLocations.get(riderId);
+        // Not counted as surge demand: the rider's preceding match request already was.
+        List<String> matchedDrivers = rider == null ? List.of() : match(rider, false).driverIds();
+        if (index < 1 || index > matchedDrivers.size()) {
+            throw new IllegalArgumentException("Invalid ride or already exists");
+        }
+        int home = regions.shardOf(rider.latitude(), rider.longitude());
+        if (rideShards.putIfAbsent(rideId, home) != null) {
+            throw new IllegalArgumentException("Invalid ride or already exists");
+        }
+
+        String driverId = matchedDrivers.get(index - 1);
+        try {
+            Integer owner = driverShards.get(driverId);
+            if (owner == null || owner != home && !handOver(driverId, owner, home, null)) {
+                throw new IllegalArgumentException("Driver is no longer available");
+            }
+        } catch (RuntimeException e) {
+            rideShards.remove(rideId, home);
+            throw e;
+        }
+        // Only a rejection frees the ride ID. Any other failure, such as a read timeout, leaves
+        // it unknown whether the shard started the ride, so the ride stays routed there.
+        try {
+            return shards.get(home).startRideWithDriver(rideId, driverId, riderId);
+        } catch (IllegalArgumentException e) {
+            rideShards.remove(rideId, home);
+            throw e;
+        }
+    }
+
+    /**
+     * Stops an ongoing ride on the shard that owns it.
+     *
+     * @param rideId       The ID of the ride to stop
+     * @param endLatitude  The end latitude of the ride
+     * @param endLongitude The end longitude of the ride
+     * @param duration     The duration of the ride in minutes
+     * @return The ride ID if successfully stopped
+     * @throws IllegalArgumentException if the ride is invalid or already completed
+     */
+    public String stopRide(String rideId, double endLatitude, double endLongitude, double duration) {
+        Integer shard = rideShards.get(rideId);
+        if (shard == null) {
+            throw new IllegalArgumentException("Invalid or already completed ride");
+        }
+        return shards.get(shard).stopRide(rideId, endLatitude, endLongitude, duration);
+    }
+
+    /**
+     * Generates a bill for a completed ride on the shard that owns it.
+     *
+     * @param rideId The ID of the ride for which to generate the bill
+     * @return The bill, or an empty Optional if the ride is invalid or incomplete
+     */
+    public Optional<BillDetails> generateBill(String rideId) {
+        Integer shard = rideShards.get(rideId);
+        if (shard != null) {
+            return shards.get(shard).generateBill(rideId);
+        }
+        // Rides archived before this router started are not listed by their shards.
+        for (RideShard candidate : shards) {
+            Optional<BillDetails> bill = candidate.generateBill(rideId);
+            if (bill.isPresent()) {
+                return bill;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Loads the directory from the shards, as a router must when it starts while they
+     * already hold drivers, riders or rides.
+     *
+     * @throws RuntimeException if a shard cannot be reached, as requests could not be
+     *                          routed to what it holds
+     */
+    public void rebuildDirectory() {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            ShardDirectory directory = shards.get(shard).directory();
+            for (LocationEntry driver : directory.drivers()) {
+                driverShards.put(driver.id(), shard);
+            }
+            for (LocationEntry rider : directory.riders()) {
+                riderLocations.put(rider.id(), rider);
+            }
+            for (String rideId : directory.rideIds()) {
+                rideShards.put(rideId, shard);
+            }
+        }
+    }
+
+    /**
+     * @param driverId The ID of a driver
+     * @return The index of the shard the driver is registered with, or an empty Optional
+     */
+    public Optional<Integer> findDriverShard(String driverId) {
+        return Optional.ofNullable(driverShards.get(driverId));
+    }
+
+    /**
+     * @param rideId The ID of a ride
+     * @return The index of the shard owning the ride, or an empty Optional
+     */
+    public Optional<Integer> findRideShard(String rideId) {
+        return Optional.ofNullable(rideShards.get(rideId));
+    }
+
+    /**
+     * Moves an available driver from one shard to another, registering it at the given
+     * location or, if that is null, where it was. If the target fails to register it, the
+     * driver is taken back out of the target, which may have registered it before failing
+     * to answer, and restored where it was.
+     *
+     * @return Whether the driver was available and is now registered with the target
+     */
+    private boolean handOver(String driverId, int from, int to, LocationEntry location) {
+        Optional<LocationEntry> driver = shards.get(from).removeAvailableDriver(driverId);
+        if (driver.isEmpty()) {
+            return false;
+        }
+        LocationEntry at = location != null ? location : driver.get();
+        driverShards.put(driverId, to);
+        try {
+            shards.get(to).addDriver(driverId, at.latitude(), at.longitude());
+            return true;
+        } catch (RuntimeException e) {
+            restore(driverId, from, to, driver.get(), e);
+            throw e;
+        }
+    }
+
+    private void restore(String driverId, int from, int to, LocationEntry driver, RuntimeException failure) {
+        try {
+            shards.get(to).removeAvailableDriver(driverId);
+            shards.get(from).addDriver(driverId, driver.latitude(), driver.longitude());
+            driverShards.put(driverId, from);
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+            // Neither shard is known to hold the driver, which is unknown until it registers again.
+            driverShards.remove(driverId);
+            logger.error("Driver {} was lost in a failed hand-over to shard {}", driverId, to, e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.example;
+
+import org.example.config.RideConfiguration;
+import org.example.service.BatchMatcher;
+import org.example.service.HungarianAssignment;
+import org.example.service.RideService;
+import org.example.service.RiderAssignment;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BatchMatcherTest {
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private BatchMatcher batchMatcher;
+
+    @Autowired
+    private RideConfiguration config;
+
+    @Test
+    void testHungarianAssignmentIsOptimal() {
+        Random random = new Random(24);
+        for (int trial = 0; trial < 200; trial++) {
+            int rows = 1 + random.nextInt(5);
+            int columns = rows + random.nextInt(3);
+            double[][] cost = new double[rows][columns];
+            for (double[] row : cost) {
+                for (int j = 0; j < columns; j++) {
+                    row[j] = random.nextInt(20);
+                }
+            }
+
+            int[] assignment = HungarianAssignment.solve(cost);
+
+            assertEquals(rows, Arrays.stream(assignment).distinct().count());
+            assertEquals(cheapest(cost, 0, new boolean[columns]), total(cost, assignment), 1e-9);
+        }
+        assertEquals(0, HungarianAssignment.solve(new double[0][0]).length);
+        assertThrows(IllegalArgumentException.class, () -> HungarianAssignment.solve(new double[2][1]));
+    }
+
+    @Test
+    void testCompetingRidersAreGivenDifferentDrivers() {
+        rideService.addDriver("BATCHD1", -80.0, -100.0);
+        rideService.addDriver("BATCHD2", -80.0, -98.0);
+        rideService.addRider("BATCHR1", -80.0, -100.5);
+        rideService.addRider("BATCHR2", -80.0, -99.2);
+        // Matched one at a time, both riders are offered the same closest driver.
+        assertEquals("BATCHD1", rideService.matchRider("BATCHR1").get(0));
+        assertEquals("BATCHD1", rideService.matchRider("BATCHR2").get(0));
+
+        List<RiderAssignment> assignments = batchMatcher.assign(List.of("BATCHR1", "BATCHR2", "BATCHR1", "UNKNOWN"));
+
+        assertEquals(List.of("BATCHR1", "BATCHR2", "UNKNOWN"),
+                assignments.stream().map(RiderAssignment::riderId).toList());
+        assertEquals("BATCHD1", assignments.get(0).driverId());
+        assertEquals(0.5, assignments.get(0).distance(), 1e-9);
+        assertEquals("BATCHD2", assignments.get(1).driverId());
+        assertEquals(1.2, assignments.get(1).distance(), 1e-9);
+        assertFalse(assignments.get(2).isAssigned());
+    }
+
+    @Test
+    void testAsManyRidersAsPossibleAreServed() {
+        rideService.addDriver("SERVED1", 80.0, -100.0);
+        rideService.addDriver("SERVED2", 80.0, -97.0);
+        // The first rider is closest to the first driver, the only one the second rider can reach.
+        rideService.addRider("SERVEDR1", 80.0, -99.0);
+        rideService.addRider("SERVEDR2", 80.0, -103.0);
+
+        List<RiderAssignment> assignments = batchMatcher.assign(List.of("SERVEDR1", "SERVEDR2"));
+
+        assertEquals("SERVED2", assignments.get(0).driverId());
+        assertEquals("SERVED1", assignments.get(1).driverId());
+
+        rideService.addRider("SERVEDR3", 80.0, -104.0);
+        assignments = batchMatcher.assign(List.of("SERVEDR2", "SERVEDR3", "SERVEDR1"));
+        assertEquals("SERVED1", assignments.get(0).driverId());
+        assertFalse(assignments.get(1).isAssigned());
+        assertEquals("SERVED2", assignments.get(2).driverId());
+    }
+
+    @Test
+    void testMoreCompetingRidersThanMaxMatchesAreAllServed() {
+        // Seven riders share the same five nearest drivers, more than ride.max.matches returns.
+        List<String> riders = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            rideService.addDriver("CROWDD" + i, -85.0, 40.0 + 0.3 * i);
+            rideService.addRider("CROWDR" + i, -85.0, 40.0);
+            riders.add("CROWDR" + i);
+        }
+
+        List<RiderAssignment> assignments = batchMatcher.assign(riders);
+
+        assertTrue(assignments.stream().allMatch(RiderAssignment::isAssigned));
+        assertEquals(7, assignments.stream().map(RiderAssignment::driverId).distinct().count());
+    }
+
+    @Test
+    void testFullBatchOfDenseRidersIsAllServed() {
+        // As many riders as ride.match.batch.max.riders and as many drivers, all within a degree.
+        int riders = config.getBatchMatchMaxRiders();
+        Random random = new Random(7);
+        List<String> riderIds = new ArrayList<>();
+        for (int i = 0; i < riders; i++) {
+            rideService.addDriver("DENSED" + i, 70.0 + random.nextDouble(), 150.0 + random.nextDouble());
+            rideService.addRider("DENSER" + i, 70.0 + random.nextDouble(), 150.0 + random.nextDouble());
+            riderIds.add("DENSER" + i);
+        }
+
+        List<RiderAssignment> assignments = batchMatcher.assign(riderIds);
+
+        assertTrue(assignments.stream().allMatch(RiderAssignment::isAssigned));
+        assertEquals(riders, assignments.stream().map(RiderAssignment::driverId).distinct().count());
+    }
+
+    @Test
+    void testRequestsInOneWindowAreAssignedTogether() throws Exception {
+        int riders = 5;
+        for (int i = 0; i < riders; i++) {
+            rideService.addDriver("WINDOWD" + i, 85.0, 10.0 + 0.3 * i);
+            rideService.addRider("WINDOWR" + i, 85.0, 10.0);
+        }
+
+        List<CompletableFuture<RiderAssignment>> pending = new ArrayList<>();
+        for (int i = 0; i < riders; i++) {
+            pending.add(batchMatcher.match("WINDOWR" + i));
+        }
+        Set<String> drivers = new HashSet<>();
+        for (int i = 0; i < riders; i++) {
+            RiderAssignment assignment = pending.get(i).get(10, TimeUnit.SECONDS);
+            assertTrue(assignment.isAssigned(), assignment.riderId());
+            drivers.add(assignment.driverId());
+            assertEquals("WINDOWRIDE" + i,
+                    rideService.startRideWithDriver("WINDOWRIDE" + i, assignment.driverId(), "WINDOWR" + i));
+        }
+        assertEquals(riders, drivers.size());
+    }
+
+    private static double total(double[][] cost, int[] assignment) {
+        double total = 0;
+        for (int row = 0; row < assignment.length; row++) {
+            total += cost[row][assignment[row]];
+        }
+        return total;
+    }
+
+    private static double cheapest(double[][] cost, int row, boolean[] taken) {
+        if (row == cost.length) {
+            return 0;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int column = 0; column < taken.length; column++) {
+            if (!taken[column]) {
+                taken[column] = true;
+                best = Math.min(best, cost[row][column] + cheapest(cost, row + 1, taken));
+                taken[column] = false;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import org.example.service.BillCache;
+import org.example.service.BillDetails;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BillCacheTest {
+
+    private final List<String> loads = new ArrayList<>();
+
+    private Optional<BillDetails> load(String rideId) {
+        loads.add(rideId);
+        return rideId.startsWith("OPEN") ? Optional.empty()
+                : Optional.of(new BillDetails(rideId, "D1", new BigDecimal("10.00")));
+    }
+
+    @Test
+    void testHitReturnsCachedBillWithoutLoading() {
+        BillCache cache = new BillCache(4, this::load);
+
+        Optional<BillDetails> first = cache.get("RIDE1");
+        Optional<BillDetails> second = cache.get("RIDE1");
+
+        assertSame(first, second);
+        assertEquals(List.of("RIDE1"), loads);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void testMissingBillsAreNotCached() {
+        BillCache cache = new BillCache(4, this::load);
+
+        assertTrue(cache.get("OPEN1").isEmpty());
+        assertTrue(cache.get("OPEN1").isEmpty());
+
+        assertEquals(List.of("OPEN1", "OPEN1"), loads);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testEvictionKeepsRecentlyReadBills() {
+        BillCache cache = new BillCache(2, this::load);
+        cache.get("RIDE1");
+        cache.get("RIDE2");
+        cache.get("RIDE1");
+
+        cache.get("RIDE3");
+        loads.clear();
+        cache.get("RIDE1");
+        cache.get("RIDE3");
+        cache.get("RIDE2");
+
+        assertEquals(List.of("RIDE2"), loads);
+        assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,95 @@
+package org.example;
+
+import org.example.controller.BinaryRideController;
+import org.example.controller.RideWireFormat;
+import org.example.service.BillDetails;
+import org.example.service.RideService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(BinaryRideController.class)
+class BinaryRideControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RideService rideService;
+
+    @Test
+    void testMatchRider() throws Exception {
+        when(rideService.matchRider("R1")).thenReturn(List.of("D1", "D2"));
+
+        mockMvc.perform(get("/api/binary/match/R1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(content().bytes(RideWireFormat.encodeMatches(List.of("D1", "D2"))));
+    }
+
+    @Test
+    void testStartAndStopRide() throws Exception {
+        when(rideService.startRide("RIDE1", 1, "R1")).thenReturn("RIDE1");
+        when(rideService.stopRide("RIDE1", 11.0, 21.0, 15)).thenReturn("RIDE1");
+
+        mockMvc.perform(post("/api/binary/start")
+                        .content(RideWireFormat.encodeStart(new RideWireFormat.StartRequest("RIDE1", 1, "R1")))
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/binary/stop")
+                        .content(RideWireFormat.encodeStop(new RideWireFormat.StopRequest("RIDE1", 11.0, 21.0, 15)))
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(status().isOk());
+
+        verify(rideService).startRide("RIDE1", 1, "R1");
+        verify(rideService).stopRide("RIDE1", 11.0, 21.0, 15);
+    }
+
+    @Test
+    void testStartRideRejected() throws Exception {
+        when(rideService.startRide("RIDE1", 3, "R1"))
+                .thenThrow(new IllegalArgumentException("Invalid ride or already exists"));
+
+        mockMvc.perform(post("/api/binary/start")
+                        .content(RideWireFormat.encodeStart(new RideWireFormat.StartRequest("RIDE1", 3, "R1")))
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid ride or already exists"));
+    }
+
+    @Test
+    void testStopRideMalformedRecord() throws Exception {
+        mockMvc.perform(post("/api/binary/stop")
+                        .content(new byte[]{0, 5, 'R'})
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Truncated record"));
+
+        verifyNoInteractions(rideService);
+    }
+
+    @Test
+    void testGenerateBill() throws Exception {
+        BillDetails bill = new BillDetails("RIDE1", "D1", new BigDecimal("101.52"));
+        when(rideService.generateBill("RIDE1")).thenReturn(Optional.of(bill));
+        when(rideService.generateBill("RIDE2")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/binary/bill/RIDE1"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(RideWireFormat.encodeBill(bill)));
+        mockMvc.perform(get("/api/binary/bill/RIDE2"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid or incomplete ride."));
+    }
+}
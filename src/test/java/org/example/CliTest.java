@@ -1,6 +1,8 @@
 package org.example;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,11 +12,15 @@ import org.springframework.test.annotation.DirtiesContext;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SpringBootTest(classes = RiderApplication.class)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
@@ -134,6 +140,44 @@ class CliTest {
                 Exiting the application.
                 """),
 
+                new TestData("UpdateDriverLocation",
+                """
+                ADD_DRIVER D1 50.0 50.0
+                ADD_RIDER R1 12.0 22.0
+                MATCH R1
+                UPDATE_LOCATION D1 10.0 20.0
+                MATCH R1
+                QUIT
+                """,
+                """
+                Driver added successfully.
+                Rider added successfully.
+                No drivers matched for Rider ID: R1
+                Driver location updated.
+                Matched drivers: D1
+                Exiting the application.
+                """),
+
+                new TestData("UpdateDriverLocationInvalidParameters",
+                """
+                UPDATE_LOCATION D1 10.0
+                QUIT
+                """,
+                """
+                Invalid parameters.Usage: UPDATE_LOCATION <driver_id> <latitude> <longitude>
+                Exiting the application.
+                """),
+
+                new TestData("UpdateDriverLocationUnknownDriver",
+                """
+                UPDATE_LOCATION D9 10.0 20.0
+                QUIT
+                """,
+                """
+                Error updating driver location: Driver not found
+                Exiting the application.
+                """),
+
                 new TestData("StopRideInvalidParameters",
                 """
                 STOP_RIDE RIDE1
@@ -229,4 +273,25 @@ class CliTest {
         RiderApplication.runCliMode(context);
         assertEquals(testCase.expected().trim(), getFilteredOutput().trim());
     }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("cliTestCases")
+    void testBulkCliCommands(TestData testCase, @TempDir Path directory) throws IOException {
+        Path input = Files.writeString(directory.resolve("commands.txt"), testCase.input());
+        Path output = directory.resolve("results.txt");
+
+        RiderApplication.runBulkCliMode(context, input, output);
+
+        assertEquals(testCase.expected().trim(), Files.readString(output).trim());
+    }
+
+    @Test
+    void testBulkCliLeavesOutputUntouchedWhenInputIsMissing(@TempDir Path directory) throws IOException {
+        Path output = Files.writeString(directory.resolve("results.txt"), "Earlier results\n");
+
+        assertThrows(IOException.class,
+                () -> RiderApplication.runBulkCliMode(context, directory.resolve("missing.txt"), output));
+
+        assertEquals("Earlier results\n", Files.readString(output));
+    }
 }
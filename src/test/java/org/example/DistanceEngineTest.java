@@ -0,0 +1,123 @@
+package org.example;
+
+import org.example.model.Driver;
+import org.example.service.DistanceEngine;
+import org.example.service.EquirectangularDistanceEngine;
+import org.example.service.EuclideanDistanceEngine;
+import org.example.service.HaversineDistanceEngine;
+import org.example.service.RideService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"ride.distance.engine=HAVERSINE", "ride.max.distance.radius=20",
+        "ride.match.initial.radius=5"})
+class DistanceEngineTest {
+
+    private final DistanceEngine haversine = new HaversineDistanceEngine();
+    private final DistanceEngine equirectangular = new EquirectangularDistanceEngine();
+
+    @Autowired
+    private RideService rideService;
+
+    @Test
+    void testHaversineMeasuresGreatCircleKilometres() {
+        assertEquals(343.56, haversine.distance(51.5074, -0.1278, 48.8566, 2.3522), 0.01);
+        assertEquals(111.195, haversine.distance(0, 0, 1, 0), 0.001);
+        assertEquals(55.597, haversine.distance(60, 10, 60, 11), 0.001);
+        assertEquals(22.239, haversine.distance(0, 179.9, 0, -179.9), 0.001);
+        assertEquals(20015.1, haversine.distance(0, 0, 0, 180), 0.1);
+    }
+
+    @Test
+    void testEquirectangularStaysCloseToHaversineOverCityDistances() {
+        Random random = new Random(11);
+        for (int i = 0; i < 10_000; i++) {
+            double latitude = -70 + 140 * random.nextDouble();
+            double longitude = -180 + 360 * random.nextDouble();
+            double endLatitude = latitude + random.nextDouble() - 0.5;
+            double endLongitude = longitude + random.nextDouble() - 0.5;
+            double exact = haversine.distance(latitude, longitude, endLatitude, endLongitude);
+
+            assertEquals(exact, equirectangular.distance(latitude, longitude, endLatitude, endLongitude),
+                    exact * 0.001 + 1e-9);
+        }
+    }
+
+    @Test
+    void testSearchAgreesWithDistanceInsideTheBoundingBox() {
+        Random random = new Random(5);
+        for (DistanceEngine engine : List.of(haversine, equirectangular)) {
+            for (int i = 0; i < 10_000; i++) {
+                double latitude = -85 + 170 * random.nextDouble();
+                double longitude = -180 + 360 * random.nextDouble();
+                double radius = 1 + 50 * random.nextDouble();
+                DistanceEngine.Search search = engine.search(latitude, longitude, radius);
+                Driver driver = new Driver("D1", Math.max(-90, Math.min(90, latitude + random.nextDouble() - 0.5)),
+                        longitude + 2 * random.nextDouble() - 1);
+                double distance = engine.distance(latitude, longitude, driver.getLatitude(), driver.getLongitude());
+
+                double found = search.distanceTo(driver);
+                if (found == Double.POSITIVE_INFINITY) {
+                    assertTrue(distance > radius * 0.999, "Rejected a driver " + distance + " km away");
+                } else {
+                    assertEquals(distance, found, 1e-9);
+                }
+                if (distance <= radius) {
+                    assertTrue(Math.abs(driver.getLatitude() - latitude) <= search.degreeRadius());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSearchNearThePoleCoversAllLongitudes() {
+        DistanceEngine.Search search = haversine.search(89.9, 0, 50);
+
+        assertEquals(180, search.degreeRadius());
+        assertTrue(search.distanceTo(new Driver("D1", 89.9, 180)) < 50);
+    }
+
+    @Test
+    void testEuclideanSearchKeepsPlanarDegrees() {
+        DistanceEngine.Search search = new EuclideanDistanceEngine().search(0, 0, 5);
+
+        assertEquals(5, search.degreeRadius());
+        assertEquals(5, search.distanceTo(new Driver("D1", 3, 4)));
+        assertEquals(Double.POSITIVE_INFINITY, search.distanceTo(new Driver("D2", 5.5, 0)));
+    }
+
+    @Test
+    void testRidersAreMatchedAndBilledByGreatCircleDistance() {
+        // At 60 degrees north a degree of longitude is half as long as a degree of latitude.
+        rideService.addDriver("GEOD1", 60.15, 10.0);
+        rideService.addDriver("GEOD2", 60.0, 10.25);
+        rideService.addDriver("GEOD3", 60.0, 10.5);
+        rideService.addRider("GEOR1", 60.0, 10.0);
+
+        assertEquals(List.of("GEOD2", "GEOD1"), rideService.matchRider("GEOR1"));
+
+        rideService.startRide("GEORIDE1", 1, "GEOR1");
+        rideService.stopRide("GEORIDE1", 60.0, 11.0, 10);
+        // (50 + 6.5 * 55.59746 km + 2 * 10 min) * 1.2
+        assertEquals(new BigDecimal("517.66"), rideService.generateBill("GEORIDE1").orElseThrow().getTotalFare());
+    }
+
+    @Test
+    void testRidersAreMatchedAcrossTheAntimeridian() {
+        rideService.addDriver("DATELINED1", -17.0, 179.95);
+        rideService.addDriver("DATELINED2", -17.0, -179.9);
+        rideService.addDriver("DATELINED3", -17.0, 179.8);
+        rideService.addRider("DATELINER1", -17.0, -179.98);
+        rideService.addRider("DATELINER2", -17.0, 179.98);
+
+        assertEquals(List.of("DATELINED1", "DATELINED2"), rideService.matchRider("DATELINER1"));
+        assertEquals(List.of("DATELINED1", "DATELINED2", "DATELINED3"), rideService.matchRider("DATELINER2"));
+    }
+}
@@ -0,0 +1,105 @@
+package org.example;
+
+import org.example.config.DistanceArithmetic;
+import org.example.model.Driver;
+import org.example.model.Ride;
+import org.example.model.Rider;
+import org.example.service.FareCalculator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies that the primitive double fare path bills exactly what the BigDecimal path bills.
+ */
+@SpringBootTest
+class FareParityTest {
+
+    private static final int SAMPLES = 50_000;
+
+    @Autowired
+    private FareCalculator fareCalculator;
+
+    record KnownFare(double startLatitude, double startLongitude,
+                     double endLatitude, double endLongitude, double duration, String expected) {}
+
+    static Stream<KnownFare> knownFares() {
+        return Stream.of(
+                new KnownFare(10.5, 20.5, 11.0, 21.0, 15.0, "101.52"),
+                new KnownFare(12.0, 22.0, 15.0, 24.0, 15.0, "124.12"),
+                new KnownFare(0.0, 0.0, 3.0, 4.0, 10.0, "123.00"),
+                new KnownFare(0.0, 0.0, 0.0, 0.0, 1.0, "62.40"),
+                // Half-cent ties: exact fares of 117.795 and 72.585, which a double sum can land either side of.
+                new KnownFare(10.0, 20.0, 10.025, 20.0, 24.0, "117.80"),
+                new KnownFare(10.0, 20.0, 10.075, 20.0, 5.0, "72.58")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("knownFares")
+    void testKnownFaresMatchInBothArithmetics(KnownFare fare) {
+        Ride ride = ride(fare.startLatitude(), fare.startLongitude(),
+                fare.endLatitude(), fare.endLongitude(), fare.duration());
+
+        assertEquals(new BigDecimal(fare.expected()), bill(ride, DistanceArithmetic.BIG_DECIMAL));
+        assertEquals(new BigDecimal(fare.expected()), bill(ride, DistanceArithmetic.DOUBLE));
+    }
+
+    @Test
+    void testRandomRidesProduceIdenticalFares() {
+        Random random = new Random(42);
+        assertParity(random, () -> -90 + 180 * random.nextDouble(), () -> 1 + random.nextInt(120));
+    }
+
+    @Test
+    void testOneDecimalCoordinatesProduceIdenticalFares() {
+        Random random = new Random(7);
+        assertParity(random, () -> random.nextInt(1800) / 10.0 - 90, () -> random.nextInt(240) / 2.0 + 0.5);
+    }
+
+    @Test
+    void testIntegerCoordinatesProduceIdenticalFares() {
+        Random random = new Random(2024);
+        assertParity(random, () -> random.nextInt(181) - 90, () -> 1 + random.nextInt(120));
+    }
+
+    private void assertParity(Random random, DoubleSupplier coordinate, DoubleSupplier duration) {
+        for (int i = 0; i < SAMPLES; i++) {
+            double startLatitude = coordinate.getAsDouble();
+            double startLongitude = coordinate.getAsDouble() * 2;
+            double endLatitude = random.nextBoolean() ? coordinate.getAsDouble() : startLatitude + random.nextDouble() - 0.5;
+            double endLongitude = random.nextBoolean() ? coordinate.getAsDouble() * 2 : startLongitude + random.nextDouble() - 0.5;
+            Ride ride = ride(startLatitude, startLongitude, endLatitude, endLongitude, duration.getAsDouble());
+
+            assertEquals(bill(ride, DistanceArithmetic.BIG_DECIMAL), bill(ride, DistanceArithmetic.DOUBLE),
+                    "Fare mismatch for ride " + describe(ride));
+        }
+    }
+
+    private BigDecimal bill(Ride ride, DistanceArithmetic arithmetic) {
+        return fareCalculator.calculateFare(ride, arithmetic).setScale(2, RoundingMode.HALF_EVEN);
+    }
+
+    private static Ride ride(double startLatitude, double startLongitude,
+                             double endLatitude, double endLongitude, double duration) {
+        Ride ride = new Ride("PARITY", new Driver("DP1", startLatitude, startLongitude),
+                new Rider("RP1", startLatitude, startLongitude));
+        ride.endRide(endLatitude, endLongitude, duration);
+        return ride;
+    }
+
+    private static String describe(Ride ride) {
+        return String.format("(%s, %s) -> (%s, %s) in %s min", ride.getStartLatitude(), ride.getStartLongitude(),
+                ride.getEndLatitude(), ride.getEndLongitude(), ride.getDuration());
+    }
+}
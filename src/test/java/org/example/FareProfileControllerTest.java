@@ -0,0 +1,73 @@
+package org.example;
+
+import org.example.config.FareProfile;
+import org.example.config.FareProfiles;
+import org.example.config.RideConfiguration;
+import org.example.controller.FareProfileController;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(FareProfileController.class)
+class FareProfileControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private FareProfiles fareProfiles;
+
+    @MockBean
+    private RideConfiguration config;
+
+    @Test
+    void testCurrentProfile() throws Exception {
+        when(fareProfiles.current()).thenReturn(new FareProfile(3, new BigDecimal("50"),
+                new BigDecimal("6.5"), new BigDecimal("2"), new BigDecimal("1.2")));
+
+        mockMvc.perform(get("/api/admin/fare-profile"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(3))
+                .andExpect(jsonPath("$.baseFare").value(50))
+                .andExpect(jsonPath("$.distanceCoefficient").value(7.8));
+    }
+
+    @Test
+    void testPublishProfile() throws Exception {
+        when(fareProfiles.publish(new BigDecimal("80"), null, null, null)).thenReturn(new FareProfile(2,
+                new BigDecimal("80"), new BigDecimal("6.5"), new BigDecimal("2"), new BigDecimal("1.2")));
+
+        mockMvc.perform(put("/api/admin/fare-profile").param("baseFare", "80"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(2))
+                .andExpect(jsonPath("$.baseCoefficient").value(96.0));
+    }
+
+    @Test
+    void testPublishInvalidProfile() throws Exception {
+        when(fareProfiles.publish(null, null, null, BigDecimal.ZERO))
+                .thenThrow(new IllegalArgumentException("Service tax multiplier must be positive"));
+
+        mockMvc.perform(put("/api/admin/fare-profile").param("serviceTaxMultiplier", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Service tax multiplier must be positive"));
+    }
+
+    @Test
+    void testReloadWithoutFile() throws Exception {
+        when(config.getFareProfileFile()).thenReturn("");
+
+        mockMvc.perform(post("/api/admin/fare-profile/reload"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("No fare profile file is configured"));
+        verify(fareProfiles, never()).load(any());
+    }
+}
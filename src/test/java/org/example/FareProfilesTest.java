@@ -0,0 +1,110 @@
+package org.example;
+
+import org.example.config.FareProfile;
+import org.example.config.FareProfiles;
+import org.example.config.RideConfiguration;
+import org.example.service.FareCalculator;
+import org.example.service.RideMetrics;
+import org.example.service.RideService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class FareProfilesTest {
+
+    @Autowired
+    private RideConfiguration config;
+
+    @Autowired
+    private RideMetrics metrics;
+
+    @TempDir
+    Path directory;
+
+    // Not the shared bean, so publishing here cannot change fares seen by other tests.
+    private FareProfiles fareProfiles;
+    private RideService rideService;
+
+    @BeforeEach
+    void setUp() {
+        fareProfiles = new FareProfiles(config);
+        rideService = new RideService(config, new FareCalculator(config, fareProfiles), metrics);
+    }
+
+    @Test
+    void testInitialProfileFoldsTaxIntoCoefficients() {
+        FareProfile profile = fareProfiles.current();
+
+        assertEquals(1, profile.getVersion());
+        assertEquals(0, new BigDecimal("60").compareTo(profile.getBaseCoefficient()));
+        assertEquals(0, new BigDecimal("7.8").compareTo(profile.getDistanceCoefficient()));
+        assertEquals(0, new BigDecimal("2.4").compareTo(profile.getTimeCoefficient()));
+        assertEquals(0, new BigDecimal("123").compareTo(profile.fare(new BigDecimal("5"), new BigDecimal("10"))));
+    }
+
+    @Test
+    void testRidesAreBilledWithTheProfileCurrentAtTheirStart() {
+        rideService.addDriver("D1", 10.0, 20.0);
+        rideService.addDriver("D2", -10.0, -20.0);
+        rideService.addRider("R1", 10.5, 20.5);
+        rideService.addRider("R2", -10.5, -20.5);
+        rideService.startRide("RIDE1", 1, "R1");
+
+        FareProfile published = fareProfiles.publish(new BigDecimal("100"), null, null, null);
+        rideService.startRide("RIDE2", 1, "R2");
+        rideService.stopRide("RIDE1", 11.0, 21.0, 15);
+        rideService.stopRide("RIDE2", -11.0, -21.0, 15);
+
+        assertEquals(2, published.getVersion());
+        assertEquals(0, new BigDecimal("6.5").compareTo(published.getDistanceFareRate()));
+        assertEquals(1, rideService.findRide("RIDE1").orElseThrow().getFareProfile().getVersion());
+        assertEquals(2, rideService.findRide("RIDE2").orElseThrow().getFareProfile().getVersion());
+        assertEquals(new BigDecimal("101.52"), rideService.generateBill("RIDE1").orElseThrow().getTotalFare());
+        assertEquals(new BigDecimal("161.52"), rideService.generateBill("RIDE2").orElseThrow().getTotalFare());
+    }
+
+    @Test
+    void testPublishingUnchangedRatesKeepsTheVersion() {
+        FareProfile initial = fareProfiles.current();
+
+        assertSame(initial, fareProfiles.publish(new BigDecimal("50.00"), null, null, null));
+        assertSame(initial, fareProfiles.publish(null, null, null, null));
+    }
+
+    @Test
+    void testInvalidRatesAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> fareProfiles.publish(new BigDecimal("-1"), null, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> fareProfiles.publish(null, null, null, BigDecimal.ZERO));
+        assertEquals(1, fareProfiles.current().getVersion());
+    }
+
+    @Test
+    void testLoadPublishesTheRatesInAFile() throws IOException {
+        Path file = directory.resolve("fares.properties");
+        Files.writeString(file, "# Evening rates\nride.time.fare.rate=3\nride.service.tax.multiplier = 1.25\n");
+
+        FareProfile loaded = fareProfiles.load(file);
+
+        assertEquals(2, loaded.getVersion());
+        assertEquals(0, new BigDecimal("50").compareTo(loaded.getBaseFare()));
+        assertEquals(0, new BigDecimal("3").compareTo(loaded.getTimeFareRate()));
+        assertEquals(0, new BigDecimal("1.25").compareTo(loaded.getServiceTaxMultiplier()));
+        assertSame(loaded, fareProfiles.load(file));
+
+        Files.writeString(file, "ride.base.fare=fifty\n");
+        assertThrows(IllegalArgumentException.class, () -> fareProfiles.load(file));
+        assertSame(loaded, fareProfiles.current());
+    }
+}
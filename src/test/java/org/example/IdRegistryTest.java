@@ -0,0 +1,93 @@
+package org.example;
+
+import org.example.service.IdRegistry;
+import org.example.service.RideService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class IdRegistryTest {
+
+    @Autowired
+    private RideService rideService;
+
+    @Test
+    void testHandlesAreDenseAndStable() {
+        IdRegistry registry = new IdRegistry();
+
+        assertEquals(IdRegistry.NONE, registry.find("D1"));
+        assertEquals(0, registry.intern("D1"));
+        assertEquals(1, registry.intern("D2"));
+        assertEquals(0, registry.intern("D1"));
+        assertEquals(1, registry.find("D2"));
+        assertEquals("D2", registry.idOf(1));
+        assertEquals(2, registry.size());
+        assertThrows(IllegalArgumentException.class, () -> registry.idOf(2));
+        assertThrows(IllegalArgumentException.class, () -> registry.idOf(IdRegistry.NONE));
+
+        for (int i = 2; i < 1000; i++) {
+            assertEquals(i, registry.intern("D" + (i + 1)));
+        }
+        assertEquals("D1000", registry.idOf(999));
+        assertEquals(0, registry.find("D1"));
+    }
+
+    @Test
+    void testConcurrentInternsAgreeOnEachHandle() throws Exception {
+        IdRegistry registry = new IdRegistry();
+        int threads = 8;
+        int ids = 2000;
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        CountDownLatch ready = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    for (int i = 0; i < ids; i++) {
+                        int handle = registry.intern("ID" + i);
+                        seen.add(handle + "=" + registry.idOf(handle));
+                    }
+                    return null;
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(ids, registry.size());
+        assertEquals(ids, seen.size());
+        for (int i = 0; i < ids; i++) {
+            assertEquals("ID" + i, registry.idOf(registry.find("ID" + i)));
+        }
+    }
+
+    @Test
+    void testRemovedDriversCanRegisterAgain() {
+        rideService.addDriver("HANDLED1", -60.0, -150.0);
+        rideService.addRider("HANDLER1", -60.0, -150.1);
+        assertEquals(List.of("HANDLED1"), rideService.matchRider("HANDLER1"));
+
+        assertTrue(rideService.removeAvailableDriver("HANDLED1").isPresent());
+        assertEquals(List.of(), rideService.matchRider("HANDLER1"));
+        assertTrue(rideService.removeAvailableDriver("HANDLED1").isEmpty());
+
+        rideService.addDriver("HANDLED1", -60.0, -150.2);
+        assertEquals("HANDLERIDE1", rideService.startRide("HANDLERIDE1", 1, "HANDLER1"));
+        assertEquals("HANDLED1", rideService.findRide("HANDLERIDE1").orElseThrow().getDriver().getId());
+    }
+}
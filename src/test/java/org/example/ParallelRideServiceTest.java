@@ -0,0 +1,54 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the ride service tests with every match split across partitions.
+ */
+@SpringBootTest(properties = {"ride.match.parallel.threshold=1", "ride.match.parallel.partitions=7"})
+class ParallelRideServiceTest extends RideServiceTest {
+
+    record Position(String id, double latitude, double longitude) {}
+
+    @Test
+    void testPartitionedMatchEqualsExhaustiveSearch() {
+        Random random = new Random(13);
+        List<Position> fleet = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            // Coarse coordinates produce distance ties, which must resolve as in a single scan.
+            Position position = new Position("PAR" + i,
+                    -25 + random.nextInt(61) / 10.0, 125 + random.nextInt(61) / 10.0);
+            fleet.add(position);
+            rideService.addDriver(position.id(), position.latitude(), position.longitude());
+        }
+
+        for (int i = 0; i < 20; i++) {
+            double latitude = -25 + random.nextDouble() * 6;
+            double longitude = 125 + random.nextDouble() * 6;
+            rideService.addRider("PARR" + i, latitude, longitude);
+
+            List<String> expected = fleet.stream()
+                    .filter(position -> distance(position, latitude, longitude) <= 5.0)
+                    .sorted(Comparator.<Position>comparingDouble(position -> distance(position, latitude, longitude))
+                            .thenComparing(Position::id))
+                    .limit(5)
+                    .map(Position::id)
+                    .toList();
+            assertEquals(expected, rideService.matchRider("PARR" + i));
+        }
+    }
+
+    private static double distance(Position position, double latitude, double longitude) {
+        double xDiff = position.latitude() - latitude;
+        double yDiff = position.longitude() - longitude;
+        return Math.sqrt(xDiff * xDiff + yDiff * yDiff);
+    }
+}
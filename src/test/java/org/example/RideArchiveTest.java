@@ -0,0 +1,153 @@
+package org.example;
+
+import org.example.config.RideConfiguration;
+import org.example.persistence.FileRideArchive;
+import org.example.service.BillDetails;
+import org.example.service.FareCalculator;
+import org.example.service.RideMetrics;
+import org.example.service.RideService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class RideArchiveTest {
+
+    @Autowired
+    private RideConfiguration config;
+
+    @Autowired
+    private FareCalculator fareCalculator;
+
+    @Autowired
+    private RideMetrics metrics;
+
+    @TempDir
+    Path directory;
+
+    private RideService rideService;
+    private FileRideArchive archive;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        rideService = new RideService(config, fareCalculator, metrics);
+        archive = FileRideArchive.open(directory);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        archive.close();
+    }
+
+    @Test
+    void testCompletedRidesAreArchivedAndStillBilled() {
+        rideService.setArchive(archive);
+        rideService.addDriver("D1", 10.0, 20.0);
+        rideService.addDriver("D2", -10.0, -20.0);
+        rideService.addRider("R1", 10.5, 20.5);
+        rideService.addRider("R2", -10.5, -20.5);
+        rideService.startRide("RIDE1", 1, "R1");
+        rideService.stopRide("RIDE1", 11.0, 21.0, 15);
+        rideService.startRide("RIDE2", 1, "R2");
+
+        assertEquals(0, rideService.archiveCompletedRides(Duration.ofHours(1)));
+        assertEquals(1, rideService.archiveCompletedRides(Duration.ZERO));
+
+        assertTrue(rideService.findRide("RIDE1").isEmpty());
+        assertTrue(rideService.findRide("RIDE2").isPresent());
+        Optional<BillDetails> bill = rideService.generateBill("RIDE1");
+        assertTrue(bill.isPresent());
+        assertEquals("D1", bill.get().getDriverId());
+        assertEquals(new BigDecimal("101.52"), bill.get().getTotalFare());
+        assertTrue(rideService.generateBill("RIDE2").isEmpty());
+        assertTrue(rideService.generateBill("RIDE3").isEmpty());
+        assertEquals(0, rideService.archiveCompletedRides(Duration.ZERO));
+    }
+
+    @Test
+    void testRidesCompletedBeforeArchivingAreArchived() {
+        rideService.addDriver("D1", 10.0, 20.0);
+        rideService.addRider("R1", 10.5, 20.5);
+        rideService.startRide("RIDE1", 1, "R1");
+        rideService.stopRide("RIDE1", 11.0, 21.0, 15);
+
+        rideService.setArchive(archive);
+
+        assertEquals(1, rideService.archiveCompletedRides(Duration.ZERO));
+        assertEquals(new BigDecimal("101.52"), rideService.generateBill("RIDE1").orElseThrow().getTotalFare());
+    }
+
+    @Test
+    void testArchivedRideIdsCannotBeReused() {
+        rideService.setArchive(archive);
+        rideService.addDriver("D1", 10.0, 20.0);
+        rideService.addRider("R1", 10.5, 20.5);
+        rideService.startRide("RIDE1", 1, "R1");
+        rideService.stopRide("RIDE1", 11.0, 21.0, 15);
+        assertEquals(1, rideService.archiveCompletedRides(Duration.ZERO));
+
+        assertThrows(IllegalArgumentException.class, () -> rideService.startRide("RIDE1", 1, "R1"));
+        assertThrows(IllegalArgumentException.class, () -> rideService.startRideWithDriver("RIDE1", "D1", "R1"));
+        assertEquals(new BigDecimal("101.52"), rideService.generateBill("RIDE1").orElseThrow().getTotalFare());
+        assertEquals(List.of("D1"), rideService.matchRider("R1"));
+        assertEquals("RIDE2", rideService.startRide("RIDE2", 1, "R1"));
+    }
+
+    @Test
+    void testRideIdsWithTheSameHashAreToldApart() throws IOException {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        archive.append(List.of(new BillDetails("Aa", "D1", new BigDecimal("1.00"))));
+        archive.append(List.of(new BillDetails("BB", "D2", new BigDecimal("2.00"))));
+
+        for (int reopened = 0; reopened < 2; reopened++) {
+            assertEquals("D1", archive.find("Aa").orElseThrow().getDriverId());
+            assertEquals(new BigDecimal("2.00"), archive.find("BB").orElseThrow().getTotalFare());
+            assertTrue(archive.find("C#").isEmpty());
+            archive.close();
+            archive = FileRideArchive.open(directory);
+        }
+    }
+
+    @Test
+    void testArchiveSurvivesReopenAndDropsTornRecord() throws IOException {
+        List<BillDetails> bills = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            bills.add(new BillDetails("RIDE" + i, "D" + (i % 7), BigDecimal.valueOf(5000 + i, 2)));
+        }
+        archive.append(bills.subList(0, 300));
+        archive.append(bills.subList(300, 500));
+        archive.close();
+        Path bucket;
+        try (Stream<Path> files = Files.list(directory)) {
+            bucket = files.filter(file -> file.toFile().length() > 0).findFirst().orElseThrow();
+        }
+        Files.write(bucket, new byte[]{0, 9, 'R', 'I'}, StandardOpenOption.APPEND);
+
+        archive = FileRideArchive.open(directory);
+        archive.append(List.of(new BillDetails("RIDE500", "D9", new BigDecimal("12.34"))));
+
+        for (BillDetails expected : bills) {
+            BillDetails found = archive.find(expected.getRideId()).orElseThrow();
+            assertEquals(expected.getDriverId(), found.getDriverId());
+            assertEquals(expected.getTotalFare(), found.getTotalFare());
+        }
+        assertEquals(new BigDecimal("12.34"), archive.find("RIDE500").orElseThrow().getTotalFare());
+        assertTrue(archive.find("RIDE501").isEmpty());
+    }
+}
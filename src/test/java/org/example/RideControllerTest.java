@@ -2,18 +2,26 @@ package org.example;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.controller.RideController;
+import org.example.service.BatchItemResult;
+import org.example.service.BatchMatcher;
 import org.example.service.BillDetails;
+import org.example.service.LocationEntry;
+import org.example.service.MatchResult;
 import org.example.service.RideService;
+import org.example.service.RiderAssignment;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -28,6 +36,9 @@ class RideControllerTest {
     @MockBean
     private RideService rideService;
 
+    @MockBean
+    private BatchMatcher batchMatcher;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -47,6 +58,35 @@ class RideControllerTest {
 
     }
 
+    @Test
+    void testUpdateDriverLocation() throws Exception {
+        // Arrange
+        doNothing().when(rideService).updateDriverLocation("D1", 11.5, 21.5);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/drivers/D1/location")
+                        .param("latitude", "11.5")
+                        .param("longitude", "21.5")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Driver location updated."));
+    }
+
+    @Test
+    void testUpdateDriverLocationUnknownDriver() throws Exception {
+        // Arrange
+        doThrow(new IllegalArgumentException("Driver not found"))
+                .when(rideService).updateDriverLocation("D9", 11.5, 21.5);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/drivers/D9/location")
+                        .param("latitude", "11.5")
+                        .param("longitude", "21.5")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Driver not found"));
+    }
+
     @Test
     void testAddRider() throws Exception {
         // Arrange
@@ -63,6 +103,74 @@ class RideControllerTest {
 
     }
 
+    @Test
+    void testAddDriversBatch() throws Exception {
+        // Arrange
+        List<LocationEntry> drivers = List.of(new LocationEntry("D1", 10.5, 20.3), new LocationEntry("D2", 95.0, 20.3));
+        when(rideService.addDrivers(drivers)).thenReturn(List.of(
+                BatchItemResult.succeeded("D1", "Driver added successfully."),
+                BatchItemResult.failed("D2", "Latitude must be between -90 and 90")));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/drivers/batch")
+                        .content(objectMapper.writeValueAsString(drivers))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        [{"id":"D1","success":true,"message":"Driver added successfully."},
+                         {"id":"D2","success":false,"message":"Latitude must be between -90 and 90"}]
+                        """));
+    }
+
+    @Test
+    void testAddDriversBatchPassesMissingCoordinatesOnAsNull() throws Exception {
+        // Arrange
+        when(rideService.addDrivers(List.of(new LocationEntry("D3", null, 20.3))))
+                .thenReturn(List.of(BatchItemResult.failed("D3", "Latitude is required")));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/drivers/batch")
+                        .content("[{\"id\":\"D3\",\"longitude\":20.3}]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":\"D3\",\"success\":false,\"message\":\"Latitude is required\"}]"));
+    }
+
+    @Test
+    void testAddRidersBatchFromLines() throws Exception {
+        // Arrange
+        when(rideService.addRiders(List.of(new LocationEntry("R1", 15.2, 25.4), new LocationEntry("R3", 1.0, 2.0))))
+                .thenReturn(List.of(
+                        BatchItemResult.succeeded("R1", "Rider added successfully."),
+                        BatchItemResult.succeeded("R3", "Rider added successfully.")));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/riders/batch")
+                        .content("R1,15.2,25.4\nR2,abc,25.4\n\nR3, 1.0, 2.0\n")
+                        .contentType(MediaType.TEXT_PLAIN))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        [{"id":"R1","success":true},
+                         {"id":"R2","success":false,"message":"For input string: \\"abc\\""},
+                         {"id":"R3","success":true}]
+                        """));
+    }
+
+    @Test
+    void testUpdateDriverLocationsBatch() throws Exception {
+        // Arrange
+        List<LocationEntry> locations = List.of(new LocationEntry("D1", 11.0, 21.0));
+        when(rideService.updateDriverLocations(locations))
+                .thenReturn(List.of(BatchItemResult.succeeded("D1", "Driver location updated.")));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/drivers/locations/batch")
+                        .content(objectMapper.writeValueAsString(locations))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":\"D1\",\"success\":true}]"));
+    }
+
     @Test
     void testMatchRider() throws Exception {
         // Arrange
@@ -75,6 +183,18 @@ class RideControllerTest {
                 .andExpect(content().json("[\"D1\",\"D2\",\"D3\"]"));
     }
 
+    @Test
+    void testMatchRiderDetails() throws Exception {
+        // Arrange
+        when(rideService.matchNearest("R1")).thenReturn(new MatchResult(List.of("D1", "D2"), 2.0));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/match/R1/details")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"driverIds\":[\"D1\",\"D2\"],\"radius\":2.0}"));
+    }
+
     @Test
     void testStartRideValid() throws Exception {
         // Arrange
@@ -140,6 +260,84 @@ class RideControllerTest {
                 .andExpect(content().string("Invalid or already completed ride"));
     }
 
+    @Test
+    void testAssignDriverAnswersOnceTheBatchIsSolved() throws Exception {
+        // Arrange
+        CompletableFuture<RiderAssignment> assignment = new CompletableFuture<>();
+        when(batchMatcher.match("R1")).thenReturn(assignment);
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/assign/R1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assignment.complete(new RiderAssignment("R1", "D2", 1.5, BigDecimal.ONE));
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.riderId").value("R1"))
+                .andExpect(jsonPath("$.driverId").value("D2"))
+                .andExpect(jsonPath("$.distance").value(1.5));
+    }
+
+    @Test
+    void testStartRideWithDriverValid() throws Exception {
+        // Arrange
+        when(rideService.startRideWithDriver("ride123", "D2", "R1")).thenReturn("ride123");
+
+        // Act & Assert
+        mockMvc.perform(post("/api/start/driver")
+                        .param("rideId", "ride123")
+                        .param("driverId", "D2")
+                        .param("riderId", "R1")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isOk())
+                .andExpect(content().string("ride123"));
+    }
+
+    @Test
+    void testStartRideWithDriverTaken() throws Exception {
+        // Arrange
+        when(rideService.startRideWithDriver("ride123", "D2", "R1"))
+                .thenThrow(new IllegalArgumentException("Driver is no longer available"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/start/driver")
+                        .param("rideId", "ride123")
+                        .param("driverId", "D2")
+                        .param("riderId", "R1")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Driver is no longer available"));
+    }
+
+    @Test
+    void testCancelRideValid() throws Exception {
+        // Arrange
+        when(rideService.cancelRide("ride123")).thenReturn("ride123");
+
+        // Act & Assert
+        mockMvc.perform(post("/api/cancel")
+                        .param("rideId", "ride123")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isOk())
+                .andExpect(content().string("ride123"));
+    }
+
+    @Test
+    void testCancelRideInvalid() throws Exception {
+        // Arrange
+        when(rideService.cancelRide("ride123"))
+                .thenThrow(new IllegalArgumentException("Invalid or already completed ride"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/cancel")
+                        .param("rideId", "ride123")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid or already completed ride"));
+    }
+
     @Test
     void testGenerateBillValid() throws Exception {
         // Arrange
@@ -0,0 +1,104 @@
+package org.example;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.config.RideConfiguration;
+import org.example.service.FareCalculator;
+import org.example.service.RideMetrics;
+import org.example.service.RideService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class RideMetricsTest {
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private RideConfiguration config;
+
+    @Autowired
+    private FareCalculator fareCalculator;
+
+    @Autowired
+    private RideMetrics metrics;
+
+    @Test
+    void testMatchRecordsLatencyCandidatesAndResults() {
+        rideService.addDriver("METRIC1", -60.0, -150.0);
+        rideService.addDriver("METRIC2", -60.5, -150.5);
+        rideService.addRider("METRICR1", -60.2, -150.2);
+        long matches = registry.get("ride.match.latency").timer().count();
+        double candidates = registry.get("ride.match.candidates").summary().totalAmount();
+        double results = registry.get("ride.match.results").summary().totalAmount();
+
+        rideService.matchRider("METRICR1");
+
+        assertEquals(matches + 1, registry.get("ride.match.latency").timer().count());
+        assertTrue(registry.get("ride.match.candidates").summary().totalAmount() >= candidates + 2);
+        assertEquals(results + 2, registry.get("ride.match.results").summary().totalAmount());
+    }
+
+    @Test
+    void testRideLifecycleUpdatesCountersAndGauges() {
+        rideService.addDriver("METRIC3", 60.0, -150.0);
+        rideService.addRider("METRICR3", 60.2, -150.2);
+        double started = count("ride.start", "started");
+        double rejected = count("ride.start", "rejected");
+        double stopped = count("ride.stop", "stopped");
+        double active = registry.get("ride.rides.active").gauge().value();
+
+        rideService.startRide("METRICRIDE3", 1, "METRICR3");
+        assertThrows(IllegalArgumentException.class, () -> rideService.startRide("METRICRIDE3", 1, "METRICR3"));
+
+        assertEquals(started + 1, count("ride.start", "started"));
+        assertEquals(rejected + 1, count("ride.start", "rejected"));
+        assertEquals(active + 1, registry.get("ride.rides.active").gauge().value());
+        assertTrue(registry.get("ride.drivers").tag("state", "busy").gauge().value() >= 1);
+
+        rideService.stopRide("METRICRIDE3", 61.0, -150.0, 10);
+
+        assertEquals(stopped + 1, count("ride.stop", "stopped"));
+        assertEquals(active, registry.get("ride.rides.active").gauge().value());
+    }
+
+    @Test
+    void testBillCacheHitsAndMissesAreExposed() {
+        rideService.addDriver("METRIC4", 20.0, -150.0);
+        rideService.addRider("METRICR4", 20.2, -150.2);
+        rideService.startRide("METRICRIDE4", 1, "METRICR4");
+        rideService.stopRide("METRICRIDE4", 21.0, -150.0, 10);
+        double hits = registry.get("ride.bill.cache").tag("result", "hit").functionCounter().count();
+        double misses = registry.get("ride.bill.cache").tag("result", "miss").functionCounter().count();
+
+        rideService.generateBill("METRICRIDE4");
+        rideService.generateBill("METRICRIDE4");
+
+        assertEquals(hits + 1, registry.get("ride.bill.cache").tag("result", "hit").functionCounter().count());
+        assertEquals(misses + 1, registry.get("ride.bill.cache").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void testGaugesReportTheApplicationService() {
+        RideService other = new RideService(config, fareCalculator, metrics);
+        other.addDriver("METRIC5", 40.0, -150.0);
+        other.addDriver("METRIC6", 40.5, -150.0);
+        rideService.addDriver("METRIC7", 40.0, -151.0);
+
+        assertEquals(rideService.countAvailableDrivers(),
+                registry.get("ride.drivers").tag("state", "available").gauge().value());
+        assertEquals(rideService.countActiveRides(), registry.get("ride.rides.active").gauge().value());
+    }
+
+    private double count(String name, String outcome) {
+        return registry.get(name).tag("outcome", outcome).counter().count();
+    }
+}
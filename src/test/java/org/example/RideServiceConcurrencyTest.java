@@ -0,0 +1,149 @@
+package org.example;
+
+import org.example.service.BillDetails;
+import org.example.service.RideService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress tests for concurrent ride starts against the same drivers and ride IDs.
+ * Runs in its own context on a finer grid; every round uses a separate area so drivers
+ * released by earlier rounds never take part in later ones.
+ */
+@SpringBootTest(properties = "ride.driver.grid.cell.size=2.5")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class RideServiceConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int ROUNDS = 50;
+
+    @Autowired
+    private RideService rideService;
+
+    @Test
+    void testConcurrentStartsNeverDoubleBookADriver() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                String prefix = "C" + round + "X";
+                double latitude = -60.0 + (round / 10) * 12.0;
+                double longitude = -170.0 + (round % 10) * 12.0;
+                int drivers = 4;
+                for (int i = 0; i < drivers; i++) {
+                    rideService.addDriver(prefix + "D" + i, latitude, longitude + i * 0.1);
+                }
+                for (int i = 0; i < THREADS; i++) {
+                    rideService.addRider(prefix + "R" + i, latitude, longitude);
+                }
+
+                List<String> started = runConcurrently(executor, i -> {
+                    // All riders share one spot, so every request races for the same few drivers
+                    String rideId = prefix + "RIDE" + i;
+                    rideService.startRide(rideId, 1 + i % drivers, prefix + "R" + i);
+                    return rideId;
+                });
+
+                assertTrue(started.size() <= drivers, "More rides than drivers in round " + round);
+                Set<String> bookedDrivers = new HashSet<>();
+                for (String rideId : started) {
+                    rideService.stopRide(rideId, latitude + 1.0, longitude + 1.0, 10.0);
+                    BillDetails bill = rideService.generateBill(rideId).orElseThrow();
+                    assertTrue(bookedDrivers.add(bill.getDriverId()),
+                            "Driver " + bill.getDriverId() + " was booked twice in round " + round);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConcurrentStartsWithSameRideIdCreateOneRide() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                String prefix = "S" + round + "X";
+                double latitude = 12.0 + (round / 10) * 12.0;
+                double longitude = 62.0 + (round % 10) * 12.0;
+                for (int i = 0; i < THREADS; i++) {
+                    rideService.addDriver(prefix + "D" + i, latitude, longitude + i * 0.01);
+                    rideService.addRider(prefix + "R" + i, latitude, longitude + i * 0.01);
+                }
+
+                String rideId = prefix + "RIDE";
+                List<String> started = runConcurrently(executor, i -> rideService.startRide(rideId, 1, prefix + "R" + i));
+
+                assertEquals(1, started.size(), "Exactly one start must win in round " + round);
+                // Losing requests must hand their reserved drivers back
+                assertEquals(5, rideService.matchRider(prefix + "R" + (THREADS / 2)).size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testDriverMovingBetweenCellsIsMatchedExactlyOnce() throws Exception {
+        // Cells are 2.5 degrees wide, so the driver crosses a cell boundary on every move.
+        rideService.addDriver("MOVINGD", 75.0, 9.9);
+        rideService.addRider("MOVINGR", 75.0, 10.0);
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> mover = executor.submit(() -> {
+            for (int i = 0; !done.get(); i++) {
+                rideService.updateDriverLocation("MOVINGD", 75.0, i % 2 == 0 ? 10.1 : 9.9);
+            }
+        });
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                assertEquals(List.of("MOVINGD"), rideService.matchRider("MOVINGR"), "Match " + i);
+            }
+        } finally {
+            done.set(true);
+            mover.get(10, TimeUnit.SECONDS);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Releases all tasks at once and collects the results of the ones that did not throw.
+     */
+    private List<String> runConcurrently(ExecutorService executor, IntTask task) throws Exception {
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int taskIndex = i;
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                return task.run(taskIndex);
+            }));
+        }
+        startGate.countDown();
+
+        List<String> succeeded = new ArrayList<>();
+        for (Future<String> future : futures) {
+            try {
+                succeeded.add(future.get(10, TimeUnit.SECONDS));
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            }
+        }
+        return succeeded;
+    }
+
+    @FunctionalInterface
+    private interface IntTask {
+        String run(int index);
+    }
+}
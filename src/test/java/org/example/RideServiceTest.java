@@ -1,6 +1,11 @@
 package org.example;
 
+import org.example.service.BatchItemResult;
+import org.example.service.BillCache;
 import org.example.service.BillDetails;
+import org.example.service.LocationEntry;
+import org.example.service.MatchResult;
+import org.example.service.RideEvent;
 import org.example.service.RideService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +14,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -16,7 +22,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class RideServiceTest {
 
     @Autowired
-    private RideService rideService;
+    RideService rideService;
 
     @Test
     void testAddDriverAndMatchRider() {
@@ -42,6 +48,210 @@ class RideServiceTest {
         assertTrue(matchedDrivers.isEmpty());
     }
 
+    @Test
+    void testMatchRiderAcrossGridCells() {
+        // Rider sits on a cell corner, the driver lies in the neighbouring cell
+        rideService.addDriver("GRID1", -40.5, 99.5);
+        rideService.addRider("GRIDR1", -40.0, 100.0);
+
+        List<String> matchedDrivers = rideService.matchRider("GRIDR1");
+
+        assertEquals(List.of("GRID1"), matchedDrivers);
+    }
+
+    @Test
+    void testMatchRiderAfterDriverReRegistered() {
+        rideService.addDriver("GRID2", -50.2, 110.2);
+        rideService.addRider("GRIDR2", -50.0, 110.0);
+        assertEquals(List.of("GRID2"), rideService.matchRider("GRIDR2"));
+
+        // Re-registering the driver far away must drop it from its old cell
+        rideService.addDriver("GRID2", 60.0, -120.0);
+
+        assertTrue(rideService.matchRider("GRIDR2").isEmpty());
+    }
+
+    @Test
+    void testMatchRiderReturnsClosestDriversInOrder() {
+        rideService.addRider("NEARR1", 70.0, 70.0);
+        rideService.addDriver("NEAR7", 70.0, 73.5);
+        rideService.addDriver("NEAR3", 70.0, 71.5);
+        rideService.addDriver("NEAR1", 70.5, 70.0);
+        rideService.addDriver("NEAR6", 73.0, 70.0);
+        rideService.addDriver("NEAR2", 69.0, 70.0);
+        rideService.addDriver("NEAR5", 67.5, 70.0);
+        rideService.addDriver("NEAR4", 70.0, 72.0);
+        rideService.addDriver("FAR1", 70.0, 76.0);
+
+        List<String> matchedDrivers = rideService.matchRider("NEARR1");
+
+        assertEquals(List.of("NEAR1", "NEAR2", "NEAR3", "NEAR4", "NEAR5"), matchedDrivers);
+    }
+
+    @Test
+    void testMatchRiderBreaksDistanceTiesById() {
+        rideService.addRider("TIER1", -70.0, -70.0);
+        rideService.addDriver("TIEB", -70.0, -69.0);
+        rideService.addDriver("TIEA", -71.0, -70.0);
+        rideService.addDriver("TIEC", -69.0, -70.0);
+
+        assertEquals(List.of("TIEA", "TIEB", "TIEC"), rideService.matchRider("TIER1"));
+    }
+
+    @Test
+    void testMatchNearestAnswersDenseAreaFromFirstRing() {
+        rideService.addDriver("RING1", 30.1, -100.0);
+        rideService.addDriver("RING2", 30.0, -100.2);
+        rideService.addDriver("RING3", 29.7, -100.0);
+        rideService.addDriver("RING4", 30.0, -99.6);
+        rideService.addDriver("RING5", 30.5, -100.0);
+        rideService.addDriver("RING6", 30.0, -98.0);
+        rideService.addRider("RINGR1", 30.0, -100.0);
+
+        MatchResult result = rideService.matchNearest("RINGR1");
+
+        assertEquals(List.of("RING1", "RING2", "RING3", "RING4", "RING5"), result.driverIds());
+        assertEquals(1.0, result.radius());
+    }
+
+    @Test
+    void testMatchNearestExpandsRingsUntilEnoughDrivers() {
+        rideService.addDriver("ESC1", 31.5, -140.0);
+        rideService.addDriver("ESC2", 28.5, -140.0);
+        rideService.addDriver("ESC3", 30.0, -138.5);
+        rideService.addDriver("ESC4", 30.0, -141.5);
+        rideService.addDriver("ESC5", 31.2, -140.9);
+        rideService.addRider("ESCR1", 30.0, -140.0);
+
+        MatchResult result = rideService.matchNearest("ESCR1");
+
+        assertEquals(List.of("ESC1", "ESC2", "ESC3", "ESC4", "ESC5"), result.driverIds());
+        assertEquals(2.0, result.radius());
+        assertEquals(result.driverIds(), rideService.matchRider("ESCR1"));
+    }
+
+    @Test
+    void testMatchNearestSearchesUpToCeilingInSparseArea() {
+        rideService.addDriver("SPARSE1", 30.0, -123.0);
+        rideService.addRider("SPARSER1", 30.0, -120.0);
+        rideService.addRider("SPARSER2", 30.0, -113.0);
+
+        assertEquals(new MatchResult(List.of("SPARSE1"), 5.0), rideService.matchNearest("SPARSER1"));
+        assertEquals(new MatchResult(List.of(), 5.0), rideService.matchNearest("SPARSER2"));
+        assertEquals(MatchResult.NONE, rideService.matchNearest("SPARSER3"));
+    }
+
+    @Test
+    void testUpdateDriverLocationMovesDriverIntoRange() {
+        rideService.addDriver("MOVE1", 45.0, -30.0);
+        rideService.addRider("MOVER1", 45.0, -60.0);
+        assertTrue(rideService.matchRider("MOVER1").isEmpty());
+
+        rideService.updateDriverLocation("MOVE1", 45.5, -59.5);
+
+        assertEquals(List.of("MOVE1"), rideService.matchRider("MOVER1"));
+    }
+
+    @Test
+    void testUpdateDriverLocationDuringRide() {
+        rideService.addDriver("MOVE2", -45.0, 30.0);
+        rideService.addRider("MOVER2", -45.0, 30.5);
+        rideService.startRide("MOVE_RIDE", 1, "MOVER2");
+
+        // The busy driver moves away, then becomes available at its new location
+        rideService.updateDriverLocation("MOVE2", -45.0, 60.0);
+        rideService.stopRide("MOVE_RIDE", -45.0, 60.0, 30);
+
+        assertTrue(rideService.matchRider("MOVER2").isEmpty());
+        rideService.addRider("MOVER3", -45.0, 59.0);
+        assertEquals(List.of("MOVE2"), rideService.matchRider("MOVER3"));
+    }
+
+    @Test
+    void testUpdateDriverLocationUnknownDriver() {
+        Exception exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> rideService.updateDriverLocation("UNKNOWN_DRIVER", 10.0, 20.0)
+        );
+
+        assertEquals("Driver not found", exception.getMessage());
+    }
+
+    @Test
+    void testUpdateDriverLocationRejectsInvalidCoordinates() {
+        rideService.addDriver("MOVE3", 45.0, 90.0);
+
+        assertEquals("Latitude must be between -90 and 90", assertThrows(IllegalArgumentException.class,
+                () -> rideService.updateDriverLocation("MOVE3", Double.NaN, 90.0)).getMessage());
+        assertEquals("Longitude must be between -180 and 180", assertThrows(IllegalArgumentException.class,
+                () -> rideService.updateDriverLocation("MOVE3", 45.0, 180.5)).getMessage());
+        rideService.addRider("MOVER4", 45.0, 90.5);
+        assertEquals(List.of("MOVE3"), rideService.matchRider("MOVER4"));
+    }
+
+    @Test
+    void testLastDriverChangeFollowsDriversNearTheRider() {
+        assertEquals(0, rideService.lastDriverChange("CHANGER1"));
+        rideService.addRider("CHANGER1", -20.0, 140.0);
+        long registered = rideService.lastDriverChange("CHANGER1");
+        assertTrue(registered > 0);
+
+        rideService.addDriver("CHANGED2", 70.0, -40.0);
+        assertEquals(registered, rideService.lastDriverChange("CHANGER1"));
+
+        rideService.addDriver("CHANGED1", -21.0, 141.0);
+        long added = rideService.lastDriverChange("CHANGER1");
+        assertTrue(added > registered);
+
+        rideService.startRide("CHANGERIDE1", 1, "CHANGER1");
+        long claimed = rideService.lastDriverChange("CHANGER1");
+        assertTrue(claimed > added);
+
+        rideService.stopRide("CHANGERIDE1", -21.0, 141.0, 10);
+        long released = rideService.lastDriverChange("CHANGER1");
+        assertTrue(released > claimed);
+
+        rideService.updateDriverLocation("CHANGED1", 60.0, 60.0);
+        assertTrue(rideService.lastDriverChange("CHANGER1") > released);
+    }
+
+    @Test
+    void testAddDriversBatchReportsEachEntry() {
+        List<BatchItemResult> results = rideService.addDrivers(List.of(
+                new LocationEntry("BATCH1", 80.0, 150.0),
+                new LocationEntry("", 80.0, 150.0),
+                new LocationEntry("BATCH2", 95.0, 150.0),
+                new LocationEntry("BATCH3", 80.5, 150.5),
+                new LocationEntry("BATCH5", null, 150.0),
+                new LocationEntry("BATCH6", 80.0, null)
+        ));
+
+        assertEquals(List.of(true, false, false, true, false, false),
+                results.stream().map(BatchItemResult::success).toList());
+        assertEquals("Driver ID cannot be empty", results.get(1).message());
+        assertEquals("Latitude must be between -90 and 90", results.get(2).message());
+        assertEquals("Latitude is required", results.get(4).message());
+        assertEquals("Longitude is required", results.get(5).message());
+
+        rideService.addRiders(List.of(new LocationEntry("BATCHR1", 80.0, 150.0)));
+        assertEquals(List.of("BATCH1", "BATCH3"), rideService.matchRider("BATCHR1"));
+    }
+
+    @Test
+    void testUpdateDriverLocationsBatch() {
+        rideService.addDriver("BATCH4", 85.0, -150.0);
+        rideService.addRider("BATCHR2", 85.0, -170.0);
+
+        List<BatchItemResult> results = rideService.updateDriverLocations(List.of(
+                new LocationEntry("BATCH4", 85.0, -169.0),
+                new LocationEntry("UNKNOWN_DRIVER", 85.0, -169.0)
+        ));
+
+        assertTrue(results.get(0).success());
+        assertEquals("Driver not found", results.get(1).message());
+        assertEquals(List.of("BATCH4"), rideService.matchRider("BATCHR2"));
+    }
+
     @Test
     void testStartAndStopRide() {
         // Add driver and rider
@@ -73,6 +283,19 @@ class RideServiceTest {
         assertEquals("Invalid ride or already exists", exception.getMessage());
     }
 
+    @Test
+    void testStartRideNonPositiveDriverIndex() {
+        rideService.addDriver("ZEROD1", -25.0, -125.0);
+        rideService.addRider("ZEROR1", -25.1, -125.1);
+
+        for (int index : new int[]{0, -1}) {
+            Exception exception = assertThrows(IllegalArgumentException.class,
+                    () -> rideService.startRide("ZERORIDE1", index, "ZEROR1"));
+            assertEquals("Invalid ride or already exists", exception.getMessage());
+        }
+        assertEquals(List.of("ZEROD1"), rideService.matchRider("ZEROR1"));
+    }
+
     @Test
     void testStartRideDuplicateRideId() {
         // Add driver and rider
@@ -160,4 +383,47 @@ class RideServiceTest {
         BillDetails billDetails = billDetailsOptional.get();
         assertEquals(new BigDecimal("101.52"), billDetails.getTotalFare());
     }
+
+    @Test
+    void testGenerateBillIsCachedOnlyOnceRideIsCompleted() {
+        rideService.addDriver("BILL1", -80.0, 150.0);
+        rideService.addRider("BILLR1", -80.5, 150.5);
+        rideService.startRide("BILLRIDE1", 1, "BILLR1");
+        BillCache cache = rideService.getBillCache();
+
+        assertTrue(rideService.generateBill("BILLRIDE1").isEmpty());
+
+        rideService.stopRide("BILLRIDE1", -80.0, 151.0, 15);
+        Optional<BillDetails> first = rideService.generateBill("BILLRIDE1");
+        long hits = cache.getHitCount();
+        Optional<BillDetails> second = rideService.generateBill("BILLRIDE1");
+
+        assertTrue(first.isPresent());
+        assertEquals(new BigDecimal("101.52"), first.get().getTotalFare());
+        assertSame(first, second);
+        assertEquals(hits + 1, cache.getHitCount());
+    }
+
+    @Test
+    void testRideListenerIsNotifiedOfStartAndStop() {
+        List<RideEvent> events = new CopyOnWriteArrayList<>();
+        rideService.addRideListener(events::add);
+        rideService.addDriver("LISTEN1", -70.0, -150.0);
+        rideService.addRider("LISTENR1", -70.5, -150.5);
+
+        rideService.startRide("LISTENRIDE1", 1, "LISTENR1");
+        assertFalse(rideService.findRide("LISTENRIDE1").orElseThrow().isCompleted());
+        rideService.stopRide("LISTENRIDE1", -70.0, -151.0, 15);
+
+        List<RideEvent> rideEvents = events.stream()
+                .filter(event -> event instanceof RideEvent.RideStarted started && started.rideId().equals("LISTENRIDE1")
+                        || event instanceof RideEvent.RideStopped stopped && stopped.rideId().equals("LISTENRIDE1"))
+                .toList();
+        assertEquals(List.of(
+                new RideEvent.RideStarted("LISTENRIDE1", "LISTEN1", "LISTENR1", -70.5, -150.5, 1,
+                        RideEvent.FareRates.of(rideService.findRide("LISTENRIDE1").orElseThrow().getFareProfile())),
+                new RideEvent.RideStopped("LISTENRIDE1", -70.0, -151.0, 15)), rideEvents);
+        assertTrue(rideService.findRide("LISTENRIDE1").orElseThrow().isCompleted());
+        assertTrue(rideService.findRide("LISTENRIDE2").isEmpty());
+    }
 }
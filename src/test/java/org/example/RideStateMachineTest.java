@@ -0,0 +1,164 @@
+package org.example;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.model.Driver;
+import org.example.model.Ride;
+import org.example.model.RideState;
+import org.example.model.Rider;
+import org.example.service.RideEvent;
+import org.example.service.RideService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ride state transitions, with their follow-up work handed to consumers through a ring
+ * small enough to wrap several times.
+ */
+@SpringBootTest(properties = {"ride.events.ring.enabled=true", "ride.events.ring.size=8"})
+class RideStateMachineTest {
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void testOnlyListedTransitionsAreAllowed() {
+        assertTrue(RideState.MATCHED.canBecome(RideState.STARTED));
+        assertTrue(RideState.MATCHED.canBecome(RideState.CANCELLED));
+        assertTrue(RideState.STARTED.canBecome(RideState.COMPLETED));
+        assertTrue(RideState.STARTED.canBecome(RideState.CANCELLED));
+        assertTrue(RideState.COMPLETED.canBecome(RideState.BILLED));
+        assertFalse(RideState.COMPLETED.canBecome(RideState.CANCELLED));
+        assertFalse(RideState.MATCHED.canBecome(RideState.COMPLETED));
+        assertTrue(RideState.BILLED.isTerminal());
+        assertTrue(RideState.CANCELLED.isTerminal());
+
+        Ride ride = new Ride("STATE1", new Driver("D1", 10.0, 20.0), new Rider("R1", 10.5, 20.5),
+                10.5, 20.5, null, BigDecimal.ONE, RideState.MATCHED);
+        assertFalse(ride.endRide(11.0, 21.0, 15));
+        assertTrue(ride.transition(RideState.MATCHED, RideState.STARTED));
+        assertFalse(ride.transition(RideState.MATCHED, RideState.STARTED));
+        assertTrue(ride.endRide(11.0, 21.0, 15));
+        assertFalse(ride.endRide(12.0, 22.0, 20));
+        assertEquals(11.0, ride.getEndLatitude());
+        assertTrue(ride.isCompleted());
+        assertThrows(IllegalArgumentException.class, () -> ride.transition(RideState.COMPLETED, RideState.STARTED));
+    }
+
+    @Test
+    void testConsumersCountBillAndAnnounceEveryTransition() {
+        List<RideEvent> announced = new CopyOnWriteArrayList<>();
+        rideService.addRideListener(event -> {
+            if (event instanceof RideEvent.RideStopped stopped && stopped.rideId().startsWith("RINGRIDE")) {
+                announced.add(event);
+            }
+        });
+        rideService.awaitTransitions();
+        double stopped = registry.get("ride.stop").tag("outcome", "stopped").counter().count();
+        int rides = 40;
+
+        for (int i = 0; i < rides; i++) {
+            rideService.addDriver("RINGD" + i, -40.0 - i, 100.0);
+            rideService.addRider("RINGR" + i, -40.0 - i, 100.0);
+            rideService.startRide("RINGRIDE" + i, 1, "RINGR" + i);
+            rideService.stopRide("RINGRIDE" + i, -40.5 - i, 100.5, 10);
+        }
+        rideService.awaitTransitions();
+
+        assertEquals(stopped + rides, registry.get("ride.stop").tag("outcome", "stopped").counter().count());
+        assertEquals(rides, announced.size());
+        assertEquals(new RideEvent.RideStopped("RINGRIDE0", -40.5, 100.5, 10), announced.get(0));
+        for (int i = 0; i < rides; i++) {
+            Ride ride = rideService.findRide("RINGRIDE" + i).orElseThrow();
+            assertEquals(RideState.BILLED, ride.getState(), ride.getId());
+            assertTrue(ride.isCompleted());
+        }
+        long hits = rideService.getBillCache().getHitCount();
+        assertTrue(rideService.generateBill("RINGRIDE7").isPresent());
+        assertEquals(hits + 1, rideService.getBillCache().getHitCount());
+    }
+
+    @Test
+    void testCancelledRidesReleaseTheirDriverAndAreNeverBilled() {
+        rideService.addDriver("CANCELD1", 40.0, 100.0);
+        rideService.addRider("CANCELR1", 40.1, 100.1);
+        rideService.awaitTransitions();
+        double cancelled = registry.get("ride.cancel").tag("outcome", "cancelled").counter().count();
+
+        rideService.startRide("CANCELRIDE1", 1, "CANCELR1");
+        assertEquals("CANCELRIDE1", rideService.cancelRide("CANCELRIDE1"));
+        rideService.awaitTransitions();
+
+        assertEquals(RideState.CANCELLED, rideService.findRide("CANCELRIDE1").orElseThrow().getState());
+        assertEquals(List.of("CANCELD1"), rideService.matchRider("CANCELR1"));
+        assertTrue(rideService.generateBill("CANCELRIDE1").isEmpty());
+        assertEquals(cancelled + 1, registry.get("ride.cancel").tag("outcome", "cancelled").counter().count());
+        assertThrows(IllegalArgumentException.class, () -> rideService.cancelRide("CANCELRIDE1"));
+        assertThrows(IllegalArgumentException.class,
+                () -> rideService.stopRide("CANCELRIDE1", 40.2, 100.2, 5));
+
+        rideService.startRide("CANCELRIDE2", 1, "CANCELR1");
+        rideService.stopRide("CANCELRIDE2", 40.2, 100.2, 5);
+        assertThrows(IllegalArgumentException.class, () -> rideService.cancelRide("CANCELRIDE2"));
+        assertThrows(IllegalArgumentException.class, () -> rideService.cancelRide("UNKNOWN"));
+    }
+
+    @Test
+    void testConcurrentStopsCompleteARideOnce() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 20; round++) {
+                String rideId = "RACERIDE" + round;
+                rideService.addDriver("RACED" + round, 60.0, 100.0 + round);
+                rideService.addRider("RACER" + round, 60.0, 100.0 + round);
+                rideService.startRide(rideId, 1, "RACER" + round);
+                int active = rideService.countActiveRides();
+
+                CountDownLatch ready = new CountDownLatch(threads);
+                List<Future<Boolean>> attempts = new CopyOnWriteArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    int attempt = i;
+                    attempts.add(executor.submit(() -> {
+                        ready.countDown();
+                        ready.await();
+                        try {
+                            if (attempt % 2 == 0) {
+                                rideService.stopRide(rideId, 60.5, 100.0, 10);
+                            } else {
+                                rideService.cancelRide(rideId);
+                            }
+                            return true;
+                        } catch (IllegalArgumentException e) {
+                            return false;
+                        }
+                    }));
+                }
+                int succeeded = 0;
+                for (Future<Boolean> attempt : attempts) {
+                    if (attempt.get(10, TimeUnit.SECONDS)) {
+                        succeeded++;
+                    }
+                }
+                assertEquals(1, succeeded, rideId);
+                assertEquals(active - 1, rideService.countActiveRides(), rideId);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package org.example;
+
+import org.example.config.FareProfiles;
+import org.example.config.RideConfiguration;
+import org.example.model.RideState;
+import org.example.persistence.RideStateStore;
+import org.example.service.FareCalculator;
+import org.example.service.RideEvent;
+import org.example.service.RideJournal;
+import org.example.service.RideMetrics;
+import org.example.service.RideService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that the write-ahead log and snapshots restore the ride state after a restart.
+ * A crash is simulated by copying the store's directory while it is still in use: every
+ * acknowledged change must already be in the copy.
+ */
+@SpringBootTest
+class RideStateStoreTest {
+
+    @Autowired
+    private RideConfiguration config;
+
+    @Autowired
+    private FareCalculator fareCalculator;
+
+    @Autowired
+    private RideMetrics metrics;
+
+    @TempDir
+    Path directory;
+
+    private RideService rideService;
+    private RideStateStore store;
+    private final List<RideStateStore> recoveredStores = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        rideService = new RideService(config, fareCalculator, metrics);
+        store = new RideStateStore(directory.resolve("live"), rideService);
+        store.recover();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+        for (RideStateStore recovered : recoveredStores) {
+            recovered.close();
+        }
+    }
+
+    @Test
+    void testStateIsRecoveredFromJournal() throws IOException {
+        rideService.addDriver("D1", 10.0, 20.0);
+        rideService.addDriver("D2", 10.5, 20.5);
+        rideService.addRider("R1", 10.2, 20.2);
+        rideService.startRide("RIDE1", 1, "R1");
+        rideService.stopRide("RIDE1", 11.0, 21.0, 15.0);
+        rideService.addRider("R2", 10.4, 20.4);
+        rideService.startRide("RIDE2", 1, "R2");
+        rideService.updateDriverLocation("D1", 10.1, 20.1);
+
+        RideService recovered = recoverCopy("crash");
+
+        assertEquals(state(rideService), state(recovered));
+        assertEquals(bill(rideService, "RIDE1"), bill(recovered, "RIDE1"));
+        assertEquals(rideService.matchRider("R1"), recovered.matchRider("R1"));
+        assertEquals("RIDE2", recovered.stopRide("RIDE2", 12.0, 22.0, 10.0));
+        assertThrows(IllegalArgumentException.class, () -> recovered.stopRide("RIDE1", 12.0, 22.0, 10.0));
+    }
+
+    @Test
+    void testSnapshotCompactsJournalAndTailIsReplayed() throws IOException {
+        rideService.addDriver("D1", 30.0, 40.0);
+        rideService.addRider("R1", 30.1, 40.1);
+        rideService.startRide("RIDE1", 1, "R1");
+        store.snapshot();
+        rideService.stopRide("RIDE1", 31.0, 41.0, 20.0);
+        rideService.addDriver("D2", 30.2, 40.2);
+        store.snapshot();
+        rideService.addRider("R2", 30.3, 40.3);
+
+        try (Stream<Path> files = Files.list(directory.resolve("live"))) {
+            List<String> names = files.map(path -> path.getFileName().toString()).sorted().toList();
+            assertEquals(1, names.stream().filter(name -> name.startsWith("snapshot-")).count(), names.toString());
+            assertEquals(1, names.stream().filter(name -> name.startsWith("journal-")).count(), names.toString());
+        }
+
+        RideService recovered = recoverCopy("crash");
+
+        assertEquals(state(rideService), state(recovered));
+        assertEquals(List.of("D2", "D1"), recovered.matchRider("R2"));
+    }
+
+    @Test
+    void testRemovedDriversStayRemovedAndKeepTheirRides() throws IOException {
+        rideService.addDriver("D1", 70.0, 80.0);
+        rideService.addRider("R1", 70.1, 80.1);
+        rideService.startRide("RIDE1", 1, "R1");
+        rideService.stopRide("RIDE1", 71.0, 81.0, 12.0);
+        assertEquals(Double.valueOf(70.0), rideService.removeAvailableDriver("D1").orElseThrow().latitude());
+
+        RideService fromJournal = recoverCopy("crash");
+        store.snapshot();
+        RideService fromSnapshot = recoverCopy("restart");
+
+        for (RideService recovered : List.of(fromJournal, fromSnapshot)) {
+            assertEquals(state(rideService), state(recovered));
+            assertEquals(bill(rideService, "RIDE1"), bill(recovered, "RIDE1"));
+            assertEquals(List.of(), recovered.matchRider("R1"));
+        }
+    }
+
+    @Test
+    void testCancelledRidesStayCancelledAndFreeTheirDriver() throws IOException {
+        rideService.addDriver("D1", 30.0, 40.0);
+        rideService.addRider("R1", 30.1, 40.1);
+        rideService.startRide("RIDE1", 1, "R1");
+        rideService.cancelRide("RIDE1");
+
+        RideService fromJournal = recoverCopy("crash");
+        store.snapshot();
+        RideService fromSnapshot = recoverCopy("restart");
+
+        for (RideService recovered : List.of(fromJournal, fromSnapshot)) {
+            assertEquals(state(rideService), state(recovered));
+            assertEquals(RideState.CANCELLED, recovered.findRide("RIDE1").orElseThrow().getState());
+            assertEquals(0, recovered.countActiveRides());
+            assertEquals(List.of("D1"), recovered.matchRider("R1"));
+            assertTrue(recovered.generateBill("RIDE1").isEmpty());
+        }
+    }
+
+    @Test
+    void testRidesAreBilledWithTheFareProfileTheyStartedWith() throws IOException {
+        FareProfiles fareProfiles = new FareProfiles(config);
+        FareCalculator calculator = new FareCalculator(config, fareProfiles);
+        RideService service = new RideService(config, calculator, metrics);
+        RideStateStore fareStore = new RideStateStore(directory.resolve("fares"), service);
+        recoveredStores.add(fareStore);
+        fareStore.recover();
+        service.addDriver("D1", 40.0, 50.0);
+        service.addDriver("D2", 40.5, 50.5);
+        service.addRider("R1", 40.1, 50.1);
+        service.startRide("RIDE1", 1, "R1");
+        fareStore.snapshot();
+        service.addRider("R2", 40.4, 50.4);
+        service.startRide("RIDE2", 1, "R2");
+        service.stopRide("RIDE1", 41.0, 51.0, 15.0);
+        service.stopRide("RIDE2", 41.0, 51.0, 15.0);
+        BigDecimal firstFare = bill(service, "RIDE1");
+        BigDecimal secondFare = bill(service, "RIDE2");
+        fareProfiles.publish(new BigDecimal("99"), null, null, null);
+
+        for (String name : List.of("crash", "restart")) {
+            if (name.equals("restart")) {
+                fareStore.snapshot();
+            }
+            RideService recovered = new RideService(config, calculator, metrics);
+            RideStateStore recoveredStore = new RideStateStore(
+                    copy(directory.resolve("fares"), directory.resolve(name)), recovered);
+            recoveredStores.add(recoveredStore);
+            recoveredStore.recover();
+
+            assertEquals(state(service), state(recovered));
+            assertEquals(1, recovered.findRide("RIDE1").orElseThrow().getFareProfile().getVersion());
+            assertEquals(firstFare, bill(recovered, "RIDE1"));
+            assertEquals(secondFare, bill(recovered, "RIDE2"));
+        }
+    }
+
+    @Test
+    void testChangesTheJournalFailsToRecordAreUndone() {
+        RideService service = new RideService(config, fareCalculator, metrics);
+        service.addDriver("D1", 35.0, 45.0);
+        service.addRider("R1", 35.1, 45.1);
+        service.setJournal(new RideJournal() {
+            @Override
+            public long append(RideEvent event) {
+                return 1;
+            }
+
+            @Override
+            public void awaitDurable(long sequence) {
+                throw new UncheckedIOException("Ride journal is unavailable", new IOException("Disk full"));
+            }
+        });
+
+        assertThrows(UncheckedIOException.class, () -> service.startRide("RIDE1", 1, "R1"));
+        assertTrue(service.findRide("RIDE1").isEmpty());
+        assertEquals(0, service.countActiveRides());
+        assertEquals(List.of("D1"), service.matchRider("R1"));
+
+        service.setJournal(RideJournal.NONE);
+        service.startRide("RIDE1", 1, "R1");
+        service.setJournal(new RideJournal() {
+            @Override
+            public long append(RideEvent event) {
+                throw new IllegalStateException("Ride journal is closed");
+            }
+
+            @Override
+            public void awaitDurable(long sequence) {
+            }
+        });
+
+        assertThrows(IllegalStateException.class, () -> service.stopRide("RIDE1", 36.0, 46.0, 10));
+        assertThrows(IllegalStateException.class, () -> service.cancelRide("RIDE1"));
+        assertEquals(RideState.STARTED, service.findRide("RIDE1").orElseThrow().getState());
+        assertEquals(1, service.countActiveRides());
+        assertEquals(List.of(), service.matchRider("R1"));
+
+        service.setJournal(RideJournal.NONE);
+        service.stopRide("RIDE1", 36.0, 46.0, 10);
+        assertEquals(0, service.countActiveRides());
+        assertEquals(List.of("D1"), service.matchRider("R1"));
+    }
+
+    @Test
+    void testStopIsNotBilledUntilDurable() throws Exception {
+        RideService service = new RideService(config, fareCalculator, metrics);
+        service.addDriver("D1", 45.0, 55.0);
+        service.addRider("R1", 45.1, 55.1);
+        service.startRide("RIDE1", 1, "R1");
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch failing = new CountDownLatch(1);
+        service.setJournal(new RideJournal() {
+            @Override
+            public long append(RideEvent event) {
+                appended.countDown();
+                return 1;
+            }
+
+            @Override
+            public void awaitDurable(long sequence) {
+                try {
+                    failing.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new UncheckedIOException("Ride journal is unavailable", new IOException("Disk full"));
+            }
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> stop = executor.submit(() -> service.stopRide("RIDE1", 46.0, 56.0, 10));
+            appended.await();
+
+            assertTrue(service.generateBill("RIDE1").isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> service.stopRide("RIDE1", 46.0, 56.0, 10));
+            failing.countDown();
+            ExecutionException failure = assertThrows(ExecutionException.class, stop::get);
+            assertTrue(failure.getCause() instanceof UncheckedIOException);
+        } finally {
+            failing.countDown();
+            executor.shutdown();
+        }
+
+        assertEquals(RideState.STARTED, service.findRide("RIDE1").orElseThrow().getState());
+        assertTrue(service.generateBill("RIDE1").isEmpty());
+        assertEquals(1, service.countActiveRides());
+        service.setJournal(RideJournal.NONE);
+        service.stopRide("RIDE1", 47.0, 57.0, 12);
+        assertEquals(RideState.COMPLETED, service.findRide("RIDE1").orElseThrow().getState());
+        assertTrue(service.generateBill("RIDE1").isPresent());
+        assertEquals(0, service.countActiveRides());
+    }
+
+    @Test
+    void testTornFrameAtEndOfJournalIsDiscarded() throws IOException {
+        rideService.addDriver("D1", 50.0, 60.0);
+        rideService.addRider("R1", 50.1, 60.1);
+        Path copy = copyOf("crash");
+        try (Stream<Path> files = Files.list(copy)) {
+            Path segment = files.filter(path -> path.getFileName().toString().startsWith("journal-"))
+                    .max(Comparator.naturalOrder())
+                    .orElseThrow();
+            // A frame header promising more bytes than were written before the crash.
+            Files.write(segment, ByteBuffer.allocate(11).putInt(64).putInt(7).array(), StandardOpenOption.APPEND);
+        }
+
+        RideService recovered = recover(copy);
+        recovered.addRider("R2", 50.2, 60.2);
+        RideService recoveredAgain = recoverCopy(copy, "restart");
+
+        assertEquals(List.of("D1"), recoveredAgain.matchRider("R1"));
+        assertEquals(List.of("D1"), recoveredAgain.matchRider("R2"));
+    }
+
+    @Test
+    void testConcurrentChangesAreAllRecovered() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int t = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        rideService.addDriver("T" + t + "D" + i, -40 + t, -100 + i * 0.1);
+                        rideService.updateDriverLocation("T" + t + "D" + i, -40.5 + t, -100 + i * 0.1);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        RideService recovered = recoverCopy("crash");
+
+        List<String> recoveredState = state(recovered);
+        assertEquals(2000, recoveredState.size());
+        assertEquals(state(rideService), recoveredState);
+    }
+
+    private RideService recoverCopy(String name) throws IOException {
+        return recover(copyOf(name));
+    }
+
+    private RideService recoverCopy(Path source, String name) throws IOException {
+        return recover(copy(source, directory.resolve(name)));
+    }
+
+    private Path copyOf(String name) throws IOException {
+        return copy(directory.resolve("live"), directory.resolve(name));
+    }
+
+    private RideService recover(Path stateDirectory) throws IOException {
+        RideService recovered = new RideService(config, fareCalculator, metrics);
+        RideStateStore recoveredStore = new RideStateStore(stateDirectory, recovered);
+        recoveredStore.recover();
+        recoveredStores.add(recoveredStore);
+        return recovered;
+    }
+
+    private static Path copy(Path source, Path target) throws IOException {
+        Files.createDirectories(target);
+        try (Stream<Path> files = Files.list(source)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, target.resolve(file.getFileName()));
+            }
+        }
+        return target;
+    }
+
+    private static List<String> state(RideService service) {
+        List<String> events = new ArrayList<>();
+        service.exportState(event -> events.add(event.toString()));
+        events.sort(Comparator.naturalOrder());
+        return events;
+    }
+
+    private static BigDecimal bill(RideService service, String rideId) {
+        return service.generateBill(rideId).orElseThrow().getTotalFare();
+    }
+}
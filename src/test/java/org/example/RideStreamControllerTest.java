@@ -0,0 +1,113 @@
+package org.example;
+
+import org.example.config.RideConfiguration;
+import org.example.controller.RideStreamController;
+import org.example.model.Driver;
+import org.example.model.Ride;
+import org.example.model.Rider;
+import org.example.service.BillDetails;
+import org.example.service.RideEvent;
+import org.example.service.RideService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockReset;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@WebMvcTest(RideStreamController.class)
+@Import(RideConfiguration.class)
+class RideStreamControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    // Not reset between tests: the controller registers its ride listener once, on startup.
+    @MockBean(reset = MockReset.NONE)
+    private RideService rideService;
+
+    private Consumer<RideEvent> rideListener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void captureRideListener() {
+        ArgumentCaptor<Consumer<RideEvent>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(rideService).addRideListener(listener.capture());
+        rideListener = listener.getValue();
+    }
+
+    @Test
+    void testStreamMatchesSendsCurrentMatches() throws Exception {
+        when(rideService.matchRider(eq("R1"), anyBoolean())).thenReturn(List.of("D1", "D2"));
+
+        MvcResult result = mockMvc.perform(get("/api/stream/match/R1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        awaitContent(result, "event:match\ndata:[\"D1\",\"D2\"]\n\n");
+    }
+
+    @Test
+    void testStreamRideSendsStartThenBill() throws Exception {
+        Ride ride = new Ride("RIDE1", new Driver("D1", 10.0, 20.0), new Rider("R1", 10.5, 20.5));
+        when(rideService.findRide("RIDE1")).thenReturn(Optional.empty());
+
+        MvcResult result = mockMvc.perform(get("/api/stream/rides/RIDE1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        verify(rideService, timeout(5000)).findRide("RIDE1");
+
+        when(rideService.findRide("RIDE1")).thenReturn(Optional.of(ride));
+        rideListener.accept(new RideEvent.RideStarted("RIDE1", "D1", "R1", 10.5, 20.5));
+        awaitContent(result, "\"status\":\"STARTED\"");
+
+        ride.endRide(11.0, 21.0, 15);
+        when(rideService.generateBill("RIDE1"))
+                .thenReturn(Optional.of(new BillDetails("RIDE1", "D1", new BigDecimal("101.52"))));
+        rideListener.accept(new RideEvent.RideStopped("RIDE1", 11.0, 21.0, 15));
+        String content = awaitContent(result, "\"totalFare\":101.52");
+
+        assertTrue(content.indexOf("\"status\":\"STARTED\"") < content.indexOf("\"status\":\"COMPLETED\""));
+    }
+
+    @Test
+    void testStreamRideCatchesUpWithCompletedRide() throws Exception {
+        Ride ride = new Ride("RIDE2", new Driver("D1", 10.0, 20.0), new Rider("R1", 10.5, 20.5));
+        ride.endRide(11.0, 21.0, 15);
+        when(rideService.findRide("RIDE2")).thenReturn(Optional.of(ride));
+        when(rideService.generateBill("RIDE2"))
+                .thenReturn(Optional.of(new BillDetails("RIDE2", "D1", new BigDecimal("101.52"))));
+
+        MvcResult result = mockMvc.perform(get("/api/stream/rides/RIDE2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String content = awaitContent(result, "\"status\":\"COMPLETED\"");
+        assertFalse(content.contains("STARTED"));
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            content = result.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
+}
@@ -0,0 +1,61 @@
+package org.example;
+
+import org.example.controller.RideWireFormat;
+import org.example.service.BillDetails;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RideWireFormatTest {
+
+    @Test
+    void testMatchesRoundTrip() {
+        List<String> driverIds = List.of("D1", "D22", "D\u00e93");
+
+        byte[] record = RideWireFormat.encodeMatches(driverIds);
+
+        assertEquals(2 + 4 + 5 + 6, record.length);
+        assertEquals(driverIds, RideWireFormat.decodeMatches(record));
+        assertEquals(List.of(), RideWireFormat.decodeMatches(RideWireFormat.encodeMatches(List.of())));
+    }
+
+    @Test
+    void testStartAndStopRoundTrip() {
+        RideWireFormat.StartRequest start = new RideWireFormat.StartRequest("RIDE1", 2, "R1");
+        RideWireFormat.StopRequest stop = new RideWireFormat.StopRequest("RIDE1", 11.5, -21.25, 15);
+
+        assertEquals(start, RideWireFormat.decodeStart(RideWireFormat.encodeStart(start)));
+        assertEquals(stop, RideWireFormat.decodeStop(RideWireFormat.encodeStop(stop)));
+        assertEquals(2 + 5 + 24, RideWireFormat.encodeStop(stop).length);
+    }
+
+    @Test
+    void testBillCarriesFareInCents() {
+        byte[] record = RideWireFormat.encodeBill(new BillDetails("RIDE1", "D1", new BigDecimal("101.52")));
+
+        BillDetails bill = RideWireFormat.decodeBill(record);
+
+        assertEquals("RIDE1", bill.getRideId());
+        assertEquals("D1", bill.getDriverId());
+        assertEquals(new BigDecimal("101.52"), bill.getTotalFare());
+        assertEquals(10152, ByteBuffer.wrap(record, record.length - 8, 8).getLong());
+    }
+
+    @Test
+    void testDecodeRejectsTruncatedAndOversizedRecords() {
+        byte[] record = RideWireFormat.encodeStart(new RideWireFormat.StartRequest("RIDE1", 1, "R1"));
+
+        Exception truncated = assertThrows(IllegalArgumentException.class,
+                () -> RideWireFormat.decodeStart(Arrays.copyOf(record, record.length - 1)));
+        Exception trailing = assertThrows(IllegalArgumentException.class,
+                () -> RideWireFormat.decodeStart(Arrays.copyOf(record, record.length + 2)));
+
+        assertEquals("Truncated record", truncated.getMessage());
+        assertEquals("Unexpected 2 bytes after record", trailing.getMessage());
+    }
+}
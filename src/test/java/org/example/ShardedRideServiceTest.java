@@ -0,0 +1,331 @@
+package org.example;
+
+import org.example.config.RideConfiguration;
+import org.example.service.BillDetails;
+import org.example.service.FareCalculator;
+import org.example.service.LocationEntry;
+import org.example.service.MatchCandidates;
+import org.example.service.RideMetrics;
+import org.example.service.RideService;
+import org.example.shard.LocalRideShard;
+import org.example.shard.RideShard;
+import org.example.shard.ShardDirectory;
+import org.example.shard.ShardRegions;
+import org.example.shard.ShardedRideService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs several shards side by side in one process, each with its own {@link RideService},
+ * behind a {@link ShardedRideService} with one-degree regions.
+ */
+@SpringBootTest
+class ShardedRideServiceTest {
+
+    private static final int SHARDS = 3;
+
+    @Autowired
+    private RideConfiguration config;
+
+    @Autowired
+    private FareCalculator fareCalculator;
+
+    @Autowired
+    private RideMetrics metrics;
+
+    private final ShardRegions regions = new ShardRegions(1.0, SHARDS);
+    private final List<RideService> services = new ArrayList<>();
+    private final List<CountingShard> shards = new ArrayList<>();
+    private ShardedRideService router;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < SHARDS; i++) {
+            RideService service = new RideService(config, fareCalculator, metrics);
+            services.add(service);
+            shards.add(new CountingShard(new LocalRideShard(service)));
+        }
+        router = new ShardedRideService(List.copyOf(shards), regions, config, fareCalculator, Runnable::run);
+    }
+
+    @Test
+    void testRegionsAreOwnedByOneShardEach() {
+        // Three bands of 120 degrees, with edges at -60, 60 and the antimeridian.
+        assertEquals(regions.shardOf(20.1, 20.1), regions.shardOf(-80.9, 59.9));
+        assertNotEquals(regions.shardOf(20.5, 59.9), regions.shardOf(20.5, 60.1));
+        assertEquals(List.of(0, 1, 2), List.of(regions.shardOf(0, -179.9), regions.shardOf(0, 0),
+                regions.shardOf(0, 179.9)));
+        assertEquals(regions.shardOf(0, -180), regions.shardOf(0, 180));
+        assertEquals(1, regions.shardsNear(20.5, 20.5, 5.0).cardinality());
+        assertEquals(BitSet.valueOf(new long[]{0b110}), regions.shardsNear(20.5, 59.5, 1.0));
+        assertEquals(BitSet.valueOf(new long[]{0b101}), regions.shardsNear(20.5, 179.9, 0.2));
+
+        BitSet all = new BitSet();
+        all.set(0, SHARDS);
+        assertEquals(all, regions.shardsNear(20.5, 0, 200));
+        assertEquals(all, regions.shardsNear(89.5, 0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new ShardRegions(0, SHARDS));
+    }
+
+    @Test
+    void testMatchesEqualThoseOfASingleService() {
+        RideService single = new RideService(config, fareCalculator, metrics);
+        Random random = new Random(22);
+        for (int i = 0; i < 400; i++) {
+            double latitude = 10 + 6 * random.nextDouble();
+            double longitude = 57 + 6 * random.nextDouble();
+            single.addDriver("D" + i, latitude, longitude);
+            router.addDriver("D" + i, latitude, longitude);
+        }
+        for (int i = 0; i < 100; i++) {
+            double latitude = 10 + 6 * random.nextDouble();
+            double longitude = 57 + 6 * random.nextDouble();
+            single.updateDriverLocation("D" + i, latitude, longitude);
+            router.updateDriverLocation("D" + i, latitude, longitude);
+        }
+        for (int i = 0; i < 50; i++) {
+            double latitude = 10 + 6 * random.nextDouble();
+            double longitude = 57 + 6 * random.nextDouble();
+            single.addRider("R" + i, latitude, longitude);
+            router.addRider("R" + i, latitude, longitude);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(single.matchRider("R" + i), router.matchRider("R" + i), "R" + i);
+        }
+        int registered = 0;
+        for (RideService service : services) {
+            registered += service.countAvailableDrivers();
+        }
+        assertEquals(400, registered);
+    }
+
+    @Test
+    void testNeighboursAreOnlyAskedWhenTheSearchCrossesARegion() {
+        for (int i = 0; i < 5; i++) {
+            router.addDriver("D" + i, 30.5 + 0.01 * i, 59.5);
+        }
+        router.addDriver("D5", 30.5, 60.05);
+        router.addRider("R1", 30.5, 59.5);
+        router.addRider("R2", 30.5, 59.95);
+
+        assertEquals(List.of("D0", "D1", "D2", "D3", "D4"), router.matchRider("R1"));
+        assertEquals(1, totalSearches());
+
+        assertEquals("D5", router.matchRider("R2").get(0));
+        assertTrue(totalSearches() > 2);
+        assertEquals(List.of(), router.matchNearest("UNKNOWN").driverIds());
+    }
+
+    @Test
+    void testMatchesOnlyAskTheShardsTheyCover() {
+        for (int i = 0; i < 3; i++) {
+            router.addDriver("D" + i, 20.5 + i, 0.5 + i);
+            router.addDriver("E" + i, 20.5 + i, 56.5 + i);
+        }
+        router.addRider("R1", 20.5, 0.5);
+        router.addRider("R2", 20.5, 56.5);
+
+        // Fewer than ride.max.matches drivers nearby, so each search reaches its full radius.
+        assertEquals(List.of("D0", "D1", "D2"), router.matchRider("R1"));
+        assertEquals(1, totalSearches());
+        assertEquals(List.of("E0", "E1", "E2"), router.matchRider("R2"));
+        assertEquals(3, totalSearches());
+    }
+
+    @Test
+    void testRidesBelongToTheRiderShardAndTakeTheDriverOver() {
+        int riderShard = regions.shardOf(20.5, 59.9);
+        int driverShard = regions.shardOf(20.5, 60.1);
+        router.addDriver("D1", 20.5, 60.1);
+        router.addRider("R1", 20.5, 59.9);
+
+        assertEquals(List.of("D1"), router.matchRider("R1"));
+        assertEquals("RIDE1", router.startRide("RIDE1", 1, "R1"));
+
+        assertEquals(Optional.of(riderShard), router.findRideShard("RIDE1"));
+        assertEquals(Optional.of(riderShard), router.findDriverShard("D1"));
+        assertEquals(0, services.get(driverShard).countAvailableDrivers());
+        assertEquals(1, services.get(riderShard).countBusyDrivers());
+        assertThrows(IllegalArgumentException.class, () -> router.startRide("RIDE1", 1, "R1"));
+
+        router.stopRide("RIDE1", 21.0, 22.0, 10);
+        BillDetails bill = router.generateBill("RIDE1").orElseThrow();
+        assertEquals("D1", bill.getDriverId());
+        assertEquals(services.get(riderShard).generateBill("RIDE1").orElseThrow().getTotalFare(), bill.getTotalFare());
+        assertTrue(router.generateBill("RIDE2").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> router.stopRide("RIDE1", 21.0, 22.0, 10));
+    }
+
+    @Test
+    void testDriversAreHandedOverOnlyWhileAvailable() {
+        int home = regions.shardOf(40.5, 59.5);
+        int east = regions.shardOf(40.5, 60.5);
+        router.addDriver("D1", 40.5, 59.6);
+        router.addRider("R1", 40.5, 59.5);
+        router.startRide("RIDE1", 1, "R1");
+
+        router.updateDriverLocation("D1", 40.5, 60.5);
+        assertEquals(Optional.of(home), router.findDriverShard("D1"));
+
+        router.stopRide("RIDE1", 40.5, 60.5, 10);
+        router.updateDriverLocation("D1", 40.5, 60.6);
+        assertEquals(Optional.of(east), router.findDriverShard("D1"));
+        assertEquals(0, services.get(home).countAvailableDrivers());
+        assertEquals(1, services.get(east).countAvailableDrivers());
+
+        router.addDriver("D1", 40.5, 59.7);
+        assertEquals(Optional.of(home), router.findDriverShard("D1"));
+        assertEquals(0, services.get(east).countAvailableDrivers());
+        assertThrows(IllegalArgumentException.class, () -> router.updateDriverLocation("D9", 40.5, 59.5));
+    }
+
+    @Test
+    void testFailedHandOverPutsTheDriverBack() {
+        int home = regions.shardOf(50.5, 59.5);
+        int east = regions.shardOf(50.5, 60.5);
+        router.addDriver("D1", 50.5, 59.6);
+        router.addRider("R1", 50.5, 59.5);
+        // The east shard registers the driver but its answer is lost.
+        shards.get(east).failure = new IllegalStateException("Read timed out");
+
+        assertThrows(IllegalStateException.class, () -> router.updateDriverLocation("D1", 50.5, 60.5));
+
+        assertEquals(Optional.of(home), router.findDriverShard("D1"));
+        assertEquals(1, services.get(home).countAvailableDrivers());
+        assertEquals(0, services.get(east).countAvailableDrivers());
+        assertEquals(List.of("D1"), router.matchRider("R1"));
+        shards.get(east).failure = null;
+        router.updateDriverLocation("D1", 50.5, 60.5);
+        assertEquals(Optional.of(east), router.findDriverShard("D1"));
+    }
+
+    @Test
+    void testTimedOutStartStaysRoutedToTheRiderShard() {
+        int home = regions.shardOf(60.5, 60.5);
+        router.addDriver("D1", 60.5, 60.6);
+        router.addRider("R1", 60.5, 60.5);
+        // The shard starts the ride but its answer is lost.
+        shards.get(home).failure = new IllegalStateException("Read timed out");
+
+        assertThrows(IllegalStateException.class, () -> router.startRide("RIDE1", 1, "R1"));
+        shards.get(home).failure = null;
+
+        assertEquals(Optional.of(home), router.findRideShard("RIDE1"));
+        assertEquals("RIDE1", router.stopRide("RIDE1", 60.6, 60.6, 10));
+        assertTrue(router.generateBill("RIDE1").isPresent());
+    }
+
+    @Test
+    void testRestartedRouterRebuildsItsDirectory() {
+        int riderShard = regions.shardOf(20.5, 59.9);
+        router.addDriver("D1", 20.5, 60.1);
+        router.addDriver("D2", 20.5, 60.2);
+        router.addRider("R1", 20.5, 59.9);
+        router.addRider("R2", 20.5, 59.95);
+        router.startRide("RIDE1", 1, "R1");
+        router.startRide("RIDE2", 1, "R2");
+        router.stopRide("RIDE2", 21.0, 22.0, 10);
+
+        ShardedRideService restarted = new ShardedRideService(List.copyOf(shards), regions, config, fareCalculator,
+                Runnable::run);
+        restarted.rebuildDirectory();
+
+        assertEquals(router.findDriverShard("D1"), restarted.findDriverShard("D1"));
+        assertEquals(router.findDriverShard("D2"), restarted.findDriverShard("D2"));
+        assertEquals(Optional.of(riderShard), restarted.findRideShard("RIDE1"));
+        assertEquals(router.matchRider("R1"), restarted.matchRider("R1"));
+        assertThrows(IllegalArgumentException.class, () -> restarted.startRide("RIDE2", 1, "R1"));
+        assertEquals("RIDE1", restarted.stopRide("RIDE1", 21.0, 22.0, 10));
+        assertEquals(router.generateBill("RIDE2"), restarted.generateBill("RIDE2"));
+        restarted.updateDriverLocation("D1", 20.5, 59.6);
+        assertEquals(List.of("D1", "D2"), restarted.matchRider("R1"));
+    }
+
+    private int totalSearches() {
+        int searches = 0;
+        for (CountingShard shard : shards) {
+            searches += shard.searches.get();
+        }
+        return searches;
+    }
+
+    /**
+     * Counts the searches a shard answers, delegating everything to an in-process shard.
+     * While a failure is set, drivers added and rides started are registered with the
+     * shard, but the failure is thrown in place of the answer, as when it is lost.
+     */
+    private static final class CountingShard implements RideShard {
+        private final RideShard shard;
+        private final AtomicInteger searches = new AtomicInteger();
+        private volatile RuntimeException failure;
+
+        CountingShard(RideShard shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public void addDriver(String id, double latitude, double longitude) {
+            shard.addDriver(id, latitude, longitude);
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        @Override
+        public void updateDriverLocation(String id, double latitude, double longitude) {
+            shard.updateDriverLocation(id, latitude, longitude);
+        }
+
+        @Override
+        public Optional<LocationEntry> removeAvailableDriver(String id) {
+            return shard.removeAvailableDriver(id);
+        }
+
+        @Override
+        public void addRider(String id, double latitude, double longitude) {
+            shard.addRider(id, latitude, longitude);
+        }
+
+        @Override
+        public MatchCandidates findNearbyDrivers(double latitude, double longitude, double ceiling, boolean countDemand) {
+            searches.incrementAndGet();
+            return shard.findNearbyDrivers(latitude, longitude, ceiling, countDemand);
+        }
+
+        @Override
+        public String startRideWithDriver(String rideId, String driverId, String riderId) {
+            String started = shard.startRideWithDriver(rideId, driverId, riderId);
+            if (failure != null) {
+                throw failure;
+            }
+            return started;
+        }
+
+        @Override
+        public String stopRide(String rideId, double endLatitude, double endLongitude, double duration) {
+            return shard.stopRide(rideId, endLatitude, endLongitude, duration);
+        }
+
+        @Override
+        public Optional<BillDetails> generateBill(String rideId) {
+            return shard.generateBill(rideId);
+        }
+
+        @Override
+        public ShardDirectory directory() {
+            return shard.directory();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.example;
+
+import org.example.controller.BinaryRideController;
+import org.example.controller.RideController;
+import org.example.controller.RideStreamController;
+import org.example.model.Driver;
+import org.example.service.MatchResult;
+import org.example.service.RideService;
+import org.example.service.SurgePricing;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"ride.surge.enabled=true", "ride.surge.interval.seconds=60",
+        "ride.surge.half.life.seconds=60", "ride.stream.match.interval.millis=10"})
+class SurgePricingTest {
+
+    // A half-life this short keeps nothing from one interval to the next.
+    private static final Duration NO_MEMORY = Duration.ofNanos(1);
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private RideStreamController streamController;
+
+    @Autowired
+    private RideController rideController;
+
+    @Autowired
+    private BinaryRideController binaryController;
+
+    private static void request(SurgePricing surge, int times, double latitude, double longitude) {
+        for (int i = 0; i < times; i++) {
+            surge.recordRequest(latitude, longitude);
+        }
+    }
+
+    @Test
+    void testMultiplierFollowsDemandPerAvailableDriver() {
+        SurgePricing surge = new SurgePricing(1.0, 2.0, 3.0, Duration.ofMinutes(1), NO_MEMORY);
+        Driver busy = new Driver("D3", 0.5, 0.5);
+        busy.setAvailable(false);
+        List<Driver> drivers = List.of(new Driver("D1", 0.5, 0.5), new Driver("D2", 0.6, 0.4), busy,
+                new Driver("D4", 5.5, 5.5));
+        request(surge, 5, 0.5, 0.5);
+        request(surge, 40, 5.5, 5.5);
+        request(surge, 2, 9.5, 9.5);
+
+        surge.recompute(drivers);
+
+        assertEquals(new BigDecimal("1.2"), surge.multiplier(0.1, 0.9));
+        assertEquals(new BigDecimal("3.0"), surge.multiplier(5.5, 5.5));
+        assertEquals(BigDecimal.ONE, surge.multiplier(9.5, 9.5));
+        assertEquals(BigDecimal.ONE, surge.multiplier(-0.5, 0.5));
+        assertEquals(2, surge.countSurgingCells());
+    }
+
+    @Test
+    void testDemandDecaysOverIntervals() {
+        SurgePricing surge = new SurgePricing(1.0, 2.0, 3.0, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        request(surge, 16, 0.5, 0.5);
+
+        surge.recompute(List.of());
+        assertEquals(new BigDecimal("3.0"), surge.multiplier(0.5, 0.5));
+        surge.recompute(List.of());
+        assertEquals(new BigDecimal("2.0"), surge.multiplier(0.5, 0.5));
+        surge.recompute(List.of());
+        assertEquals(BigDecimal.ONE, surge.multiplier(0.5, 0.5));
+        assertEquals(0, surge.countSurgingCells());
+    }
+
+    @Test
+    void testDisabledSurgeNeverMultiplies() {
+        request(SurgePricing.NONE, 100, 0.5, 0.5);
+        SurgePricing.NONE.recompute(List.of());
+
+        assertEquals(BigDecimal.ONE, SurgePricing.NONE.multiplier(0.5, 0.5));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SurgePricing(0, 2.0, 3.0, Duration.ofMinutes(1), NO_MEMORY));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SurgePricing(1.0, 2.0, 0.5, Duration.ofMinutes(1), NO_MEMORY));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SurgePricing(1.0, 2.0, 3.0, Duration.ZERO, NO_MEMORY));
+    }
+
+    @Test
+    void testRidesAreBilledWithTheSurgeAtTheirStart() {
+        rideService.addDriver("SURGED1", 60.0, 60.0);
+        rideService.addDriver("SURGED2", 60.1, 60.1);
+        rideService.addRider("SURGER1", 60.5, 60.5);
+        rideService.addRider("SURGER2", 60.5, 60.5);
+        rideService.startRide("SURGERIDE1", 1, "SURGER1");
+        for (int i = 0; i < 6; i++) {
+            rideService.matchRider("SURGER2");
+        }
+
+        rideService.recomputeSurge();
+        MatchResult match = rideService.matchNearest("SURGER2");
+        rideService.startRide("SURGERIDE2", 1, "SURGER2");
+        rideService.stopRide("SURGERIDE1", 61.0, 61.0, 15);
+        rideService.stopRide("SURGERIDE2", 61.0, 61.0, 15);
+
+        assertEquals(new BigDecimal("1.5"), match.surgeMultiplier());
+        assertEquals(new BigDecimal("1.5"), rideService.findRide("SURGERIDE2").orElseThrow().getSurgeMultiplier());
+        assertEquals(new BigDecimal("101.52"), rideService.generateBill("SURGERIDE1").orElseThrow().getTotalFare());
+        assertEquals(new BigDecimal("152.27"), rideService.generateBill("SURGERIDE2").orElseThrow().getTotalFare());
+    }
+
+    @Test
+    void testDetailsAndBinaryMatchesRaiseSurge() {
+        rideService.addDriver("DETAILSD1", -40.0, -110.0);
+        rideService.addRider("DETAILSR1", -40.5, -110.5);
+        rideService.addDriver("BINARYD1", -30.0, -110.0);
+        rideService.addRider("BINARYR1", -30.5, -110.5);
+        for (int i = 0; i < 6; i++) {
+            rideController.matchRiderDetails("DETAILSR1");
+            binaryController.matchRider("BINARYR1");
+        }
+
+        rideService.recomputeSurge();
+
+        assertEquals(new BigDecimal("1.5"), rideService.matchNearest("DETAILSR1", false).surgeMultiplier());
+        assertEquals(new BigDecimal("1.5"), rideService.matchNearest("BINARYR1", false).surgeMultiplier());
+    }
+
+    @Test
+    void testIdleMatchStreamDoesNotRaiseSurge() throws Exception {
+        rideService.addDriver("IDLED1", -50.0, -100.0);
+        rideService.addRider("IDLER1", -50.5, -100.5);
+
+        SseEmitter stream = streamController.streamMatches("IDLER1");
+        try {
+            // Keep the match changing, so that the stream re-matches the rider on every refresh.
+            for (int i = 0; i < 50; i++) {
+                rideService.updateDriverLocation("IDLED1", -50.0 - (i % 2) * 0.1, -100.0);
+                Thread.sleep(10);
+            }
+            rideService.recomputeSurge();
+        } finally {
+            stream.complete();
+        }
+
+        assertEquals(BigDecimal.ONE, rideService.matchNearest("IDLER1", false).surgeMultiplier());
+    }
+}